@@ -0,0 +1,286 @@
+package conta;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import hidrometroSemOCR.Hidrometro;
+import hidrometroSemOCR.LeituraObserver;
+import src.Configuracoes;
+
+/**
+ * Agregador incremental de consumo — Singleton
+ *
+ * Recebe cada nova leitura dos hidrômetros ({@link LeituraObserver}) e
+ * soma o consumo desde a leitura anterior nos agregados por hora, dia e
+ * mês do hidrômetro e do usuário dono da conta. Cada amostra custa um
+ * número fixo de operações, e os relatórios leem apenas os agregados,
+ * sem reprocessar leituras.
+ *
+ * O vínculo hidrômetro → usuário é mantido pelo {@link ContaDAO}.
+ * Os agregados são gravados no arquivo NomeArquivoDeConsumo
+ * (padrão: consumo.txt), no mesmo diretório do arquivo de contas,
+ * apenas quando houve alguma leitura nova desde a última gravação.
+ *
+ * Os períodos por hora são mantidos por RetencaoConsumoHorarioDias dias
+ * (padrão: 7; 0 mantém todos), contados a partir da hora mais recente
+ * de cada hidrômetro ou usuário. Depois disso o consumo permanece apenas
+ * nos agregados por dia e mês, o que limita a memória e o arquivo.
+ */
+public class AgregadorConsumo implements LeituraObserver {
+
+    /** Instância única do agregador */
+    private static AgregadorConsumo instance;
+
+    /** Arquivo de persistência dos agregados */
+    private final File arquivo;
+
+    /** Estado de cada hidrômetro (ID → estado) */
+    private final Map<String, EstadoHidrometro> hidrometros = new ConcurrentHashMap<>();
+
+    /** Agregados de cada usuário (ID do usuário → agregados) */
+    private final Map<String, ConsumoAgregado> usuarios = new ConcurrentHashMap<>();
+
+    /** Dono de cada hidrômetro com conta (ID do hidrômetro → ID do usuário) */
+    private final Map<String, String> usuarioPorHidrometro = new ConcurrentHashMap<>();
+
+    /** Janela dos períodos por hora (ms) */
+    private final long retencaoHoras;
+
+    /** Houve leitura nova desde a última gravação */
+    private volatile boolean sujo;
+
+    /**
+     * Última leitura e agregados de um hidrômetro.
+     */
+    private static final class EstadoHidrometro {
+        final ConsumoAgregado agregado;
+        double ultimaLeitura = Double.NaN;
+
+        EstadoHidrometro(long retencaoHoras) {
+            agregado = new ConsumoAgregado(retencaoHoras);
+        }
+    }
+
+    /**
+     * Construtor privado (Singleton).
+     * Carrega os agregados gravados anteriormente.
+     */
+    private AgregadorConsumo() {
+        File contas = new File(Configuracoes.getString("NomeArquivoDeContas", "contas.txt"));
+        arquivo = new File(contas.getAbsoluteFile().getParentFile(),
+                Configuracoes.getString("NomeArquivoDeConsumo", "consumo.txt"));
+        retencaoHoras = TimeUnit.DAYS.toMillis(Configuracoes.getLong("RetencaoConsumoHorarioDias", 7));
+        carregar();
+    }
+
+    /**
+     * Retorna a instância única do agregador.
+     *
+     * @return instância singleton
+     */
+    public static synchronized AgregadorConsumo getInstance() {
+        if (instance == null) {
+            instance = new AgregadorConsumo();
+        }
+        return instance;
+    }
+
+    // ===================== ATUALIZAÇÃO =====================
+
+    /**
+     * Soma o consumo desde a leitura anterior do hidrômetro.
+     *
+     * Uma leitura menor que a anterior (virada do limite ou leitura
+     * definida manualmente) apenas redefine a referência.
+     */
+    @Override
+    public void leituraAtualizada(Hidrometro h, long instante, double leitura) {
+        String id = h.getIdentificador();
+        EstadoHidrometro estado = estadoDe(id);
+
+        double consumo;
+        synchronized (estado) {
+            double anterior = estado.ultimaLeitura;
+            estado.ultimaLeitura = leitura;
+            consumo = leitura - anterior;
+        }
+        if (consumo != 0) {
+            sujo = true;
+        }
+        // NaN na primeira amostra; negativo após virada do limite
+        if (!(consumo > 0)) {
+            return;
+        }
+
+        estado.agregado.somar(instante, consumo);
+
+        String idUsuario = usuarioPorHidrometro.get(id);
+        if (idUsuario != null) {
+            usuarioDe(idUsuario).somar(instante, consumo);
+        }
+    }
+
+    /**
+     * Vincula um hidrômetro ao usuário da sua conta.
+     *
+     * @param idHidrometro identificador do hidrômetro
+     * @param idUsuario identificador (CPF) do usuário
+     */
+    public void vincular(String idHidrometro, String idUsuario) {
+        usuarioPorHidrometro.put(idHidrometro, idUsuario);
+    }
+
+    /**
+     * Remove o vínculo de um hidrômetro com seu usuário.
+     * O histórico já agregado do usuário é mantido.
+     *
+     * @param idHidrometro identificador do hidrômetro
+     */
+    public void desvincular(String idHidrometro) {
+        usuarioPorHidrometro.remove(idHidrometro);
+    }
+
+    // ===================== CONSULTA =====================
+
+    /**
+     * Retorna o consumo de um hidrômetro por período.
+     *
+     * @param idHidrometro identificador do hidrômetro
+     * @param periodo granularidade (hora, dia ou mês)
+     * @param de início do intervalo (ms)
+     * @param ate fim do intervalo (ms)
+     * @return consumo de cada período com registro, em ordem de tempo
+     */
+    public List<ConsumoPeriodo> consumoDoHidrometro(
+            String idHidrometro, PeriodoConsumo periodo, long de, long ate) {
+        EstadoHidrometro estado = hidrometros.get(idHidrometro);
+        return estado == null ? List.of() : estado.agregado.consultar(periodo, de, ate);
+    }
+
+    /**
+     * Retorna o consumo de um usuário (todas as suas contas) por período.
+     *
+     * @param idUsuario identificador (CPF) do usuário
+     * @param periodo granularidade (hora, dia ou mês)
+     * @param de início do intervalo (ms)
+     * @param ate fim do intervalo (ms)
+     * @return consumo de cada período com registro, em ordem de tempo
+     */
+    public List<ConsumoPeriodo> consumoDoUsuario(
+            String idUsuario, PeriodoConsumo periodo, long de, long ate) {
+        ConsumoAgregado agregado = usuarios.get(idUsuario);
+        return agregado == null ? List.of() : agregado.consultar(periodo, de, ate);
+    }
+
+    // ===================== PERSISTÊNCIA =====================
+
+    /**
+     * Grava todos os agregados no arquivo de consumo, se houve
+     * leitura nova desde a última gravação.
+     *
+     * Formato das linhas:
+     * H-idHidrometro-PERIODO-inicio-consumo (hidrômetro),
+     * U-idUsuario-PERIODO-inicio-consumo (usuário) e
+     * L-idHidrometro-ultimaLeitura (referência para o consumo seguinte).
+     * Os valores podem ter hífen (ex.: 1.0E-4) e ficam sempre no último campo.
+     */
+    public synchronized void salvar() {
+        if (!sujo) {
+            return;
+        }
+        // Leituras que chegarem durante a gravação marcam de novo
+        sujo = false;
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(arquivo, false))) {
+
+            for (Map.Entry<String, EstadoHidrometro> e : hidrometros.entrySet()) {
+                EstadoHidrometro estado = e.getValue();
+                synchronized (estado) {
+                    if (!Double.isNaN(estado.ultimaLeitura)) {
+                        writer.write("L-" + e.getKey() + "-" + estado.ultimaLeitura); //$NON-NLS-1$ //$NON-NLS-2$
+                        writer.newLine();
+                    }
+                }
+                gravarAgregado(writer, "H", e.getKey(), estado.agregado); //$NON-NLS-1$
+            }
+            for (Map.Entry<String, ConsumoAgregado> e : usuarios.entrySet()) {
+                gravarAgregado(writer, "U", e.getKey(), e.getValue()); //$NON-NLS-1$
+            }
+
+        } catch (IOException e) {
+            sujo = true;
+            e.printStackTrace();
+        }
+    }
+
+    private static void gravarAgregado(BufferedWriter writer, String tipo, String id,
+            ConsumoAgregado agregado) throws IOException {
+        synchronized (agregado) {
+            PeriodoConsumo[] periodos = PeriodoConsumo.values();
+            for (int p = 0; p < periodos.length; p++) {
+                TabelaConsumo tabela = agregado.tabelas[p];
+                for (int i = 0; i < tabela.getTamanho(); i++) {
+                    writer.write(tipo + "-" + id + "-" + periodos[p] + "-" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                            + tabela.getInicio(i) + "-" + tabela.getValor(i)); //$NON-NLS-1$
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Carrega os agregados gravados por {@link #salvar()}.
+     */
+    private void carregar() {
+        if (!arquivo.exists()) {
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(arquivo))) {
+            String linha;
+
+            while ((linha = reader.readLine()) != null) {
+                String tipo = linha.substring(0, Math.max(linha.indexOf('-'), 0));
+                // O último campo é um double e pode conter hífen
+                String[] partes = linha.split("-", "L".equals(tipo) ? 3 : 5); //$NON-NLS-1$ //$NON-NLS-2$
+
+                switch (partes[0]) {
+                    case "L": //$NON-NLS-1$
+                        estadoDe(partes[1]).ultimaLeitura = Double.parseDouble(partes[2]);
+                        break;
+                    case "H": //$NON-NLS-1$
+                        estadoDe(partes[1]).agregado.somar(PeriodoConsumo.valueOf(partes[2]),
+                                Long.parseLong(partes[3]), Double.parseDouble(partes[4]));
+                        break;
+                    case "U": //$NON-NLS-1$
+                        usuarioDe(partes[1]).somar(PeriodoConsumo.valueOf(partes[2]),
+                                Long.parseLong(partes[3]), Double.parseDouble(partes[4]));
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private EstadoHidrometro estadoDe(String id) {
+        EstadoHidrometro estado = hidrometros.get(id);
+        return estado != null ? estado : hidrometros.computeIfAbsent(id, k -> new EstadoHidrometro(retencaoHoras));
+    }
+
+    private ConsumoAgregado usuarioDe(String id) {
+        ConsumoAgregado agregado = usuarios.get(id);
+        return agregado != null ? agregado : usuarios.computeIfAbsent(id, k -> new ConsumoAgregado(retencaoHoras));
+    }
+}
@@ -0,0 +1,53 @@
+package conta;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Agregados de consumo de um hidrômetro ou de um usuário:
+ * uma {@link TabelaConsumo} por granularidade.
+ *
+ * Só a tabela por hora tem retenção; dias e meses são mantidos.
+ */
+final class ConsumoAgregado {
+
+    /** Uma tabela por valor de {@link PeriodoConsumo} (mesma ordem) */
+    final TabelaConsumo[] tabelas;
+
+    /**
+     * @param retencaoHoras janela da tabela por hora (ms; 0 mantém tudo)
+     */
+    ConsumoAgregado(long retencaoHoras) {
+        PeriodoConsumo[] periodos = PeriodoConsumo.values();
+        tabelas = new TabelaConsumo[periodos.length];
+        for (int p = 0; p < periodos.length; p++) {
+            tabelas[p] = new TabelaConsumo(periodos[p],
+                    periodos[p] == PeriodoConsumo.HORA ? retencaoHoras : 0);
+        }
+    }
+
+    /**
+     * Soma um consumo em todas as granularidades.
+     */
+    synchronized void somar(long instante, double consumo) {
+        for (TabelaConsumo tabela : tabelas) {
+            tabela.somar(instante, consumo);
+        }
+    }
+
+    /**
+     * Soma um consumo em uma única granularidade (usado ao carregar do arquivo).
+     */
+    synchronized void somar(PeriodoConsumo periodo, long inicio, double consumo) {
+        tabelas[periodo.ordinal()].somar(inicio, consumo);
+    }
+
+    /**
+     * Retorna os períodos da granularidade informada que começam em [de, ate].
+     */
+    synchronized List<ConsumoPeriodo> consultar(PeriodoConsumo periodo, long de, long ate) {
+        List<ConsumoPeriodo> saida = new ArrayList<>();
+        tabelas[periodo.ordinal()].consultar(de, ate, saida);
+        return saida;
+    }
+}
@@ -0,0 +1,47 @@
+package conta;
+
+import java.time.Instant;
+
+/**
+ * Consumo agregado em um período (hora, dia ou mês).
+ */
+public class ConsumoPeriodo {
+
+    /** Início do período (ms desde a época) */
+    private final long inicio;
+
+    /** Consumo no período (m³) */
+    private final double consumo;
+
+    /**
+     * @param inicio início do período (ms)
+     * @param consumo consumo no período
+     */
+    public ConsumoPeriodo(long inicio, double consumo) {
+        this.inicio = inicio;
+        this.consumo = consumo;
+    }
+
+    /**
+     * Retorna o início do período.
+     *
+     * @return milissegundos desde a época
+     */
+    public long getInicio() {
+        return inicio;
+    }
+
+    /**
+     * Retorna o consumo no período.
+     *
+     * @return consumo em m³
+     */
+    public double getConsumo() {
+        return consumo;
+    }
+
+    @Override
+    public String toString() {
+        return Instant.ofEpochMilli(inicio) + " " + String.format("%.3f", consumo); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+}
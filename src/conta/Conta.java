@@ -102,6 +102,9 @@ public class Conta {
     /**
      * Define o usuário associado à conta.
      *
+     * O ContaDAO indexa as contas por usuário: para uma conta já salva,
+     * remova-a do DAO antes de alterar e salve-a novamente depois.
+     *
      * @param idUsuario novo identificador do usuário
      */
     public void setIdUsuario(String idUsuario) {
@@ -111,6 +114,9 @@ public class Conta {
     /**
      * Define o hidrômetro associado à conta.
      *
+     * O ContaDAO indexa as contas por hidrômetro: para uma conta já salva,
+     * remova-a do DAO antes de alterar e salve-a novamente depois.
+     *
      * @param idHidrometro novo identificador do hidrômetro
      */
     public void setIdHidrometro(String idHidrometro) {
@@ -6,12 +6,17 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import metricas.EventoPersistencia;
 import src.Configuracoes;
+import src.DiarioEventos;
 import src.Evento;
 import src.Messages;
 import src.Observer;
@@ -22,10 +27,15 @@ import src.Observer;
  * 
  * Esta classe:
  * - Implementa o padrão Singleton
- * - Mantém um cache das contas em memória
+ * - Mantém um cache das contas em memória, com índices por
+ *   hidrômetro e por usuário
  * - Realiza a persistência em arquivo texto
  * - Atua como Observer, reagindo a eventos de remoção
  *   de usuários e hidrômetros
+ *
+ * Com ModoPersistencia=DIARIO, cada alteração (inclusive as remoções
+ * em cascata) é registrada no {@link DiarioEventos} e o arquivo de
+ * contas não é usado.
  */
 public class ContaDAO implements Observer {
 
@@ -39,12 +49,33 @@ public class ContaDAO implements Observer {
     /** Mapa em memória contendo todas as contas (idConta → Conta) */
     private Map<String, Conta> contas;
 
+    /** Índice secundário: idHidrometro → conta (cada hidrômetro tem no máximo uma) */
+    private final Map<String, Conta> contaPorHidrometro = new HashMap<>();
+
+    /** Índice secundário: idUsuario → contas do usuário */
+    private final Map<String, Set<Conta>> contasPorUsuario = new HashMap<>();
+
+    /** Agregados de consumo, que precisam saber o usuário de cada hidrômetro */
+    private final AgregadorConsumo agregador;
+
+    /** Diário de eventos (null quando ModoPersistencia=ARQUIVOS) */
+    private final DiarioEventos diario;
+
+    /**
+     * Contas cuja última leitura mudou por LEITURA_ATUALIZADA e ainda não
+     * foi registrada no diário. A leitura é derivada da simulação e muda
+     * a cada publicação; ela só vai para o diário no encerramento.
+     */
+    private final Set<Conta> leiturasPendentesDiario = new HashSet<>();
+
     /**
      * Construtor privado.
      * Inicializa o mapa em memória e carrega os dados do arquivo.
      */
     private ContaDAO() {
         contas = new HashMap<>();
+        agregador = AgregadorConsumo.getInstance();
+        diario = DiarioEventos.isAtivo() ? DiarioEventos.getInstance() : null;
         carregarDoArquivo();
     }
 
@@ -68,12 +99,24 @@ public class ContaDAO implements Observer {
      * Carrega todas as contas armazenadas no arquivo para a memória.
      * 
      * Caso o arquivo não exista, o método simplesmente retorna,
-     * mantendo o mapa vazio.
+     * mantendo o mapa vazio. Com o diário de eventos ativo, as
+     * contas vêm do diário.
      */
     private synchronized void carregarDoArquivo() {
+        EventoPersistencia jfr = new EventoPersistencia();
+        jfr.begin();
+        if (diario != null) {
+            for (String linha : diario.linhas(DiarioEventos.Entidade.CONTA)) {
+                indexar(parseLinha(linha));
+            }
+            jfr.concluir("CONTA", "carregarDoArquivo", contas.size(), -1);
+            return;
+        }
+
         File file = new File(ARQUIVO);
 
         if (!file.exists()) {
+            jfr.concluir("CONTA", "carregarDoArquivo", 0, 0);
             return;
         }
 
@@ -81,13 +124,13 @@ public class ContaDAO implements Observer {
             String linha;
 
             while ((linha = reader.readLine()) != null) {
-                Conta conta = parseLinha(linha);
-                contas.put(conta.getId(), conta);
+                indexar(parseLinha(linha));
             }
 
         } catch (IOException e) {
             throw new RuntimeException(Messages.getString("ContaDAO.1"), e); //$NON-NLS-1$
         }
+        jfr.concluir("CONTA", "carregarDoArquivo", contas.size(), file.length());
     }
 
     /* =========================
@@ -100,26 +143,56 @@ public class ContaDAO implements Observer {
      * @param idConta identificador da conta
      * @return conta encontrada ou null
      */
-    public Conta buscarPorId(String idConta) {
+    public synchronized Conta buscarPorId(String idConta) {
         return contas.get(idConta);
     }
 
+    /**
+     * Busca a conta associada a um hidrômetro.
+     *
+     * @param idHidrometro identificador do hidrômetro
+     * @return conta encontrada ou null
+     */
+    public synchronized Conta buscarPorHidrometro(String idHidrometro) {
+        return contaPorHidrometro.get(idHidrometro);
+    }
+
+    /**
+     * Retorna as contas de um usuário.
+     *
+     * @param idUsuario identificador (CPF) do usuário
+     * @return lista (possivelmente vazia) com as contas do usuário
+     */
+    public synchronized List<Conta> listarPorUsuario(String idUsuario) {
+        Set<Conta> doUsuario = contasPorUsuario.get(idUsuario);
+        return doUsuario == null ? new ArrayList<>() : new ArrayList<>(doUsuario);
+    }
+
     /**
      * Retorna todas as contas cadastradas.
      *
-     * @return coleção de contas
+     * @return cópia da coleção de contas
      */
-    public Collection<Conta> listarTodas() {
-        return contas.values();
+    public synchronized Collection<Conta> listarTodas() {
+        return new ArrayList<>(contas.values());
     }
 
     /**
-     * Retorna o mapa interno de contas.
+     * Retorna uma cópia do mapa de contas.
      *
      * @return mapa id → conta
      */
-    public Map<String, Conta> getMapaContas() {
-        return contas;
+    public synchronized Map<String, Conta> getMapaContas() {
+        return new HashMap<>(contas);
+    }
+
+    /**
+     * Retorna a quantidade de contas cadastradas.
+     *
+     * @return total de contas
+     */
+    public synchronized int getQuantidade() {
+        return contas.size();
     }
 
     /* =========================
@@ -137,7 +210,8 @@ public class ContaDAO implements Observer {
      */
     private Conta parseLinha(String linha) {
         try {
-            String[] partes = linha.split("-"); //$NON-NLS-1$
+            // A leitura pode conter hífen (ex.: 9.0E-4)
+            String[] partes = linha.split("-", 4); //$NON-NLS-1$
 
             String idConta = partes[0];
             String idUsuario = partes[1];
@@ -162,7 +236,49 @@ public class ContaDAO implements Observer {
      * @param conta conta a ser salva
      */
     public synchronized void salvar(Conta conta) {
-        contas.put(conta.getId(), conta);
+        indexar(conta);
+        registrarNoDiario(conta);
+        leiturasPendentesDiario.remove(conta);
+    }
+
+    /**
+     * Registra a conta no diário de eventos, quando ativo.
+     */
+    private void registrarNoDiario(Conta conta) {
+        if (diario != null) {
+            diario.registrar(DiarioEventos.Entidade.CONTA, conta.getId(), formatarLinha(conta));
+        }
+    }
+
+    /**
+     * Coloca a conta no mapa principal e nos índices,
+     * substituindo uma versão anterior com o mesmo ID.
+     */
+    private void indexar(Conta conta) {
+        Conta anterior = contas.put(conta.getId(), conta);
+        if (anterior != null) {
+            removerDosIndices(anterior);
+        }
+
+        contaPorHidrometro.put(conta.getIdHidrometro(), conta);
+        contasPorUsuario.computeIfAbsent(conta.getIdUsuario(), k -> new HashSet<>()).add(conta);
+        agregador.vincular(conta.getIdHidrometro(), conta.getIdUsuario());
+    }
+
+    /**
+     * Retira a conta dos índices secundários.
+     */
+    private void removerDosIndices(Conta conta) {
+        contaPorHidrometro.remove(conta.getIdHidrometro(), conta);
+        agregador.desvincular(conta.getIdHidrometro());
+
+        Set<Conta> doUsuario = contasPorUsuario.get(conta.getIdUsuario());
+        if (doUsuario != null) {
+            doUsuario.remove(conta);
+            if (doUsuario.isEmpty()) {
+                contasPorUsuario.remove(conta.getIdUsuario());
+            }
+        }
     }
 
     /**
@@ -173,10 +289,28 @@ public class ContaDAO implements Observer {
     }
 
     /**
-     * Encerra o sistema, salvando todas as contas no arquivo.
+     * Encerra o sistema, salvando todas as contas e os agregados de consumo.
+     * Com o diário de eventos ativo, só as últimas leituras recebidas
+     * desde o início ainda não estão gravadas.
      */
     public void encerrarSistema() {
-        regravarArquivo();
+        if (diario == null) {
+            regravarArquivo();
+        } else {
+            registrarLeiturasPendentes();
+        }
+        agregador.salvar();
+    }
+
+    /**
+     * Registra no diário a última leitura das contas atualizadas por
+     * LEITURA_ATUALIZADA.
+     */
+    private synchronized void registrarLeiturasPendentes() {
+        for (Conta conta : leiturasPendentesDiario) {
+            registrarNoDiario(conta);
+        }
+        leiturasPendentesDiario.clear();
     }
 
     /**
@@ -185,24 +319,32 @@ public class ContaDAO implements Observer {
      * O arquivo antigo é sobrescrito.
      */
     private synchronized void regravarArquivo() {
+        EventoPersistencia jfr = new EventoPersistencia();
+        jfr.begin();
 
         try (BufferedWriter writer = new BufferedWriter(
                 new FileWriter(ARQUIVO, false))) {
 
             for (Conta conta : contas.values()) {
-
-                String linha = conta.getId() + "-" //$NON-NLS-1$
-                        + conta.getIdUsuario() + "-" //$NON-NLS-1$
-                        + conta.getIdHidrometro() + "-" //$NON-NLS-1$
-                        + conta.getUltimaLeitura();
-
-                writer.write(linha);
+                writer.write(formatarLinha(conta));
                 writer.newLine();
             }
 
         } catch (IOException e) {
             throw new RuntimeException(Messages.getString("ContaDAO.3"), e); //$NON-NLS-1$
         }
+        jfr.concluir("CONTA", "regravarArquivo", contas.size(), new File(ARQUIVO).length());
+    }
+
+    /**
+     * Converte uma conta em uma linha no formato
+     * idConta-idUsuario-idHidrometro-ultimaLeitura.
+     */
+    private static String formatarLinha(Conta conta) {
+        return conta.getId() + "-" //$NON-NLS-1$
+                + conta.getIdUsuario() + "-" //$NON-NLS-1$
+                + conta.getIdHidrometro() + "-" //$NON-NLS-1$
+                + conta.getUltimaLeitura();
     }
 
     /* =========================
@@ -216,6 +358,13 @@ public class ContaDAO implements Observer {
      * - usuários removidos
      * - hidrômetros removidos
      *
+     * e mantém a última leitura das contas em dia com os eventos
+     * LEITURA_ATUALIZADA dos hidrômetros.
+     *
+     * Os índices secundários localizam as contas afetadas
+     * sem percorrer todas as contas. Eventos em lote são
+     * processados em uma única chamada.
+     *
      * @param evento evento recebido
      */
     @Override
@@ -224,15 +373,30 @@ public class ContaDAO implements Observer {
         switch (evento.getTipo()) {
 
             case USUARIO_REMOVIDO:
-                contas.values().removeIf(
-                        conta -> conta.getIdUsuario().equals(evento.getId())
-                );
+                for (String idUsuario : evento.getIds()) {
+                    for (Conta conta : listarPorUsuario(idUsuario)) {
+                        removerConta(conta.getId());
+                    }
+                }
                 break;
 
             case HIDROMETRO_REMOVIDO:
-                contas.values().removeIf(
-                        conta -> conta.getIdHidrometro().equals(evento.getId())
-                );
+                for (String idHidrometro : evento.getIds()) {
+                    Conta conta = contaPorHidrometro.get(idHidrometro);
+                    if (conta != null) {
+                        removerConta(conta.getId());
+                    }
+                }
+                break;
+
+            case LEITURA_ATUALIZADA:
+                Conta conta = contaPorHidrometro.get(evento.getId());
+                if (conta != null) {
+                    conta.setUltimaLeitura(evento.getValor());
+                    if (diario != null) {
+                        leiturasPendentesDiario.add(conta);
+                    }
+                }
                 break;
         }
     }
@@ -244,10 +408,10 @@ public class ContaDAO implements Observer {
     /**
      * Retorna todas as contas em formato de lista.
      *
-     * @return lista de contas
+     * @return cópia da lista de contas
      */
-    public List<Conta> listarContasDeAgua() {
-        return contas.values().stream().toList();
+    public synchronized List<Conta> listarContasDeAgua() {
+        return new ArrayList<>(contas.values());
     }
 
     /**
@@ -255,7 +419,23 @@ public class ContaDAO implements Observer {
      *
      * @param id identificador da conta
      */
-    public void removerConta(String id) {
-        contas.remove(id);
+    public synchronized void removerConta(String id) {
+        Conta conta = contas.remove(id);
+        if (conta != null) {
+            removerDosIndices(conta);
+            leiturasPendentesDiario.remove(conta);
+            if (diario != null) {
+                diario.registrarRemocao(DiarioEventos.Entidade.CONTA, id);
+            }
+        }
+    }
+
+    /**
+     * Retorna o agregador de consumo mantido junto às contas.
+     *
+     * @return AgregadorConsumo
+     */
+    public AgregadorConsumo getAgregadorConsumo() {
+        return agregador;
     }
 }
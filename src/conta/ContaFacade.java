@@ -122,6 +122,36 @@ public class ContaFacade {
         return contaDAO.listarTodas();
     }
 
+    /**
+     * Retorna o consumo de um usuário (todas as suas contas) por período.
+     *
+     * Exemplo: consumo mensal de um CPF nos últimos 24 meses.
+     *
+     * @param idUsuario identificador (CPF) do usuário
+     * @param periodo   granularidade (hora, dia ou mês)
+     * @param de        início do intervalo (ms)
+     * @param ate       fim do intervalo (ms)
+     * @return consumo de cada período, em ordem de tempo
+     */
+    public List<ConsumoPeriodo> consumoDoUsuario(
+            String idUsuario, PeriodoConsumo periodo, long de, long ate) {
+        return contaDAO.getAgregadorConsumo().consumoDoUsuario(idUsuario, periodo, de, ate);
+    }
+
+    /**
+     * Retorna o consumo de um hidrômetro por período.
+     *
+     * @param idHidrometro identificador do hidrômetro
+     * @param periodo      granularidade (hora, dia ou mês)
+     * @param de           início do intervalo (ms)
+     * @param ate          fim do intervalo (ms)
+     * @return consumo de cada período, em ordem de tempo
+     */
+    public List<ConsumoPeriodo> consumoDoHidrometro(
+            String idHidrometro, PeriodoConsumo periodo, long de, long ate) {
+        return contaDAO.getAgregadorConsumo().consumoDoHidrometro(idHidrometro, periodo, de, ate);
+    }
+
     /* =========================
        Regras de negócio
        ========================= */
@@ -133,8 +163,17 @@ public class ContaFacade {
      * @return true se existir uma conta, false caso contrário
      */
     public boolean existeContaParaHidrometro(String idHidrometro) {
-        return contaDAO.listarTodas().stream()
-                .anyMatch(c -> c.getIdHidrometro().equals(idHidrometro));
+        return contaDAO.buscarPorHidrometro(idHidrometro) != null;
+    }
+
+    /**
+     * Lista as contas de um usuário.
+     *
+     * @param idUsuario identificador (CPF) do usuário
+     * @return contas do usuário
+     */
+    public List<Conta> listarContasDoUsuario(String idUsuario) {
+        return contaDAO.listarPorUsuario(idUsuario);
     }
 
     /* =========================
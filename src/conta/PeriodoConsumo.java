@@ -0,0 +1,67 @@
+package conta;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Granularidades dos agregados de consumo.
+ *
+ * Os limites de dia e mês seguem o fuso horário do sistema.
+ */
+public enum PeriodoConsumo {
+
+    HORA,
+    DIA,
+    MES;
+
+    /** Fuso usado para calcular os limites dos períodos */
+    private static final ZoneId FUSO = ZoneId.systemDefault();
+
+    /**
+     * Retorna o início (ms) do período que contém o instante.
+     *
+     * @param instante instante em ms desde a época
+     * @return início do período em ms
+     */
+    public long inicio(long instante) {
+        LocalDateTime t = LocalDateTime.ofInstant(Instant.ofEpochMilli(instante), FUSO);
+
+        switch (this) {
+            case HORA:
+                t = t.truncatedTo(ChronoUnit.HOURS);
+                break;
+            case DIA:
+                t = t.truncatedTo(ChronoUnit.DAYS);
+                break;
+            default:
+                t = t.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+                break;
+        }
+        return t.atZone(FUSO).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Retorna o início (ms) do período seguinte.
+     *
+     * @param inicio início de um período, como retornado por {@link #inicio(long)}
+     * @return início do próximo período em ms
+     */
+    public long proximo(long inicio) {
+        LocalDateTime t = LocalDateTime.ofInstant(Instant.ofEpochMilli(inicio), FUSO);
+
+        switch (this) {
+            case HORA:
+                t = t.plusHours(1);
+                break;
+            case DIA:
+                t = t.plusDays(1);
+                break;
+            default:
+                t = t.plusMonths(1);
+                break;
+        }
+        return inicio(t.atZone(FUSO).toInstant().toEpochMilli());
+    }
+}
@@ -0,0 +1,139 @@
+package conta;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Consumo de uma única granularidade, com um valor por período.
+ *
+ * Os períodos ficam em vetores primitivos ordenados pelo início.
+ * O período corrente é guardado em cache: como as amostras chegam
+ * em ordem de tempo, quase toda soma é apenas uma adição no último
+ * valor, sem calcular datas nem buscar no vetor.
+ *
+ * Com retenção, ao abrir um período novo no fim da tabela são descartados
+ * os que começam antes de {@code início - retenção}; o consumo deles
+ * continua somado nas granularidades maiores.
+ */
+final class TabelaConsumo {
+
+    /** Granularidade da tabela */
+    private final PeriodoConsumo periodo;
+
+    /** Início de cada período (ms), em ordem crescente */
+    private long[] inicios = new long[8];
+
+    /** Consumo de cada período */
+    private double[] valores = new double[8];
+
+    /** Quantidade de períodos */
+    private int tamanho;
+
+    /** Janela mantida (ms); 0 mantém todos os períodos */
+    private final long retencao;
+
+    /** Período corrente em cache: [inicioAtual, fimAtual) e sua posição */
+    private long inicioAtual = Long.MAX_VALUE;
+    private long fimAtual = Long.MIN_VALUE;
+    private int posicaoAtual;
+
+    TabelaConsumo(PeriodoConsumo periodo, long retencao) {
+        this.periodo = periodo;
+        this.retencao = retencao;
+    }
+
+    /**
+     * Soma um consumo ao período que contém o instante.
+     *
+     * @param instante instante da amostra (ms)
+     * @param consumo consumo a somar
+     */
+    void somar(long instante, double consumo) {
+        if (instante < inicioAtual || instante >= fimAtual) {
+            inicioAtual = periodo.inicio(instante);
+            fimAtual = periodo.proximo(inicioAtual);
+            posicaoAtual = posicao(inicioAtual);
+        }
+        valores[posicaoAtual] += consumo;
+    }
+
+    /**
+     * Acrescenta à saída os períodos que começam dentro de [de, ate].
+     */
+    void consultar(long de, long ate, List<ConsumoPeriodo> saida) {
+        int i = Arrays.binarySearch(inicios, 0, tamanho, periodo.inicio(de));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        for (; i < tamanho && inicios[i] <= ate; i++) {
+            saida.add(new ConsumoPeriodo(inicios[i], valores[i]));
+        }
+    }
+
+    /** Quantidade de períodos registrados. */
+    int getTamanho() {
+        return tamanho;
+    }
+
+    /** Início do período na posição informada. */
+    long getInicio(int i) {
+        return inicios[i];
+    }
+
+    /** Consumo do período na posição informada. */
+    double getValor(int i) {
+        return valores[i];
+    }
+
+    /**
+     * Retorna a posição do período, criando-o se necessário.
+     * Períodos novos quase sempre entram no fim do vetor.
+     */
+    private int posicao(long inicio) {
+        if (tamanho > 0 && inicios[tamanho - 1] == inicio) {
+            return tamanho - 1;
+        }
+
+        int i = Arrays.binarySearch(inicios, 0, tamanho, inicio);
+        if (i >= 0) {
+            return i;
+        }
+        i = -i - 1;
+
+        if (i == tamanho && retencao > 0) {
+            i -= descartarAntesDe(inicio - retencao);
+        }
+        if (tamanho == inicios.length) {
+            inicios = Arrays.copyOf(inicios, tamanho * 2);
+            valores = Arrays.copyOf(valores, tamanho * 2);
+        }
+        System.arraycopy(inicios, i, inicios, i + 1, tamanho - i);
+        System.arraycopy(valores, i, valores, i + 1, tamanho - i);
+        inicios[i] = inicio;
+        valores[i] = 0.0;
+        tamanho++;
+        return i;
+    }
+
+    /**
+     * Remove os períodos que começam antes do limite.
+     *
+     * @return quantidade de períodos removidos
+     */
+    private int descartarAntesDe(long limite) {
+        int n = Arrays.binarySearch(inicios, 0, tamanho, limite);
+        if (n < 0) {
+            n = -n - 1;
+        }
+        if (n == 0) {
+            return 0;
+        }
+        System.arraycopy(inicios, n, inicios, 0, tamanho - n);
+        System.arraycopy(valores, n, valores, 0, tamanho - n);
+        tamanho -= n;
+        // O cache aponta para uma posição que mudou
+        inicioAtual = Long.MAX_VALUE;
+        fimAtual = Long.MIN_VALUE;
+        return n;
+    }
+}
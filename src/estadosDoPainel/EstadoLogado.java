@@ -3,9 +3,12 @@ package estadosDoPainel;
 import operacoes.OperacaoAdicionarHidrometro;
 import operacoes.OperacaoAdicionarUsuario;
 import operacoes.OperacaoAtualizarUsuario;
+import operacoes.OperacaoLerFotosEmLote;
+import operacoes.OperacaoLerHidrometroPorFoto;
 import operacoes.OperacaoListarHidrometros;
 import operacoes.OperacaoListarUsuarios;
 import operacoes.OperacaoLogout;
+import operacoes.OperacaoMetricasSistema;
 import operacoes.OperacaoPainel;
 import operacoes.OperacaoRemoverHidrometro;
 import operacoes.OperacaoRemoverUsuario;
@@ -29,6 +32,9 @@ public class EstadoLogado implements EstadoPainelIF {
         System.out.println("7 - Criar Conta de Água");
         System.out.println("8 - Listar Contas de Água");
         System.out.println("9 - Remover Conta de Água");
+        System.out.println("10 - Métricas do sistema");
+        System.out.println("11 - Ler Hidrometro por foto");
+        System.out.println("12 - Ler fotos de Hidrometros em lote");
         System.out.println("0 - Logout");
     }
 
@@ -47,6 +53,9 @@ public class EstadoLogado implements EstadoPainelIF {
             case "7" -> new OperaçãoCriarContaDeAgua(fachada);
             case "8" -> new OperaçãoListarContasDeAgua(fachada);
             case "9" -> new OperaçãoRemoverContaDeAgua(fachada);
+            case "10" -> new OperacaoMetricasSistema(fachada);
+            case "11" -> new OperacaoLerHidrometroPorFoto(fachada);
+            case "12" -> new OperacaoLerFotosEmLote(fachada);
            //
             case "0" -> new OperacaoLogout(fachada);
             
@@ -0,0 +1,143 @@
+package hidrometroComOCR;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import metricas.Histograma;
+
+/**
+ * Compara o tempo de OCR por foto com e sem o recorte do mostrador.
+ *
+ * Uso:
+ *   java hidrometroComOCR.ComparativoRoiOCR [diretorio] [repeticoes]
+ *
+ * Para cada foto do diretório (padrão: o diretório atual, com as fotos
+ * de exemplo) mede, {@code repeticoes} vezes (padrão 5):
+ *
+ * - foto inteira: só tons de cinza ({@link PreprocessadorSimples})
+ * - sem cache: detecção do mostrador a cada foto ({@link PreprocessadorOpenCV})
+ * - com cache: região já guardada para o hidrômetro
+ *
+ * O tempo é o da passada rápida e inclui o pré-processamento e o OCR;
+ * a decodificação fica de fora.
+ */
+public class ComparativoRoiOCR {
+
+    /** Extensões aceitas */
+    private static final String FILTRO_IMAGENS = "*.{jpg,jpeg,png,JPG,JPEG,PNG}";
+
+    public static void main(String[] args) {
+        File diretorio = new File(args.length > 0 ? args[0] : ".");
+        int repeticoes = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        try {
+            List<FotoHidrometro> fotos = carregar(diretorio);
+            if (fotos.isEmpty()) {
+                System.err.println("Nenhuma foto em " + diretorio.getAbsolutePath());
+                return;
+            }
+
+            PoolMotoresOCR pool = LeitorHidrometroOCR.getInstance().getPool();
+            PreprocessadorSimples simples = new PreprocessadorSimples();
+            PreprocessadorOpenCV opencv = new PreprocessadorOpenCV();
+
+            Medicao inteira = new Medicao("foto inteira");
+            Medicao semCache = new Medicao("sem cache");
+            Medicao comCache = new Medicao("com cache");
+
+            // Uma passada de aquecimento (handles do Tesseract, JIT, natives do OpenCV)
+            for (FotoHidrometro foto : fotos) {
+                inteira.medir(simples, pool, foto, false);
+                semCache.medir(opencv, pool, foto, false);
+            }
+            inteira.zerar();
+            semCache.zerar();
+
+            for (int i = 0; i < repeticoes; i++) {
+                for (FotoHidrometro foto : fotos) {
+                    inteira.medir(simples, pool, foto, true);
+                    opencv.invalidar(foto.id);
+                    semCache.medir(opencv, pool, foto, true);
+                    comCache.medir(opencv, pool, foto, true);
+                }
+            }
+
+            System.out.println(String.format("%d fotos x %d repetições (pré-processamento + OCR, ms)",
+                    fotos.size(), repeticoes));
+            System.out.println(String.format("  %-13s %8s %9s %9s %9s %12s",
+                    "modo", "fotos", "média", "p50", "p99", "reconhecidas"));
+            for (Medicao m : new Medicao[] { inteira, semCache, comCache }) {
+                System.out.println(m);
+            }
+        } catch (IOException | InterruptedException e) {
+            System.err.println("Erro no comparativo: " + e.getMessage());
+        } finally {
+            LeitorHidrometroOCR.encerrarSeIniciado();
+        }
+    }
+
+    private static List<FotoHidrometro> carregar(File diretorio) throws IOException {
+        List<FotoHidrometro> fotos = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(diretorio.toPath(), FILTRO_IMAGENS)) {
+            for (Path caminho : stream) {
+                FotoHidrometro foto = FotoHidrometro.de(caminho.toFile());
+                BufferedImage imagem = ImageIO.read(foto.arquivo);
+                if (imagem == null) {
+                    System.err.println("Ignorada (formato não suportado): " + foto.arquivo.getName());
+                    continue;
+                }
+                foto.original = imagem;
+                fotos.add(foto);
+            }
+        }
+        return fotos;
+    }
+
+    /**
+     * Tempos de um modo de pré-processamento.
+     */
+    private static final class Medicao {
+        private final String nome;
+        private Histograma tempos = new Histograma();
+        private int reconhecidas;
+
+        Medicao(String nome) {
+            this.nome = nome;
+        }
+
+        void medir(PreprocessadorOCR preprocessador, PoolMotoresOCR pool, FotoHidrometro foto, boolean registrar)
+                throws InterruptedException {
+            long inicio = System.nanoTime();
+            preprocessador.preparar(foto);
+            LeituraOCR leitura = pool.reconhecer(foto.imagem);
+            long duracao = System.nanoTime() - inicio;
+            foto.imagem = null;
+            if (registrar) {
+                tempos.registrar(duracao);
+                if (leitura.isReconhecida()) {
+                    reconhecidas++;
+                }
+            }
+        }
+
+        void zerar() {
+            tempos = new Histograma();
+            reconhecidas = 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("  %-13s %8d %9.3f %9.3f %9.3f %12d",
+                    nome, tempos.getTotal(), tempos.getMedia() / 1e6,
+                    tempos.percentil(50) / 1e6, tempos.percentil(99) / 1e6, reconhecidas);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package hidrometroComOCR;
+
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import metricas.Histograma;
+
+/**
+ * Um estágio do lote de OCR: {@code threads} threads tiram fotos da fila
+ * de entrada, executam a tarefa e colocam as aceitas na fila de saída.
+ *
+ * As filas são limitadas, então um estágio lento faz os anteriores
+ * esperarem em vez de acumular imagens na memória. Ao receber
+ * {@link FotoHidrometro#FIM}, cada thread a devolve à entrada para as
+ * demais e termina; a última a terminar repassa o FIM à saída.
+ */
+class EstagioLoteOCR {
+
+    /**
+     * Trabalho do estágio sobre uma foto.
+     */
+    interface Tarefa {
+        /**
+         * @param foto foto a processar
+         * @return false para rejeitar a foto (com {@code foto.motivo} preenchido)
+         */
+        boolean executar(FotoHidrometro foto) throws Exception;
+    }
+
+    private final String nome;
+    private final int threads;
+    private final BlockingQueue<FotoHidrometro> entrada;
+    private final BlockingQueue<FotoHidrometro> saida;
+    private final Tarefa tarefa;
+    private final Queue<FotoHidrometro> rejeitadas;
+
+    /** Executado pela última thread, antes de repassar o FIM */
+    private final Runnable aoTerminar;
+
+    private final AtomicInteger ativas = new AtomicInteger();
+    private final AtomicLong processadas = new AtomicLong();
+    private final AtomicLong rejeicoes = new AtomicLong();
+    private final Histograma latencias = new Histograma();
+    private final CountDownLatch terminou = new CountDownLatch(1);
+
+    /** Instante em que a última thread terminou (System.nanoTime) */
+    private volatile long fimNanos;
+
+    /**
+     * @param nome nome do estágio no relatório
+     * @param threads quantidade de threads
+     * @param entrada fila de entrada
+     * @param saida fila de saída (null no último estágio)
+     * @param tarefa trabalho sobre cada foto
+     * @param rejeitadas destino das fotos rejeitadas
+     * @param aoTerminar ação ao fim do estágio (pode ser null)
+     */
+    EstagioLoteOCR(String nome, int threads, BlockingQueue<FotoHidrometro> entrada,
+            BlockingQueue<FotoHidrometro> saida, Tarefa tarefa, Queue<FotoHidrometro> rejeitadas,
+            Runnable aoTerminar) {
+        this.nome = nome;
+        this.threads = Math.max(1, threads);
+        this.entrada = entrada;
+        this.saida = saida;
+        this.tarefa = tarefa;
+        this.rejeitadas = rejeitadas;
+        this.aoTerminar = aoTerminar;
+    }
+
+    /**
+     * Inicia as threads do estágio.
+     */
+    void iniciar() {
+        ativas.set(threads);
+        for (int i = 0; i < threads; i++) {
+            Thread t = new Thread(this::executar, "sha-ocr-" + nome + "-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    private void executar() {
+        try {
+            FotoHidrometro foto;
+            while ((foto = entrada.take()) != FotoHidrometro.FIM) {
+                processar(foto);
+            }
+            entrada.put(FotoHidrometro.FIM);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Mesmo se a thread terminar por erro, quem espera pelo
+            // estágio (aguardar e o estágio seguinte) não pode ficar preso
+            if (ativas.decrementAndGet() == 0) {
+                terminar();
+            }
+        }
+    }
+
+    private void terminar() {
+        try {
+            if (aoTerminar != null) {
+                aoTerminar.run();
+            }
+        } finally {
+            fimNanos = System.nanoTime();
+            terminou.countDown();
+            if (saida != null) {
+                try {
+                    saida.put(FotoHidrometro.FIM);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void processar(FotoHidrometro foto) throws InterruptedException {
+        long inicio = System.nanoTime();
+        boolean aceita;
+        try {
+            aceita = tarefa.executar(foto);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception | LinkageError | OutOfMemoryError e) {
+            // Uma foto com problema (ou sem as bibliotecas nativas do
+            // Tesseract/OpenCV) é rejeitada sem derrubar a thread
+            foto.motivo = e.getMessage() != null ? e.getMessage() : e.toString();
+            aceita = false;
+        }
+        latencias.registrar(System.nanoTime() - inicio);
+        processadas.incrementAndGet();
+
+        if (!aceita) {
+            foto.original = null;
+            foto.imagem = null;
+            rejeicoes.incrementAndGet();
+            rejeitadas.add(foto);
+        } else if (saida != null) {
+            saida.put(foto);
+        }
+    }
+
+    /**
+     * Espera todas as threads do estágio terminarem.
+     */
+    void aguardar() throws InterruptedException {
+        terminou.await();
+    }
+
+    String getNome() {
+        return nome;
+    }
+
+    int getThreads() {
+        return threads;
+    }
+
+    long getProcessadas() {
+        return processadas.get();
+    }
+
+    long getRejeitadas() {
+        return rejeicoes.get();
+    }
+
+    Histograma getLatencias() {
+        return latencias;
+    }
+
+    /**
+     * @return instante em que o estágio terminou, ou 0 se ainda em execução
+     */
+    long getFimNanos() {
+        return fimNanos;
+    }
+}
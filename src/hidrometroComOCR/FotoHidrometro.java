@@ -0,0 +1,61 @@
+package hidrometroComOCR;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+
+/**
+ * Uma foto em processamento pelo OCR. Cada etapa (decodificação,
+ * pré-processamento, OCR, validação) preenche o campo seguinte.
+ */
+class FotoHidrometro {
+
+    /** Marca de fim da fila: não há mais fotos */
+    static final FotoHidrometro FIM = new FotoHidrometro(null, null);
+
+    final File arquivo;
+
+    /** ID do hidrômetro (null se desconhecido) */
+    final String id;
+
+    /** Imagem decodificada */
+    BufferedImage original;
+
+    /** Imagem pré-processada, em tons de cinza, entregue ao Tesseract */
+    BufferedImage imagem;
+
+    /** De onde veio o recorte do mostrador */
+    PreprocessadorOCR.Recorte recorte;
+
+    /** Duração do pré-processamento (ns) */
+    long preprocessamentoNanos;
+
+    LeituraOCR leitura;
+
+    /** Motivo da rejeição (null se aceita) */
+    String motivo;
+
+    FotoHidrometro(File arquivo, String id) {
+        this.arquivo = arquivo;
+        this.id = id;
+    }
+
+    /**
+     * Extrai o ID do hidrômetro do nome do arquivo: tudo antes do
+     * primeiro '_' ou '.' (ex.: 7199209.jpeg, 7199209_2026-10-17.jpg).
+     *
+     * @param arquivo foto do hidrômetro
+     * @return foto com o ID preenchido
+     */
+    static FotoHidrometro de(File arquivo) {
+        String nome = arquivo.getName();
+        int fim = nome.length();
+        for (int i = 0; i < nome.length(); i++) {
+            char c = nome.charAt(i);
+            if (c == '_' || c == '.') {
+                fim = i;
+                break;
+            }
+        }
+        return new FotoHidrometro(arquivo, nome.substring(0, fim));
+    }
+}
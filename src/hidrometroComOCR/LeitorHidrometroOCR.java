@@ -0,0 +1,285 @@
+package hidrometroComOCR;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.imageio.ImageIO;
+
+import hidrometroSemOCR.Hidrometro;
+import hidrometroSemOCR.HidrometroDAO;
+import metricas.Histograma;
+import src.Configuracoes;
+
+/**
+ * Leitor de hidrômetros por foto — Singleton
+ *
+ * Extrai a leitura do mostrador de uma foto do hidrômetro com o
+ * Tesseract (dados em DiretorioTessdata, padrão tessdata) e atualiza
+ * a leitura do hidrômetro pelo {@link HidrometroDAO}. Antes do OCR a
+ * foto passa pelo {@link PreprocessadorOCR} escolhido em
+ * PreprocessamentoOCR (padrão OPENCV).
+ *
+ * O OCR é feito em duas passadas: a rápida, em baixa resolução, resolve
+ * a maioria das fotos. Só quando ela não reconhece nada, tem confiança
+ * abaixo de ConfiancaMinimaOCR (padrão 70) ou dá uma leitura menor que
+ * a atual do hidrômetro, a foto é preparada de novo em resolução cheia
+ * e reconhecida outra vez.
+ *
+ * Os handles do Tesseract ficam em um {@link PoolMotoresOCR} com
+ * ThreadsOCR handles (0 ou ausente: número de núcleos), criados no primeiro
+ * uso e liberados por {@link #encerrarSeIniciado()}.
+ */
+public class LeitorHidrometroOCR {
+
+    /** Instância única */
+    private static LeitorHidrometroOCR instance;
+
+    /** Handles do Tesseract */
+    private final PoolMotoresOCR pool;
+
+    /** Preparação das fotos para o Tesseract */
+    private final PreprocessadorOCR preprocessador;
+
+    /** Confiança mínima (0 a 100) para aceitar a passada rápida */
+    private final int confiancaMinima;
+
+    /** Tempo da passada rápida (pré-processamento + OCR), por origem do recorte */
+    private final Histograma[] tempos = new Histograma[PreprocessadorOCR.Recorte.values().length];
+
+    /** Tempo da passada completa (pré-processamento + OCR) */
+    private final Histograma tempoCompleto = new Histograma();
+
+    /** Fotos refeitas na passada completa, por motivo */
+    private final AtomicLongArray reprocessadas = new AtomicLongArray(Reprocessamento.values().length);
+
+    /**
+     * Motivo para refazer o OCR de uma foto na passada completa.
+     */
+    private enum Reprocessamento {
+        SEM_LEITURA("sem leitura"),
+        CONFIANCA_BAIXA("confiança baixa"),
+        LEITURA_MENOR("leitura menor que a atual");
+
+        private final String descricao;
+
+        Reprocessamento(String descricao) {
+            this.descricao = descricao;
+        }
+    }
+
+    private LeitorHidrometroOCR() {
+        String tessdata = Configuracoes.getString("DiretorioTessdata", "tessdata"); //$NON-NLS-1$ //$NON-NLS-2$
+        String idioma = Configuracoes.getString("IdiomaOCR", "eng"); //$NON-NLS-1$ //$NON-NLS-2$
+        int threads = (int) Configuracoes.getLong("ThreadsOCR", 0); //$NON-NLS-1$
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        pool = new PoolMotoresOCR(tessdata, idioma, threads);
+        preprocessador = PreprocessadorOCR.criar(Configuracoes.getString("PreprocessamentoOCR", //$NON-NLS-1$
+                PreprocessadorOCR.MODO_OPENCV));
+        confiancaMinima = (int) Configuracoes.getLong("ConfiancaMinimaOCR", 70); //$NON-NLS-1$
+        for (int i = 0; i < tempos.length; i++) {
+            tempos[i] = new Histograma();
+        }
+    }
+
+    /**
+     * Retorna a instância única.
+     */
+    public static synchronized LeitorHidrometroOCR getInstance() {
+        if (instance == null) {
+            instance = new LeitorHidrometroOCR();
+        }
+        return instance;
+    }
+
+    /**
+     * Libera os handles do Tesseract, se o leitor já foi usado.
+     */
+    public static synchronized void encerrarSeIniciado() {
+        if (instance != null) {
+            instance.pool.encerrar();
+            instance = null;
+        }
+    }
+
+    /**
+     * Reconhece a leitura de uma foto, sem alterar o hidrômetro.
+     *
+     * @param id identificador do hidrômetro, para reaproveitar a região
+     *           do mostrador já localizada (null se desconhecido)
+     * @param arquivo foto do hidrômetro (JPEG, PNG...)
+     * @return resultado do OCR
+     * @throws IOException se a imagem não puder ser lida
+     * @throws InterruptedException se interrompido esperando um handle livre
+     */
+    public LeituraOCR ler(String id, File arquivo) throws IOException, InterruptedException {
+        FotoHidrometro foto = new FotoHidrometro(arquivo, id);
+        foto.original = ImageIO.read(arquivo);
+        if (foto.original == null) {
+            throw new IOException("Formato de imagem não suportado: " + arquivo);
+        }
+        preparar(foto);
+        return reconhecer(foto);
+    }
+
+    /**
+     * Prepara a foto decodificada ({@code foto.original}) para a passada
+     * rápida.
+     */
+    void preparar(FotoHidrometro foto) {
+        preprocessador.preparar(foto);
+    }
+
+    /**
+     * Reconhece a foto preparada para a passada rápida. Se a leitura não
+     * for confiável, a região do mostrador guardada para o hidrômetro é
+     * descartada e a foto é preparada em resolução cheia (com o
+     * mostrador detectado de novo) e reconhecida outra vez; fica a
+     * leitura da passada completa, a menos que ela não reconheça nada.
+     *
+     * @param foto foto preparada por {@link #preparar(FotoHidrometro)}
+     * @return resultado do OCR
+     * @throws InterruptedException se interrompido esperando um handle livre
+     */
+    LeituraOCR reconhecer(FotoHidrometro foto) throws InterruptedException {
+        LeituraOCR leitura = pool.reconhecer(foto.imagem);
+        tempos[foto.recorte.ordinal()].registrar(foto.preprocessamentoNanos + leitura.getDuracaoNanos());
+
+        Reprocessamento motivo = motivoReprocessamento(foto.id, leitura);
+        if (motivo == null) {
+            return leitura;
+        }
+        reprocessadas.incrementAndGet(motivo.ordinal());
+        preprocessador.prepararCompleto(foto);
+        LeituraOCR completa = pool.reconhecer(foto.imagem);
+        tempoCompleto.registrar(foto.preprocessamentoNanos + completa.getDuracaoNanos());
+        return completa.isReconhecida() ? completa : leitura;
+    }
+
+    /**
+     * @return motivo para refazer o OCR, ou null se a passada rápida basta
+     */
+    private Reprocessamento motivoReprocessamento(String id, LeituraOCR leitura) {
+        if (!leitura.isReconhecida()) {
+            return Reprocessamento.SEM_LEITURA;
+        }
+        if (leitura.getConfianca() < confiancaMinima) {
+            return Reprocessamento.CONFIANCA_BAIXA;
+        }
+        Hidrometro hidrometro = id == null ? null : HidrometroDAO.getInstance().getHidrometro(id);
+        if (hidrometro != null && leitura.getLeitura() < leituraMinima(hidrometro)) {
+            return Reprocessamento.LEITURA_MENOR;
+        }
+        return null;
+    }
+
+    /**
+     * Monta o resumo das passadas de OCR: o tempo por foto da passada
+     * rápida, separado pela origem do recorte (região do cache, região
+     * detectada na foto ou foto inteira), e quantas fotos precisaram da
+     * passada completa e por quê.
+     *
+     * @return resumo em poucas linhas
+     */
+    public String getResumo() {
+        String n = System.lineSeparator();
+        StringBuilder sb = new StringBuilder("Passada rápida (pré-processamento + OCR, ms):");
+        long fotos = 0;
+        for (PreprocessadorOCR.Recorte recorte : PreprocessadorOCR.Recorte.values()) {
+            Histograma h = tempos[recorte.ordinal()];
+            if (h.getTotal() == 0) {
+                continue;
+            }
+            fotos += h.getTotal();
+            sb.append(n).append(linhaTempo(recorte.toString(), h));
+        }
+
+        long completas = tempoCompleto.getTotal();
+        sb.append(n).append(String.format("Passada completa: %d de %d fotos (%.1f%%)",
+                completas, fotos, 100.0 * completas / Math.max(fotos, 1)));
+        for (Reprocessamento motivo : Reprocessamento.values()) {
+            sb.append(" | ").append(motivo.descricao).append(' ').append(reprocessadas.get(motivo.ordinal()));
+        }
+        if (completas > 0) {
+            sb.append(n).append(linhaTempo("completa", tempoCompleto));
+        }
+        return sb.toString();
+    }
+
+    private static String linhaTempo(String nome, Histograma h) {
+        return String.format("  %-15s n %-6d média %8.3f | p50 %8.3f | p99 %8.3f",
+                nome, h.getTotal(), h.getMedia() / 1e6, h.percentil(50) / 1e6, h.percentil(99) / 1e6);
+    }
+
+    /**
+     * Reconhece a leitura de uma foto e a grava no hidrômetro.
+     *
+     * @param id identificador do hidrômetro
+     * @param arquivo foto do hidrômetro
+     * @return resultado do OCR
+     * @throws IllegalArgumentException se o hidrômetro não existir ou a
+     *         foto não tiver uma leitura válida (ver {@link #validar})
+     * @throws IOException se a imagem não puder ser lida
+     * @throws InterruptedException se interrompido esperando um handle livre
+     */
+    public LeituraOCR registrarLeitura(String id, File arquivo) throws IOException, InterruptedException {
+        HidrometroDAO dao = HidrometroDAO.getInstance();
+        if (!dao.existeHidrometro(id)) {
+            throw new IllegalArgumentException("Hidrômetro não encontrado: " + id);
+        }
+
+        LeituraOCR leitura = ler(id, arquivo);
+        String motivo = validar(id, leitura);
+        if (motivo != null) {
+            throw new IllegalArgumentException(motivo);
+        }
+
+        dao.atualizarLeitura(id, leitura.getLeitura());
+        return leitura;
+    }
+
+    /**
+     * Verifica se a leitura reconhecida pode ser gravada no hidrômetro:
+     * ele precisa existir e a leitura precisa estar entre a parte inteira
+     * da leitura atual (o mostrador só tem os m³ inteiros) e o limite
+     * máximo.
+     *
+     * @param id identificador do hidrômetro
+     * @param leitura resultado do OCR
+     * @return motivo da rejeição, ou null se a leitura for válida
+     */
+    static String validar(String id, LeituraOCR leitura) {
+        Hidrometro hidrometro = HidrometroDAO.getInstance().getHidrometro(id);
+        if (hidrometro == null) {
+            return "Hidrômetro não encontrado: " + id;
+        }
+        if (!leitura.isReconhecida()) {
+            return "Nenhuma leitura reconhecida.";
+        }
+        if (leitura.getLeitura() > Hidrometro.LIMITE_MAX) {
+            return "Leitura acima do limite do hidrômetro: " + leitura;
+        }
+        double atual = leituraMinima(hidrometro);
+        if (leitura.getLeitura() < atual) {
+            return "Leitura menor que a atual (" + String.format("%.0f", atual) + "): " + leitura;
+        }
+        return null;
+    }
+
+    /**
+     * Menor leitura aceitável para o hidrômetro: a parte inteira da
+     * leitura atual, já que o mostrador só tem os m³ inteiros.
+     */
+    private static double leituraMinima(Hidrometro hidrometro) {
+        return Math.floor(hidrometro.getLeituraAtual());
+    }
+
+    /**
+     * @return pool de handles do Tesseract
+     */
+    public PoolMotoresOCR getPool() {
+        return pool;
+    }
+}
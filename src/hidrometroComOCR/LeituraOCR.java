@@ -0,0 +1,105 @@
+package hidrometroComOCR;
+
+/**
+ * Resultado do OCR de uma foto de hidrômetro: o texto reconhecido,
+ * a leitura extraída do mostrador e a confiança do Tesseract nela.
+ */
+public class LeituraOCR {
+
+    /** Texto bruto devolvido pelo Tesseract */
+    private final String texto;
+
+    /** Dígitos do mostrador (vazio se nenhum foi reconhecido) */
+    private final String digitos;
+
+    /** Menor confiança entre os caracteres da leitura (0 a 100) */
+    private final int confianca;
+
+    /** Duração do reconhecimento (ns) */
+    private final long duracaoNanos;
+
+    private LeituraOCR(String texto, String digitos, int confianca, long duracaoNanos) {
+        this.texto = texto;
+        this.digitos = digitos;
+        this.confianca = confianca;
+        this.duracaoNanos = duracaoNanos;
+    }
+
+    /**
+     * Extrai a leitura do texto reconhecido.
+     *
+     * Além do mostrador, a foto tem os números dos ponteiros (0 a 9),
+     * bem espaçados e reconhecidos como dígitos soltos; as rodas do
+     * mostrador ficam juntas e formam uma única palavra. A leitura é a
+     * maior sequência de dígitos do texto.
+     *
+     * @param texto texto do Tesseract
+     * @param confianca confiança da leitura (0 a 100)
+     * @param duracaoNanos duração do reconhecimento
+     * @return resultado do OCR
+     */
+    static LeituraOCR interpretar(String texto, int confianca, long duracaoNanos) {
+        return new LeituraOCR(texto, maiorSequencia(texto), confianca, duracaoNanos);
+    }
+
+    /**
+     * @param texto texto do Tesseract
+     * @return a primeira das maiores sequências de dígitos (vazia se não houver)
+     */
+    static String maiorSequencia(CharSequence texto) {
+        String maior = "";
+        for (String sequencia : texto.toString().split("[^0-9]+")) {
+            if (sequencia.length() > maior.length()) {
+                maior = sequencia;
+            }
+        }
+        return maior;
+    }
+
+    /**
+     * Indica se algum número foi reconhecido no mostrador.
+     */
+    public boolean isReconhecida() {
+        return !digitos.isEmpty();
+    }
+
+    /**
+     * Retorna a leitura do mostrador.
+     *
+     * @return leitura em m³
+     * @throws IllegalStateException se nenhum número foi reconhecido
+     */
+    public double getLeitura() {
+        if (digitos.isEmpty()) {
+            throw new IllegalStateException("Nenhuma leitura reconhecida na imagem.");
+        }
+        return Double.parseDouble(digitos);
+    }
+
+    /**
+     * @return texto bruto devolvido pelo Tesseract
+     */
+    public String getTexto() {
+        return texto;
+    }
+
+    /**
+     * @return menor confiança do Tesseract entre os caracteres da
+     *         palavra com a leitura (0 a 100)
+     */
+    public int getConfianca() {
+        return confianca;
+    }
+
+    /**
+     * @return duração do reconhecimento (ns)
+     */
+    public long getDuracaoNanos() {
+        return duracaoNanos;
+    }
+
+    @Override
+    public String toString() {
+        return (isReconhecida() ? digitos : "?") + " (confiança " + confianca + "%)"; //$NON-NLS-1$
+    }
+}
@@ -0,0 +1,152 @@
+package hidrometroComOCR;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.jna.Pointer;
+
+import net.sourceforge.tess4j.ITessAPI.TessBaseAPI;
+import net.sourceforge.tess4j.ITessAPI.TessPageIterator;
+import net.sourceforge.tess4j.ITessAPI.TessPageIteratorLevel;
+import net.sourceforge.tess4j.ITessAPI.TessPageSegMode;
+import net.sourceforge.tess4j.ITessAPI.TessResultIterator;
+import net.sourceforge.tess4j.TessAPI;
+
+/**
+ * Um handle do Tesseract, inicializado uma única vez.
+ *
+ * A classe {@code Tesseract} do Tess4J cria e destrói o handle nativo
+ * (e recarrega o eng.traineddata) a cada imagem. Aqui o handle é criado
+ * no construtor, com a configuração {@code digits} de tessdata/configs,
+ * e reaproveitado em todas as imagens até {@link #encerrar()}.
+ *
+ * Não é thread-safe: cada handle deve ser usado por uma thread de cada
+ * vez, o que o {@link PoolMotoresOCR} garante.
+ */
+class MotorOCR {
+
+    /** Resolução informada ao Tesseract (as fotos não trazem DPI) */
+    private static final int DPI = 300;
+
+    private final TessAPI api = TessAPI.INSTANCE;
+    private final TessBaseAPI handle;
+
+    /** Buffer nativo da imagem, reaproveitado enquanto couber */
+    private ByteBuffer pixels;
+
+    /**
+     * Cria e inicializa o handle.
+     *
+     * @param tessdata diretório com eng.traineddata e configs/
+     * @param idioma idioma do Tesseract (ex.: eng)
+     * @throws IllegalStateException se o Tesseract não puder ser inicializado
+     */
+    MotorOCR(String tessdata, String idioma) {
+        handle = api.TessBaseAPICreate();
+        if (api.TessBaseAPIInit3(handle, tessdata, idioma) != 0) {
+            api.TessBaseAPIDelete(handle);
+            throw new IllegalStateException("Falha ao inicializar o Tesseract com " + tessdata + "/" + idioma);
+        }
+        api.TessBaseAPIReadConfigFile(handle, "digits");
+        api.TessBaseAPISetPageSegMode(handle, TessPageSegMode.PSM_SPARSE_TEXT);
+    }
+
+    /**
+     * Reconhece o texto de uma imagem em tons de cinza.
+     *
+     * @param imagem imagem do tipo TYPE_BYTE_GRAY (outros tipos são convertidos)
+     * @return texto reconhecido e confiança da leitura
+     */
+    LeituraOCR reconhecer(BufferedImage imagem) {
+        long inicio = System.nanoTime();
+        int largura = imagem.getWidth();
+        int altura = imagem.getHeight();
+        copiarPixels(imagem, largura, altura);
+
+        api.TessBaseAPISetImage(handle, pixels, largura, altura, 1, largura);
+        api.TessBaseAPISetSourceResolution(handle, DPI);
+
+        Pointer texto = api.TessBaseAPIGetUTF8Text(handle);
+        String reconhecido = texto == null ? "" : texto.getString(0, StandardCharsets.UTF_8.name());
+        if (texto != null) {
+            api.TessDeleteText(texto);
+        }
+        int confianca = confiancaDaLeitura();
+        if (confianca < 0) {
+            confianca = api.TessBaseAPIMeanTextConf(handle);
+        }
+        api.TessBaseAPIClear(handle);
+
+        return LeituraOCR.interpretar(reconhecido, confianca, System.nanoTime() - inicio);
+    }
+
+    /**
+     * Copia os pixels para o buffer nativo, reaproveitado entre as
+     * leituras ({@link PreprocessadorSimples#copiarPixels}).
+     */
+    private void copiarPixels(BufferedImage imagem, int largura, int altura) {
+        int tamanho = largura * altura;
+        if (pixels == null || pixels.capacity() < tamanho) {
+            pixels = ByteBuffer.allocateDirect(tamanho);
+        }
+        pixels.clear();
+        PreprocessadorSimples.copiarPixels(imagem, pixels);
+        pixels.flip();
+    }
+
+    /**
+     * Percorre os caracteres reconhecidos e devolve a menor confiança
+     * entre os da palavra com a maior sequência de dígitos. A média da
+     * página esconde um único dígito duvidoso, que basta para a leitura
+     * estar errada.
+     *
+     * @return confiança (0 a 100), ou -1 se nenhuma palavra tiver dígitos
+     */
+    private int confiancaDaLeitura() {
+        TessResultIterator iterador = api.TessBaseAPIGetIterator(handle);
+        if (iterador == null) {
+            return -1;
+        }
+        TessPageIterator pagina = api.TessResultIteratorGetPageIterator(iterador);
+        StringBuilder palavra = new StringBuilder();
+        float minimaPalavra = 100;
+        int maior = 0;
+        float confianca = -1;
+        try {
+            do {
+                if (palavra.length() > 0
+                        && api.TessPageIteratorIsAtBeginningOf(pagina, TessPageIteratorLevel.RIL_WORD) != 0) {
+                    int digitos = LeituraOCR.maiorSequencia(palavra).length();
+                    if (digitos > maior) {
+                        maior = digitos;
+                        confianca = minimaPalavra;
+                    }
+                    palavra.setLength(0);
+                    minimaPalavra = 100;
+                }
+                Pointer simbolo = api.TessResultIteratorGetUTF8Text(iterador, TessPageIteratorLevel.RIL_SYMBOL);
+                if (simbolo != null) {
+                    palavra.append(simbolo.getString(0, StandardCharsets.UTF_8.name()));
+                    api.TessDeleteText(simbolo);
+                    minimaPalavra = Math.min(minimaPalavra,
+                            api.TessResultIteratorConfidence(iterador, TessPageIteratorLevel.RIL_SYMBOL));
+                }
+            } while (api.TessResultIteratorNext(iterador, TessPageIteratorLevel.RIL_SYMBOL) != 0);
+        } finally {
+            api.TessResultIteratorDelete(iterador);
+        }
+        if (LeituraOCR.maiorSequencia(palavra).length() > maior) {
+            confianca = minimaPalavra;
+        }
+        return Math.round(confianca);
+    }
+
+    /**
+     * Libera o handle nativo. O motor não pode mais ser usado.
+     */
+    void encerrar() {
+        api.TessBaseAPIEnd(handle);
+        api.TessBaseAPIDelete(handle);
+    }
+}
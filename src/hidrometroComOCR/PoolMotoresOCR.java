@@ -0,0 +1,145 @@
+package hidrometroComOCR;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool de handles do Tesseract ({@link MotorOCR}).
+ *
+ * Inicializar o Tesseract custa bem mais do que reconhecer uma foto,
+ * então os handles são criados sob demanda, até o tamanho do pool, e
+ * reaproveitados. Cada reconhecimento empresta um handle livre e o
+ * devolve ao terminar: com um pool do tamanho do número de threads que
+ * fazem OCR, cada thread usa sempre um handle só seu e o desempenho
+ * cresce com os núcleos.
+ *
+ * Depois de {@link #encerrar()}, novos empréstimos e os que estavam
+ * esperando um handle falham com IllegalStateException.
+ */
+public class PoolMotoresOCR {
+
+    /** Intervalo (ms) entre as verificações de quem espera um handle */
+    private static final long ESPERA_MS = 100;
+
+    private final String tessdata;
+    private final String idioma;
+    private final int tamanho;
+
+    /** Handles livres */
+    private final BlockingQueue<MotorOCR> livres;
+
+    /** Handles criados ou em inicialização */
+    private int criados;
+
+    private boolean encerrado;
+
+    /**
+     * @param tessdata diretório com eng.traineddata e configs/
+     * @param idioma idioma do Tesseract
+     * @param tamanho quantidade máxima de handles
+     */
+    public PoolMotoresOCR(String tessdata, String idioma, int tamanho) {
+        if (tamanho < 1) {
+            throw new IllegalArgumentException("O pool de OCR precisa de pelo menos um handle.");
+        }
+        this.tessdata = tessdata;
+        this.idioma = idioma;
+        this.tamanho = tamanho;
+        this.livres = new ArrayBlockingQueue<>(tamanho);
+    }
+
+    /**
+     * Reconhece uma imagem com um handle do pool, esperando um handle
+     * livre se todos estiverem em uso.
+     *
+     * @param imagem imagem em tons de cinza (TYPE_BYTE_GRAY)
+     * @return resultado do OCR
+     * @throws InterruptedException se interrompido esperando um handle
+     */
+    public LeituraOCR reconhecer(BufferedImage imagem) throws InterruptedException {
+        MotorOCR motor = emprestar();
+        try {
+            return motor.reconhecer(imagem);
+        } finally {
+            devolver(motor);
+        }
+    }
+
+    /**
+     * Empresta um handle livre ou cria um novo, se o pool ainda não
+     * estiver cheio. A espera é feita em intervalos curtos para perceber
+     * o encerramento do pool (os handles devolvidos depois dele são
+     * liberados, não voltam à fila) e a falha na criação de um handle,
+     * que abre vaga para outro.
+     */
+    private MotorOCR emprestar() throws InterruptedException {
+        MotorOCR motor = livres.poll();
+
+        while (motor == null) {
+            boolean criar;
+            synchronized (this) {
+                if (encerrado) {
+                    throw new IllegalStateException("Pool de OCR encerrado.");
+                }
+                criar = criados < tamanho;
+                if (criar) {
+                    criados++;
+                }
+            }
+            if (criar) {
+                return criar();
+            }
+            motor = livres.poll(ESPERA_MS, TimeUnit.MILLISECONDS);
+        }
+        return motor;
+    }
+
+    private MotorOCR criar() {
+        // A inicialização é lenta: fica fora do lock para que vários
+        // handles possam ser inicializados ao mesmo tempo
+        try {
+            return new MotorOCR(tessdata, idioma);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                criados--;
+            }
+            throw e;
+        }
+    }
+
+    private synchronized void devolver(MotorOCR motor) {
+        if (encerrado) {
+            motor.encerrar();
+        } else {
+            livres.offer(motor);
+        }
+    }
+
+    /**
+     * @return quantidade de handles já inicializados
+     */
+    public synchronized int getHandlesCriados() {
+        return criados;
+    }
+
+    /**
+     * @return quantidade máxima de handles
+     */
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Libera os handles livres; os que estiverem em uso são liberados
+     * quando devolvidos.
+     */
+    public synchronized void encerrar() {
+        encerrado = true;
+        MotorOCR motor;
+        while ((motor = livres.poll()) != null) {
+            motor.encerrar();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package hidrometroComOCR;
+
+/**
+ * Interface que define como a foto é preparada para o Tesseract.
+ *
+ * Implementa o padrão Strategy. A escolha é feita pela chave
+ * PreprocessamentoOCR do arquivo configuracoesSistema.properties:
+ *
+ * - OPENCV  → localiza o mostrador, recorta, binariza e reduz (padrão)
+ * - SIMPLES → apenas converte a foto inteira para tons de cinza
+ *
+ * Cada foto passa primeiro pela preparação rápida, em baixa resolução.
+ * A preparação completa, em resolução cheia e com mais filtros, só é
+ * usada nas fotos cuja leitura rápida não foi confiável.
+ */
+interface PreprocessadorOCR {
+
+    /** Mostrador localizado com OpenCV */
+    String MODO_OPENCV = "OPENCV";
+
+    /** Foto inteira em tons de cinza */
+    String MODO_SIMPLES = "SIMPLES";
+
+    /**
+     * Origem da região entregue ao Tesseract.
+     */
+    enum Recorte {
+        /** Região do mostrador guardada para o hidrômetro */
+        CACHE,
+        /** Região do mostrador detectada nesta foto */
+        DETECTADO,
+        /** Foto inteira (mostrador não localizado ou modo SIMPLES) */
+        IMAGEM_INTEIRA
+    }
+
+    /**
+     * Preparação rápida, em baixa resolução: preenche {@code foto.imagem}
+     * (TYPE_BYTE_GRAY), {@code foto.recorte} e {@code foto.preprocessamentoNanos}
+     * a partir de {@code foto.original}.
+     *
+     * @param foto foto decodificada
+     */
+    void preparar(FotoHidrometro foto);
+
+    /**
+     * Preparação completa, em resolução cheia e com mais filtros, para
+     * refazer o OCR de uma foto. Preenche os mesmos campos de
+     * {@link #preparar(FotoHidrometro)}.
+     *
+     * @param foto foto decodificada
+     */
+    void prepararCompleto(FotoHidrometro foto);
+
+    /**
+     * Descarta a região do mostrador guardada para o hidrômetro
+     * (ex.: a câmera ou o enquadramento mudou).
+     *
+     * @param id identificador do hidrômetro
+     */
+    default void invalidar(String id) {
+    }
+
+    /**
+     * Cria o pré-processador correspondente ao modo informado.
+     * Modos desconhecidos usam o OpenCV.
+     *
+     * @param modo valor da chave PreprocessamentoOCR
+     * @return pré-processador do modo escolhido
+     */
+    static PreprocessadorOCR criar(String modo) {
+        if (MODO_SIMPLES.equalsIgnoreCase(modo)) {
+            return new PreprocessadorSimples();
+        }
+        return new PreprocessadorOpenCV();
+    }
+}
@@ -0,0 +1,288 @@
+package hidrometroComOCR;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bytedeco.javacpp.PointerScope;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.MatVector;
+import org.bytedeco.opencv.opencv_core.Rect;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.bytedeco.opencv.opencv_core.Size;
+
+import src.Configuracoes;
+
+/**
+ * Pré-processamento com OpenCV (javacv): localiza o mostrador, recorta,
+ * binariza e reduz a imagem antes do OCR.
+ *
+ * A detecção procura, numa cópia reduzida da foto, a região larga e
+ * baixa com mais bordas (as rodas do mostrador): gradiente morfológico,
+ * limiar de Otsu, fechamento horizontal para juntar os dígitos e o
+ * retângulo envolvente de cada contorno.
+ *
+ * Na preparação rápida o recorte é reduzido para AlturaRecorteOCR pixels
+ * de altura (padrão 64) e binarizado com Otsu. Na completa o mostrador é
+ * detectado de novo e o recorte fica em resolução cheia (ampliado se
+ * tiver menos que o dobro dessa altura), suavizado, binarizado com
+ * limiar adaptativo (reflexos e sombras no vidro) e filtrado pela
+ * mediana. Nos dois casos o texto fica escuro em fundo claro e recebe
+ * uma margem branca.
+ *
+ * A região detectada fica guardada por hidrômetro: as fotos seguintes
+ * do mesmo hidrômetro, com o mesmo tamanho, pulam a detecção.
+ */
+class PreprocessadorOpenCV implements PreprocessadorOCR {
+
+    /** Largura da cópia usada na detecção */
+    private static final int LARGURA_DETECCAO = 800;
+
+    /** Proporção largura/altura aceita para o mostrador */
+    private static final double PROPORCAO_MINIMA = 2.5;
+    private static final double PROPORCAO_MAXIMA = 12;
+
+    /** Margem acrescentada à região detectada (fração da largura e da altura) */
+    private static final double MARGEM_HORIZONTAL = 0.08;
+    private static final double MARGEM_VERTICAL = 0.15;
+
+    /** Borda branca ao redor do recorte (o Tesseract erra dígitos colados à borda) */
+    private static final int BORDA = 10;
+
+    /** Altura do recorte entregue ao Tesseract */
+    private final int alturaRecorte;
+
+    /** Região do mostrador por hidrômetro */
+    private final ConcurrentHashMap<String, Regiao> regioes = new ConcurrentHashMap<>();
+
+    PreprocessadorOpenCV() {
+        alturaRecorte = Math.max(16, (int) Configuracoes.getLong("AlturaRecorteOCR", 64)); //$NON-NLS-1$
+    }
+
+    @Override
+    public void preparar(FotoHidrometro foto) {
+        long inicio = System.nanoTime();
+        try (PointerScope escopo = new PointerScope()) {
+            Mat imagem = paraMat(foto.original);
+            Regiao regiao = foto.id == null ? null : regioes.get(foto.id);
+            if (regiao != null && regiao.serve(imagem.cols(), imagem.rows())) {
+                foto.recorte = Recorte.CACHE;
+            } else {
+                regiao = localizar(foto, imagem);
+            }
+            foto.imagem = recortar(imagem, regiao.area);
+        }
+        foto.preprocessamentoNanos = System.nanoTime() - inicio;
+    }
+
+    @Override
+    public void prepararCompleto(FotoHidrometro foto) {
+        long inicio = System.nanoTime();
+        try (PointerScope escopo = new PointerScope()) {
+            Mat imagem = paraMat(foto.original);
+            // A região guardada pode ser a causa da leitura ruim: é
+            // descartada mesmo que a nova detecção não encontre nada
+            invalidar(foto.id);
+            Regiao regiao = localizar(foto, imagem);
+            foto.imagem = recortarCompleto(imagem, regiao.area);
+        }
+        foto.preprocessamentoNanos = System.nanoTime() - inicio;
+    }
+
+    @Override
+    public void invalidar(String id) {
+        if (id != null) {
+            regioes.remove(id);
+        }
+    }
+
+    /**
+     * Copia a foto, em tons de cinza, para um Mat contínuo
+     * ({@link PreprocessadorSimples#copiarPixels}).
+     */
+    private static Mat paraMat(BufferedImage original) {
+        int largura = original.getWidth();
+        int altura = original.getHeight();
+        Mat imagem = new Mat(altura, largura, opencv_core.CV_8UC1);
+        PreprocessadorSimples.copiarPixels(original, imagem.data().capacity((long) largura * altura).asByteBuffer());
+        return imagem;
+    }
+
+    /**
+     * Detecta o mostrador, guarda a região para o hidrômetro e preenche
+     * {@code foto.recorte}.
+     *
+     * @return região do mostrador, ou a imagem inteira se não localizado
+     */
+    private Regiao localizar(FotoHidrometro foto, Mat imagem) {
+        Regiao regiao = detectar(imagem);
+        if (regiao == null) {
+            foto.recorte = Recorte.IMAGEM_INTEIRA;
+            return new Regiao(new Rectangle(0, 0, imagem.cols(), imagem.rows()), imagem.cols(), imagem.rows());
+        }
+        foto.recorte = Recorte.DETECTADO;
+        if (foto.id != null) {
+            regioes.put(foto.id, regiao);
+        }
+        return regiao;
+    }
+
+    /**
+     * Procura o mostrador na imagem.
+     *
+     * @param imagem imagem em tons de cinza
+     * @return região do mostrador, ou null se nenhuma candidata
+     */
+    private static Regiao detectar(Mat imagem) {
+        double escala = (double) LARGURA_DETECCAO / imagem.cols();
+        int alturaReduzida = Math.max(1, (int) Math.round(imagem.rows() * escala));
+
+        Mat reduzida = new Mat();
+        opencv_imgproc.resize(imagem, reduzida, new Size(LARGURA_DETECCAO, alturaReduzida), 0, 0,
+                escala < 1 ? opencv_imgproc.INTER_AREA : opencv_imgproc.INTER_LINEAR);
+
+        Mat bordas = new Mat();
+        opencv_imgproc.morphologyEx(reduzida, bordas, opencv_imgproc.MORPH_GRADIENT,
+                opencv_imgproc.getStructuringElement(opencv_imgproc.MORPH_RECT, new Size(3, 3)));
+        opencv_imgproc.threshold(bordas, bordas, 0, 255, opencv_imgproc.THRESH_BINARY | opencv_imgproc.THRESH_OTSU);
+
+        Mat linhas = new Mat();
+        opencv_imgproc.morphologyEx(bordas, linhas, opencv_imgproc.MORPH_CLOSE,
+                opencv_imgproc.getStructuringElement(opencv_imgproc.MORPH_RECT, new Size(9, 3)));
+
+        MatVector contornos = new MatVector();
+        opencv_imgproc.findContours(linhas, contornos, opencv_imgproc.RETR_LIST, opencv_imgproc.CHAIN_APPROX_SIMPLE);
+
+        // A maior região com proporção de mostrador, ponderada pela
+        // densidade de bordas (as rodas têm mais bordas que molduras e rótulos)
+        Rect melhor = null;
+        double melhorPontuacao = 0;
+        for (long i = 0; i < contornos.size(); i++) {
+            Rect r = opencv_imgproc.boundingRect(contornos.get(i));
+            double proporcao = (double) r.width() / r.height();
+            if (proporcao < PROPORCAO_MINIMA || proporcao > PROPORCAO_MAXIMA
+                    || r.height() < alturaReduzida * 0.04 || r.height() > alturaReduzida * 0.35
+                    || r.width() < LARGURA_DETECCAO * 0.15) {
+                continue;
+            }
+            double areaCandidata = (double) r.width() * r.height();
+            double densidade = opencv_core.countNonZero(new Mat(bordas, r)) / areaCandidata;
+            double pontuacao = areaCandidata * densidade * densidade;
+            if (pontuacao > melhorPontuacao) {
+                melhorPontuacao = pontuacao;
+                melhor = r;
+            }
+        }
+        if (melhor == null) {
+            return null;
+        }
+
+        // Volta para a escala original, com margem
+        double mx = melhor.width() * MARGEM_HORIZONTAL;
+        double my = melhor.height() * MARGEM_VERTICAL;
+        int x0 = Math.max(0, (int) ((melhor.x() - mx) / escala));
+        int y0 = Math.max(0, (int) ((melhor.y() - my) / escala));
+        int x1 = Math.min(imagem.cols(), (int) Math.ceil((melhor.x() + melhor.width() + mx) / escala));
+        int y1 = Math.min(imagem.rows(), (int) Math.ceil((melhor.y() + melhor.height() + my) / escala));
+        return new Regiao(new Rectangle(x0, y0, x1 - x0, y1 - y0), imagem.cols(), imagem.rows());
+    }
+
+    /**
+     * Recorte da preparação rápida: recorta, reduz, binariza e acrescenta
+     * a margem branca.
+     *
+     * @return imagem TYPE_BYTE_GRAY para o Tesseract
+     */
+    private BufferedImage recortar(Mat imagem, Rectangle area) {
+        Mat recorte = new Mat(imagem, new Rect(area.x, area.y, area.width, area.height));
+
+        Mat reduzido = recorte;
+        if (area.height > alturaRecorte) {
+            double escala = (double) alturaRecorte / area.height;
+            reduzido = new Mat();
+            opencv_imgproc.resize(recorte, reduzido,
+                    new Size(Math.max(1, (int) Math.round(area.width * escala)), alturaRecorte),
+                    0, 0, opencv_imgproc.INTER_AREA);
+        }
+
+        Mat binaria = new Mat();
+        opencv_imgproc.threshold(reduzido, binaria, 0, 255, opencv_imgproc.THRESH_BINARY | opencv_imgproc.THRESH_OTSU);
+        return finalizar(binaria);
+    }
+
+    /**
+     * Recorte da preparação completa: recorta em resolução cheia
+     * (ampliando recortes baixos), suaviza, binariza com limiar
+     * adaptativo, remove pontos isolados e acrescenta a margem branca.
+     *
+     * @return imagem TYPE_BYTE_GRAY para o Tesseract
+     */
+    private BufferedImage recortarCompleto(Mat imagem, Rectangle area) {
+        Mat recorte = new Mat(imagem, new Rect(area.x, area.y, area.width, area.height));
+
+        Mat ampliado = recorte;
+        int alturaMinima = 2 * alturaRecorte;
+        if (area.height < alturaMinima) {
+            double escala = (double) alturaMinima / area.height;
+            ampliado = new Mat();
+            opencv_imgproc.resize(recorte, ampliado,
+                    new Size(Math.max(1, (int) Math.round(area.width * escala)), alturaMinima),
+                    0, 0, opencv_imgproc.INTER_CUBIC);
+        }
+
+        Mat suavizado = new Mat();
+        opencv_imgproc.GaussianBlur(ampliado, suavizado, new Size(3, 3), 0);
+
+        // Vizinhança da ordem de meia altura de dígito, sempre ímpar
+        int bloco = Math.max(3, ampliado.rows() / 8) | 1;
+        Mat binaria = new Mat();
+        opencv_imgproc.adaptiveThreshold(suavizado, binaria, 255, opencv_imgproc.ADAPTIVE_THRESH_GAUSSIAN_C,
+                opencv_imgproc.THRESH_BINARY, bloco, 10);
+        opencv_imgproc.medianBlur(binaria, binaria, 3);
+        return finalizar(binaria);
+    }
+
+    /**
+     * Deixa o texto escuro em fundo claro, acrescenta a margem branca e
+     * copia para uma imagem Java.
+     *
+     * @param binaria imagem binarizada
+     * @return imagem TYPE_BYTE_GRAY para o Tesseract
+     */
+    private static BufferedImage finalizar(Mat binaria) {
+        if (opencv_core.mean(binaria).get(0) < 127) {
+            opencv_core.bitwise_not(binaria, binaria);
+        }
+
+        Mat saida = new Mat();
+        opencv_core.copyMakeBorder(binaria, saida, BORDA, BORDA, BORDA, BORDA,
+                opencv_core.BORDER_CONSTANT, new Scalar(255));
+
+        BufferedImage resultado = new BufferedImage(saida.cols(), saida.rows(), BufferedImage.TYPE_BYTE_GRAY);
+        saida.data().get(((DataBufferByte) resultado.getRaster().getDataBuffer()).getData());
+        return resultado;
+    }
+
+    /**
+     * Região do mostrador e o tamanho da foto em que foi detectada.
+     */
+    private static final class Regiao {
+        final Rectangle area;
+        final int larguraImagem;
+        final int alturaImagem;
+
+        Regiao(Rectangle area, int larguraImagem, int alturaImagem) {
+            this.area = area;
+            this.larguraImagem = larguraImagem;
+            this.alturaImagem = alturaImagem;
+        }
+
+        /** A região só vale para fotos do mesmo tamanho */
+        boolean serve(int largura, int altura) {
+            return larguraImagem == largura && alturaImagem == altura;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package hidrometroComOCR;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.nio.ByteBuffer;
+
+/**
+ * Pré-processamento mínimo: a foto inteira em tons de cinza, reduzida
+ * para no máximo {@value #LARGURA_RAPIDA} pixels de largura na
+ * preparação rápida e em resolução cheia na completa.
+ * Não depende do OpenCV.
+ */
+class PreprocessadorSimples implements PreprocessadorOCR {
+
+    /** Largura máxima da foto na preparação rápida */
+    static final int LARGURA_RAPIDA = 1000;
+
+    @Override
+    public void preparar(FotoHidrometro foto) {
+        long inicio = System.nanoTime();
+        foto.imagem = paraTonsDeCinza(foto.original, LARGURA_RAPIDA);
+        foto.recorte = Recorte.IMAGEM_INTEIRA;
+        foto.preprocessamentoNanos = System.nanoTime() - inicio;
+    }
+
+    @Override
+    public void prepararCompleto(FotoHidrometro foto) {
+        long inicio = System.nanoTime();
+        foto.imagem = paraTonsDeCinza(foto.original);
+        foto.recorte = Recorte.IMAGEM_INTEIRA;
+        foto.preprocessamentoNanos = System.nanoTime() - inicio;
+    }
+
+    /**
+     * Converte a imagem para tons de cinza (um byte por pixel).
+     *
+     * @param imagem imagem original
+     * @return nova imagem TYPE_BYTE_GRAY
+     */
+    static BufferedImage paraTonsDeCinza(BufferedImage imagem) {
+        if (imagem.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            return imagem;
+        }
+        BufferedImage cinza = new BufferedImage(imagem.getWidth(), imagem.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = cinza.createGraphics();
+        try {
+            g.drawImage(imagem, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return cinza;
+    }
+
+    /**
+     * Copia os pixels da imagem em tons de cinza para {@code destino},
+     * a partir da posição atual, uma linha por vez.
+     *
+     * O raster pode ter linhas maiores que a largura ou começar no meio
+     * do vetor (ex.: imagens de {@link BufferedImage#getSubimage}), então
+     * o passo e o deslocamento vêm do SampleModel. Imagens de outros
+     * tipos são antes convertidas para TYPE_BYTE_GRAY.
+     *
+     * @param imagem imagem original
+     * @param destino buffer com espaço para largura × altura bytes
+     */
+    static void copiarPixels(BufferedImage imagem, ByteBuffer destino) {
+        // TYPE_BYTE_GRAY tem sempre uma banda de 8 bits (ComponentSampleModel)
+        imagem = paraTonsDeCinza(imagem);
+        int largura = imagem.getWidth();
+        int altura = imagem.getHeight();
+
+        Raster raster = imagem.getRaster();
+        ComponentSampleModel modelo = (ComponentSampleModel) raster.getSampleModel();
+        DataBufferByte buffer = (DataBufferByte) raster.getDataBuffer();
+        byte[] dados = buffer.getData();
+        int passo = modelo.getScanlineStride();
+        int inicio = buffer.getOffset() + modelo.getOffset(
+                raster.getMinX() - raster.getSampleModelTranslateX(),
+                raster.getMinY() - raster.getSampleModelTranslateY());
+
+        if (passo == largura) {
+            destino.put(dados, inicio, largura * altura);
+        } else {
+            for (int y = 0; y < altura; y++) {
+                destino.put(dados, inicio + y * passo, largura);
+            }
+        }
+    }
+
+    /**
+     * Converte para tons de cinza, reduzindo a imagem (mantida a
+     * proporção) se for mais larga que {@code larguraMaxima}.
+     *
+     * @param imagem imagem original
+     * @param larguraMaxima largura máxima da imagem convertida
+     * @return imagem TYPE_BYTE_GRAY
+     */
+    static BufferedImage paraTonsDeCinza(BufferedImage imagem, int larguraMaxima) {
+        if (imagem.getWidth() <= larguraMaxima) {
+            return paraTonsDeCinza(imagem);
+        }
+        int altura = Math.max(1, (int) Math.round((double) imagem.getHeight() * larguraMaxima / imagem.getWidth()));
+        BufferedImage cinza = new BufferedImage(larguraMaxima, altura, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = cinza.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(imagem, 0, 0, larguraMaxima, altura, null);
+        } finally {
+            g.dispose();
+        }
+        return cinza;
+    }
+}
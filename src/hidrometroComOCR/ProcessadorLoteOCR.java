@@ -0,0 +1,226 @@
+package hidrometroComOCR;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.imageio.ImageIO;
+
+import hidrometroSemOCR.HidrometroDAO;
+import metricas.Histograma;
+import src.Configuracoes;
+
+/**
+ * Leitura em lote das fotos de hidrômetros de um diretório.
+ *
+ * As fotos passam por um pipeline de estágios ({@link EstagioLoteOCR}),
+ * cada um com suas threads e ligado ao seguinte por uma fila limitada
+ * (CapacidadeFilaOCR, padrão 32):
+ *
+ * - decodificar (ThreadsDecodificacaoOCR): lê e decodifica a imagem
+ * - preprocessar (ThreadsPreprocessamentoOCR): localiza e recorta o
+ *   mostrador ({@link PreprocessadorOCR})
+ * - ocr (ThreadsOCR): reconhece a leitura com um handle do pool, refazendo
+ *   em resolução cheia as fotos com leitura duvidosa ({@link LeitorHidrometroOCR})
+ * - validar: confere o hidrômetro e a leitura
+ * - gravar: confere a leitura contra as já gravadas ou pendentes do mesmo
+ *   hidrômetro, acumula as leituras e as grava no {@link HidrometroDAO}
+ *   a cada LoteGravacaoOCR leituras (padrão 100)
+ *
+ * Quantidades de threads 0 ou ausentes usam o número de núcleos. O ID do
+ * hidrômetro vem do nome do arquivo (ex.: 7199209.jpeg). Ao final, o
+ * relatório traz a vazão e a latência de cada estágio, o tempo por foto
+ * com e sem a região do mostrador em cache, quantas fotos precisaram da
+ * passada completa do OCR e as fotos rejeitadas.
+ */
+public class ProcessadorLoteOCR {
+
+    /** Extensões aceitas */
+    private static final String FILTRO_IMAGENS = "*.{jpg,jpeg,png,JPG,JPEG,PNG}";
+
+    /** Rejeições listadas no relatório */
+    private static final int REJEICOES_NO_RELATORIO = 20;
+
+    private final LeitorHidrometroOCR leitor;
+    private final HidrometroDAO dao;
+    private final int capacidadeFila;
+    private final int tamanhoLote;
+
+    /** Leituras validadas aguardando gravação (só a thread de gravação usa) */
+    private final Map<String, Double> pendentes = new HashMap<>();
+    private int lotesGravados;
+    private int leiturasGravadas;
+
+    /**
+     * @param leitor leitor com o pool de handles do Tesseract
+     */
+    public ProcessadorLoteOCR(LeitorHidrometroOCR leitor) {
+        this.leitor = leitor;
+        this.dao = HidrometroDAO.getInstance();
+        this.capacidadeFila = Math.max(1, (int) Configuracoes.getLong("CapacidadeFilaOCR", 32)); //$NON-NLS-1$
+        this.tamanhoLote = Math.max(1, (int) Configuracoes.getLong("LoteGravacaoOCR", 100)); //$NON-NLS-1$
+    }
+
+    /**
+     * Processa todas as fotos do diretório e grava as leituras válidas.
+     *
+     * @param diretorio diretório com as fotos
+     * @return relatório do lote
+     * @throws IOException se o diretório não puder ser listado
+     * @throws InterruptedException se interrompido durante o processamento
+     */
+    public String processar(File diretorio) throws IOException, InterruptedException {
+        BlockingQueue<FotoHidrometro> arquivos = new ArrayBlockingQueue<>(capacidadeFila);
+        BlockingQueue<FotoHidrometro> decodificadas = new ArrayBlockingQueue<>(capacidadeFila);
+        BlockingQueue<FotoHidrometro> preparadas = new ArrayBlockingQueue<>(capacidadeFila);
+        BlockingQueue<FotoHidrometro> reconhecidas = new ArrayBlockingQueue<>(capacidadeFila);
+        BlockingQueue<FotoHidrometro> validadas = new ArrayBlockingQueue<>(capacidadeFila);
+        Queue<FotoHidrometro> rejeitadas = new ConcurrentLinkedQueue<>();
+
+        List<EstagioLoteOCR> estagios = new ArrayList<>();
+        estagios.add(new EstagioLoteOCR("decodificar", threads("ThreadsDecodificacaoOCR"),
+                arquivos, decodificadas, this::decodificar, rejeitadas, null));
+        estagios.add(new EstagioLoteOCR("preprocessar", threads("ThreadsPreprocessamentoOCR"),
+                decodificadas, preparadas, this::preprocessar, rejeitadas, null));
+        estagios.add(new EstagioLoteOCR("ocr", leitor.getPool().getTamanho(),
+                preparadas, reconhecidas, this::reconhecer, rejeitadas, null));
+        estagios.add(new EstagioLoteOCR("validar", 1,
+                reconhecidas, validadas, this::validar, rejeitadas, null));
+        estagios.add(new EstagioLoteOCR("gravar", 1,
+                validadas, null, this::acumular, rejeitadas, this::gravarPendentes));
+
+        long inicio = System.nanoTime();
+        for (EstagioLoteOCR estagio : estagios) {
+            estagio.iniciar();
+        }
+
+        int fotos = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(diretorio.toPath(), FILTRO_IMAGENS)) {
+            for (Path caminho : stream) {
+                arquivos.put(FotoHidrometro.de(caminho.toFile()));
+                fotos++;
+            }
+        } finally {
+            arquivos.put(FotoHidrometro.FIM);
+        }
+
+        estagios.get(estagios.size() - 1).aguardar();
+        return relatorio(fotos, inicio, estagios, rejeitadas);
+    }
+
+    // ===================== ESTÁGIOS =====================
+
+    private boolean decodificar(FotoHidrometro foto) throws IOException {
+        foto.original = ImageIO.read(foto.arquivo);
+        if (foto.original == null) {
+            foto.motivo = "Formato de imagem não suportado.";
+            return false;
+        }
+        return true;
+    }
+
+    private boolean preprocessar(FotoHidrometro foto) {
+        leitor.preparar(foto);
+        return true;
+    }
+
+    private boolean reconhecer(FotoHidrometro foto) throws InterruptedException {
+        foto.leitura = leitor.reconhecer(foto);
+        foto.original = null;
+        foto.imagem = null;
+        return true;
+    }
+
+    private boolean validar(FotoHidrometro foto) {
+        foto.motivo = LeitorHidrometroOCR.validar(foto.id, foto.leitura);
+        return foto.motivo == null;
+    }
+
+    /**
+     * Acumula a leitura para gravação. O lote pode ter várias fotos do
+     * mesmo hidrômetro (ex.: 7199209_2026-10-17.jpg), terminadas em
+     * qualquer ordem: a leitura é conferida de novo contra a leitura do
+     * hidrômetro, que pode ter mudado com uma gravação do próprio lote
+     * depois da validação, e contra a leitura pendente de outra foto.
+     */
+    private boolean acumular(FotoHidrometro foto) {
+        foto.motivo = LeitorHidrometroOCR.validar(foto.id, foto.leitura);
+        if (foto.motivo != null) {
+            return false;
+        }
+        double leitura = foto.leitura.getLeitura();
+        Double pendente = pendentes.get(foto.id);
+        if (pendente != null && leitura < pendente) {
+            foto.motivo = "Leitura menor que a de outra foto do lote (" + String.format("%.0f", pendente) + "): "
+                    + foto.leitura;
+            return false;
+        }
+        pendentes.put(foto.id, leitura);
+        if (pendentes.size() >= tamanhoLote) {
+            gravarPendentes();
+        }
+        return true;
+    }
+
+    private void gravarPendentes() {
+        if (pendentes.isEmpty()) {
+            return;
+        }
+        leiturasGravadas += dao.atualizarLeituras(pendentes);
+        lotesGravados++;
+        pendentes.clear();
+    }
+
+    // ===================== RELATÓRIO =====================
+
+    private static int threads(String chave) {
+        int threads = (int) Configuracoes.getLong(chave, 0);
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    private String relatorio(int fotos, long inicio, List<EstagioLoteOCR> estagios,
+            Queue<FotoHidrometro> rejeitadas) {
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        String n = System.lineSeparator();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Lote OCR: %d fotos em %.2f s (%.1f fotos/s) | %d leituras gravadas em %d lotes | %d rejeitadas",
+                fotos, segundos, fotos / Math.max(segundos, 1e-9), leiturasGravadas, lotesGravados, rejeitadas.size()));
+        sb.append(n).append(String.format("  %-13s %7s %7s %8s %9s %9s %9s %9s",
+                "estágio", "threads", "fotos", "rejeit.", "fotos/s", "p50 ms", "p99 ms", "ocupação"));
+
+        for (EstagioLoteOCR e : estagios) {
+            double duracao = (e.getFimNanos() - inicio) / 1e9;
+            Histograma h = e.getLatencias();
+            double ocupacao = h.getSoma() / 1e9 / Math.max(duracao * e.getThreads(), 1e-9);
+            sb.append(n).append(String.format("  %-13s %7d %7d %8d %9.1f %9.3f %9.3f %8.0f%%",
+                    e.getNome(), e.getThreads(), e.getProcessadas(), e.getRejeitadas(),
+                    e.getProcessadas() / Math.max(duracao, 1e-9),
+                    h.percentil(50) / 1e6, h.percentil(99) / 1e6, ocupacao * 100));
+        }
+
+        sb.append(n).append(leitor.getResumo());
+
+        int listadas = 0;
+        for (FotoHidrometro foto : rejeitadas) {
+            if (listadas == 0) {
+                sb.append(n).append("Rejeitadas:");
+            }
+            if (listadas++ == REJEICOES_NO_RELATORIO) {
+                sb.append(n).append("  ...");
+                break;
+            }
+            sb.append(n).append("  ").append(foto.arquivo.getName()).append(": ").append(foto.motivo);
+        }
+        return sb.toString();
+    }
+}
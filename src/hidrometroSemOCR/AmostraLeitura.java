@@ -0,0 +1,48 @@
+package hidrometroSemOCR;
+
+import java.time.Instant;
+
+/**
+ * Uma amostra do histórico de leituras de um hidrômetro:
+ * o instante e o valor da leitura naquele instante.
+ */
+public class AmostraLeitura {
+
+    /** Instante simulado da leitura (ms desde a época) */
+    private final long instante;
+
+    /** Valor da leitura (m³) */
+    private final double leitura;
+
+    /**
+     * @param instante instante da leitura (ms)
+     * @param leitura valor da leitura
+     */
+    public AmostraLeitura(long instante, double leitura) {
+        this.instante = instante;
+        this.leitura = leitura;
+    }
+
+    /**
+     * Retorna o instante da leitura.
+     *
+     * @return milissegundos desde a época
+     */
+    public long getInstante() {
+        return instante;
+    }
+
+    /**
+     * Retorna o valor da leitura.
+     *
+     * @return leitura em m³
+     */
+    public double getLeitura() {
+        return leitura;
+    }
+
+    @Override
+    public String toString() {
+        return Instant.ofEpochMilli(instante) + " " + String.format("%.3f", leitura); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+}
@@ -0,0 +1,311 @@
+package hidrometroSemOCR;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import src.RelogioSimulacao;
+
+/**
+ * Armazém colunar dos hidrômetros — Singleton
+ *
+ * Guarda o estado de todos os hidrômetros em vetores primitivos
+ * (estrutura de vetores), divididos em blocos de tamanho fixo:
+ * - ID numérico (int)
+ * - leitura atual (double)
+ * - intervalo e instante do próximo passo (long)
+ * - estado da posição (byte)
+ *
+ * Cada objeto {@link Hidrometro} é apenas uma visão sobre uma
+ * posição (slot) deste armazém. O motor de simulação avança um
+ * bloco inteiro por passada, sem percorrer objetos.
+ *
+ * Todos os blocos compartilham um único fluxo de números aleatórios,
+ * dividido (split) em um sub-fluxo por bloco.
+ *
+ * Cada nova leitura gerada por um passo de simulação (ou definida
+ * manualmente) é repassada aos {@link LeituraObserver} registrados.
+ */
+public class ArmazemHidrometros {
+
+    /** Instância única do armazém */
+    private static ArmazemHidrometros instance;
+
+    /** Blocos de hidrômetros; o vetor é substituído quando cresce */
+    private volatile BlocoHidrometros[] blocos = new BlocoHidrometros[0];
+
+    /** Fluxo de números aleatórios de onde saem os fluxos dos blocos */
+    private final SplittableRandom aleatorio = new SplittableRandom();
+
+    /** Posições liberadas, reaproveitadas antes de criar novas */
+    private int[] livres = new int[16];
+
+    /** Quantidade de posições em {@link #livres} */
+    private int totalLivres;
+
+    /** Próxima posição nunca usada */
+    private int proximaPosicao;
+
+    /** Quantidade de hidrômetros cadastrados */
+    private final AtomicInteger ocupados = new AtomicInteger();
+
+    /** Quantidade de hidrômetros em simulação (motor agendado ou preguiçosos) */
+    private final AtomicInteger rodando = new AtomicInteger();
+
+    /** Total de passos de simulação executados, em qualquer modo */
+    private final LongAdder passos = new LongAdder();
+
+    /** Observers de leituras; o vetor é substituído a cada registro */
+    private volatile LeituraObserver[] observersLeitura = new LeituraObserver[0];
+
+    /**
+     * Construtor privado (Singleton).
+     */
+    private ArmazemHidrometros() {}
+
+    /**
+     * Retorna a instância única do armazém.
+     *
+     * @return instância singleton
+     */
+    public static synchronized ArmazemHidrometros getInstance() {
+        if (instance == null) {
+            instance = new ArmazemHidrometros();
+        }
+        return instance;
+    }
+
+    // ===================== ALOCAÇÃO =====================
+
+    /**
+     * Reserva uma posição para um hidrômetro.
+     *
+     * @param visao objeto Hidrometro ligado à posição
+     * @param id identificador do hidrômetro
+     * @param leitura leitura inicial
+     * @param intervalo intervalo entre leituras (ms)
+     * @return posição global reservada
+     */
+    synchronized int alocar(Hidrometro visao, String id, double leitura, long intervalo) {
+        int posicao = totalLivres > 0 ? livres[--totalLivres] : proximaPosicao++;
+        BlocoHidrometros bloco = garantirBloco(posicao / BlocoHidrometros.TAMANHO);
+        int i = posicao % BlocoHidrometros.TAMANHO;
+
+        bloco.ids[i] = codificarId(id);
+        bloco.leituras[i] = leitura;
+        bloco.intervalos[i] = intervalo;
+        bloco.proximoPasso[i] = 0L;
+        bloco.visoes[i] = visao;
+        bloco.definirEstado(i, BlocoHidrometros.PARADO);
+
+        ocupados.incrementAndGet();
+        return posicao;
+    }
+
+    /**
+     * Libera a posição de um hidrômetro removido do sistema.
+     *
+     * @param posicao posição global do hidrômetro
+     */
+    synchronized void liberar(int posicao) {
+        BlocoHidrometros bloco = getBloco(posicao);
+        int i = posicao % BlocoHidrometros.TAMANHO;
+
+        if (bloco.estado(i) == BlocoHidrometros.LIVRE) {
+            return;
+        }
+
+        pararSimulacao(bloco, i);
+        bloco.limpar(i);
+
+        if (totalLivres == livres.length) {
+            livres = Arrays.copyOf(livres, livres.length * 2);
+        }
+        livres[totalLivres++] = posicao;
+        ocupados.decrementAndGet();
+    }
+
+    /**
+     * Cria os blocos necessários até o número informado.
+     */
+    private BlocoHidrometros garantirBloco(int numero) {
+        BlocoHidrometros[] atual = blocos;
+
+        if (numero < atual.length) {
+            return atual[numero];
+        }
+
+        BlocoHidrometros[] novos = Arrays.copyOf(atual, numero + 1);
+        for (int b = atual.length; b <= numero; b++) {
+            novos[b] = new BlocoHidrometros(b, aleatorio.split(), this);
+        }
+        blocos = novos;
+        return novos[numero];
+    }
+
+    /**
+     * Converte o ID textual em inteiro (os IDs gerados têm 7 dígitos).
+     *
+     * @return ID numérico ou -1 se o ID não for numérico
+     */
+    private static int codificarId(String id) {
+        try {
+            return Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // ===================== OBSERVERS DE LEITURA =====================
+
+    /**
+     * Registra um observer que recebe cada nova leitura dos hidrômetros.
+     *
+     * @param observer observer a ser registrado
+     */
+    public synchronized void adicionarObserver(LeituraObserver observer) {
+        LeituraObserver[] novos = Arrays.copyOf(observersLeitura, observersLeitura.length + 1);
+        novos[novos.length - 1] = observer;
+        observersLeitura = novos;
+    }
+
+    /**
+     * Repassa uma nova leitura aos observers registrados.
+     * Chamado pelo motor a cada passo, sem alocar objetos.
+     */
+    void notificarLeitura(Hidrometro h, long instante, double leitura) {
+        for (LeituraObserver observer : observersLeitura) {
+            observer.leituraAtualizada(h, instante, leitura);
+        }
+    }
+
+    // ===================== SIMULAÇÃO =====================
+
+    /**
+     * Coloca uma posição sob controle do motor agendado.
+     *
+     * @param bloco bloco da posição
+     * @param i posição dentro do bloco
+     * @param agora instante atual (ms)
+     */
+    synchronized void iniciarSimulacao(BlocoHidrometros bloco, int i, long agora) {
+        bloco.proximoPasso[i] = agora + bloco.intervalos[i];
+
+        if (bloco.estado(i) == BlocoHidrometros.PARADO) {
+            bloco.definirEstado(i, BlocoHidrometros.RODANDO);
+            rodando.incrementAndGet();
+        }
+    }
+
+    /**
+     * Coloca uma posição no modo preguiçoso: a leitura atual vira a
+     * leitura base e passa a ser calculada a cada consulta.
+     *
+     * @param bloco bloco da posição
+     * @param i posição dentro do bloco
+     * @param agora instante atual (ms), usado como instante base
+     * @param semente semente do modelo de consumo
+     */
+    synchronized void iniciarPreguicoso(BlocoHidrometros bloco, int i, long agora, long semente) {
+        if (bloco.estado(i) != BlocoHidrometros.PARADO) {
+            return;
+        }
+
+        synchronized (bloco) {
+            bloco.instanteBase[i] = agora;
+            bloco.sementes[i] = semente;
+            bloco.definirEstado(i, BlocoHidrometros.PREGUICOSO);
+        }
+        rodando.incrementAndGet();
+    }
+
+    /**
+     * Retira uma posição da simulação (motor agendado ou modo preguiçoso).
+     * Hidrômetros preguiçosos têm a leitura congelada no instante atual.
+     *
+     * @param bloco bloco da posição
+     * @param i posição dentro do bloco
+     */
+    synchronized void pararSimulacao(BlocoHidrometros bloco, int i) {
+        byte estado = bloco.estado(i);
+
+        if (estado == BlocoHidrometros.PREGUICOSO) {
+            synchronized (bloco) {
+                bloco.leituras[i] = bloco.leitura(i, RelogioSimulacao.getInstance().agoraMillis());
+                bloco.definirEstado(i, BlocoHidrometros.PARADO);
+            }
+            bloco.marcarSujo(i);
+            rodando.decrementAndGet();
+
+        } else if (estado == BlocoHidrometros.RODANDO) {
+            bloco.definirEstado(i, BlocoHidrometros.PARADO);
+            rodando.decrementAndGet();
+        }
+    }
+
+    /**
+     * Marca todos os hidrômetros preguiçosos como alterados, para que o
+     * próximo checkpoint e a próxima publicação levem a leitura calculada
+     * de cada um. Usado no logout; os checkpoints periódicos só levam os
+     * preguiçosos cuja base mudou.
+     */
+    void marcarPreguicososSujos() {
+        for (BlocoHidrometros bloco : blocos) {
+            for (int i = 0; i < BlocoHidrometros.TAMANHO; i++) {
+                if (bloco.estado(i) == BlocoHidrometros.PREGUICOSO) {
+                    bloco.marcarSujo(i);
+                }
+            }
+        }
+    }
+
+    // ===================== CONSULTA =====================
+
+    /**
+     * Retorna o bloco que contém a posição informada.
+     */
+    BlocoHidrometros getBloco(int posicao) {
+        return blocos[posicao / BlocoHidrometros.TAMANHO];
+    }
+
+    /**
+     * Retorna os blocos atuais do armazém.
+     * O vetor retornado não deve ser alterado.
+     */
+    BlocoHidrometros[] getBlocos() {
+        return blocos;
+    }
+
+    /**
+     * Retorna a quantidade de hidrômetros cadastrados.
+     */
+    public int getQuantidade() {
+        return ocupados.get();
+    }
+
+    /**
+     * Retorna a quantidade de hidrômetros em simulação
+     * (motor agendado ou modo preguiçoso).
+     */
+    public int getQuantidadeRodando() {
+        return rodando.get();
+    }
+
+    /**
+     * Soma passos de simulação executados (motor ou threads dos hidrômetros).
+     *
+     * @param quantidade passos executados
+     */
+    void contarPassos(int quantidade) {
+        passos.add(quantidade);
+    }
+
+    /**
+     * Retorna o total de passos de simulação executados. No modo
+     * preguiçoso as leituras são calculadas sem passos e não contam.
+     */
+    public long getPassosExecutados() {
+        return passos.sum();
+    }
+}
@@ -0,0 +1,374 @@
+package hidrometroSemOCR;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.random.RandomGenerator;
+
+/**
+ * Bloco de tamanho fixo do armazém colunar de hidrômetros.
+ *
+ * Cada coluna é um vetor primitivo com uma posição por hidrômetro.
+ * Os blocos nunca são realocados: quando o armazém cresce, apenas
+ * um novo bloco é criado. Assim um bloco também serve de partição
+ * para o motor de simulação, que avança todos os hidrômetros do
+ * bloco em uma única passada.
+ */
+final class BlocoHidrometros {
+
+    /** Quantidade de hidrômetros por bloco */
+    static final int TAMANHO = 4096;
+
+    /** Posição livre */
+    static final byte LIVRE = 0;
+
+    /** Hidrômetro cadastrado, mas sem simulação ativa */
+    static final byte PARADO = 1;
+
+    /** Hidrômetro em simulação pelo motor agendado */
+    static final byte RODANDO = 2;
+
+    /** Hidrômetro preguiçoso: a leitura é calculada quando consultada */
+    static final byte PREGUICOSO = 3;
+
+    /** Consumo médio por passo no modelo preguiçoso (m³) */
+    private static final double CONSUMO_MEDIO = 0.005;
+
+    /**
+     * Variação máxima em torno do consumo médio acumulado. Com 0,002 o
+     * consumo de cada passo fica entre 0,001 e 0,009, como na simulação real.
+     */
+    private static final double VARIACAO = 0.002;
+
+    /** Acesso com semântica de memória às posições da coluna de estados */
+    private static final VarHandle ESTADO =
+            MethodHandles.arrayElementVarHandle(byte[].class);
+
+    /** Número do bloco dentro do armazém */
+    final int numero;
+
+    /** ID numérico de cada hidrômetro (-1 quando o ID não é numérico) */
+    final int[] ids = new int[TAMANHO];
+
+    /** Leitura atual de cada hidrômetro */
+    final double[] leituras = new double[TAMANHO];
+
+    /** Intervalo entre leituras (ms) */
+    final long[] intervalos = new long[TAMANHO];
+
+    /** Instante (ms) do próximo passo de simulação */
+    final long[] proximoPasso = new long[TAMANHO];
+
+    /** Instante (ms) da leitura base dos hidrômetros preguiçosos */
+    final long[] instanteBase = new long[TAMANHO];
+
+    /** Semente do modelo de consumo dos hidrômetros preguiçosos */
+    final long[] sementes = new long[TAMANHO];
+
+    /** Estado de cada posição (LIVRE, PARADO, RODANDO ou PREGUICOSO) */
+    private final byte[] estados = new byte[TAMANHO];
+
+    /** Objeto Hidrometro ligado a cada posição, usado para notificar observers */
+    final Hidrometro[] visoes = new Hidrometro[TAMANHO];
+
+    /** Conjunto de posições alteradas usado pelo checkpoint */
+    static final int SUJOS_CHECKPOINT = 0;
+
+    /** Conjunto de posições alteradas usado pelos eventos de leitura */
+    static final int SUJOS_EVENTOS = 1;
+
+    /**
+     * Conjuntos de bits das posições alteradas desde a última coleta
+     * (um bit por posição, 64 posições por palavra). Cada consumidor
+     * (checkpoint, eventos de leitura) coleta o seu conjunto no seu ritmo.
+     */
+    private final AtomicLongArray[] sujos = {
+        new AtomicLongArray(TAMANHO / 64),
+        new AtomicLongArray(TAMANHO / 64)
+    };
+
+    /** Fluxo de números aleatórios do bloco, derivado do fluxo do armazém */
+    final SplittableRandom aleatorio;
+
+    /** Armazém dono do bloco, que repassa as novas leituras aos observers */
+    private final ArmazemHidrometros armazem;
+
+    /** Menor próximo passo pendente após a última passada (ms) */
+    long proximoMinimo = Long.MAX_VALUE;
+
+    /**
+     * Cria um bloco vazio.
+     *
+     * @param numero número do bloco
+     * @param aleatorio fluxo de números aleatórios exclusivo do bloco
+     * @param armazem armazém dono do bloco
+     */
+    BlocoHidrometros(int numero, SplittableRandom aleatorio, ArmazemHidrometros armazem) {
+        this.numero = numero;
+        this.aleatorio = aleatorio;
+        this.armazem = armazem;
+    }
+
+    /**
+     * Retorna o estado de uma posição.
+     */
+    byte estado(int i) {
+        return (byte) ESTADO.getAcquire(estados, i);
+    }
+
+    /**
+     * Altera o estado de uma posição.
+     */
+    void definirEstado(int i, byte estado) {
+        ESTADO.setRelease(estados, i, estado);
+    }
+
+    /**
+     * Marca a posição como alterada em todos os conjuntos.
+     * Só escreve na memória compartilhada se o bit ainda não estiver ligado.
+     */
+    void marcarSujo(int i) {
+        long mascara = 1L << i;
+        int palavra = i >>> 6;
+
+        for (AtomicLongArray conjunto : sujos) {
+            if ((conjunto.get(palavra) & mascara) == 0) {
+                conjunto.getAndAccumulate(palavra, mascara, (a, b) -> a | b);
+            }
+        }
+    }
+
+    /**
+     * Retorna e limpa uma palavra de um conjunto de posições alteradas.
+     *
+     * @param conjunto {@link #SUJOS_CHECKPOINT} ou {@link #SUJOS_EVENTOS}
+     * @param palavra índice da palavra (posições palavra*64 a palavra*64+63)
+     * @return bits das posições alteradas
+     */
+    long coletarSujos(int conjunto, int palavra) {
+        return sujos[conjunto].getAndSet(palavra, 0L);
+    }
+
+    /**
+     * Executa um passo de simulação de um único hidrômetro.
+     *
+     * A leitura é lida e gravada com o lock do bloco, o mesmo de
+     * {@link Hidrometro#setLeituraAtual(double)}, para que uma leitura
+     * manual ou por OCR não seja sobrescrita pelo passo; os observers
+     * são notificados fora do lock.
+     *
+     * @param i posição no bloco
+     * @param instante instante do passo (ms)
+     * @param rng gerador de números aleatórios a ser usado
+     */
+    void passo(int i, long instante, RandomGenerator rng) {
+        double consumo = 0.001 + (rng.nextDouble() * 0.009);
+        double leituraAnterior;
+        double leitura;
+        boolean virou;
+        Hidrometro visao;
+
+        synchronized (this) {
+            visao = visoes[i];
+            leituraAnterior = leituras[i];
+            leitura = leituraAnterior + consumo;
+            virou = leitura > Hidrometro.LIMITE_MAX;
+            if (virou) {
+                leitura = 0.0;
+            }
+            leituras[i] = leitura;
+        }
+
+        if (virou) {
+            visao.notificarLimite(leituraAnterior);
+        }
+        marcarSujo(i);
+        armazem.notificarLeitura(visao, instante, leitura);
+    }
+
+    /**
+     * Avança, em uma única passada, todos os hidrômetros do bloco
+     * que estão rodando e cujo próximo passo já venceu.
+     *
+     * Se o relógio andou mais de um intervalo desde a última passada
+     * (tempo acelerado ou motor atrasado), todos os passos vencidos
+     * são executados, para que nenhum consumo simulado se perca.
+     * Ao final, {@link #proximoMinimo} guarda o passo pendente mais próximo.
+     *
+     * @param agora instante atual da simulação (ms)
+     * @return quantidade de passos executados
+     */
+    int avancar(long agora) {
+        int passos = 0;
+        long minimo = Long.MAX_VALUE;
+
+        for (int i = 0; i < TAMANHO; i++) {
+            if (estado(i) != RODANDO || intervalos[i] <= 0) {
+                continue;
+            }
+
+            long proximo = proximoPasso[i];
+            while (proximo <= agora) {
+                passo(i, proximo, aleatorio);
+                passos++;
+                proximo += intervalos[i];
+            }
+            proximoPasso[i] = proximo;
+
+            if (proximo < minimo) {
+                minimo = proximo;
+            }
+        }
+
+        proximoMinimo = minimo;
+        return passos;
+    }
+
+    // ===================== MODELO PREGUIÇOSO =====================
+
+    /**
+     * Retorna a leitura de uma posição no instante informado.
+     *
+     * Para hidrômetros preguiçosos a leitura é calculada a partir da
+     * leitura base, do instante base e da semente; para os demais
+     * é o valor da coluna de leituras.
+     *
+     * @param i posição no bloco
+     * @param agora instante da consulta (ms)
+     * @return leitura do hidrômetro
+     */
+    double leitura(int i, long agora) {
+        if (estado(i) != PREGUICOSO) {
+            return leituras[i];
+        }
+
+        synchronized (this) {
+            long n = passosDesdeBase(i, agora);
+            double leitura = leituras[i] + consumoAcumulado(sementes[i], n);
+
+            // O despertador ainda não virou o hidrômetro: conta a partir do zero
+            if (leitura > Hidrometro.LIMITE_MAX) {
+                long limite = passosAteLimite(i);
+                leitura = consumoAcumulado(sementes[i], n) - consumoAcumulado(sementes[i], limite);
+            }
+            return leitura;
+        }
+    }
+
+    /**
+     * Fixa a leitura atual como nova base do modelo preguiçoso.
+     * Deve ser chamado antes de alterar leitura ou intervalo.
+     *
+     * @param i posição no bloco
+     * @param agora instante atual (ms)
+     */
+    synchronized void rebasear(int i, long agora) {
+        if (estado(i) == PREGUICOSO) {
+            leituras[i] = leitura(i, agora);
+            instanteBase[i] = agora;
+            marcarSujo(i);
+        }
+    }
+
+    /**
+     * Retorna o instante (ms) em que a leitura do hidrômetro preguiçoso
+     * ultrapassará o limite máximo.
+     *
+     * @param i posição no bloco
+     */
+    synchronized long instanteLimite(int i) {
+        return instanteBase[i] + passosAteLimite(i) * intervalos[i];
+    }
+
+    /**
+     * Executa a virada do limite máximo de um hidrômetro preguiçoso:
+     * a leitura volta a zero no instante exato em que o limite foi
+     * ultrapassado e os observers são notificados.
+     *
+     * @param i posição no bloco
+     * @param agora instante atual (ms)
+     */
+    void virarLimite(int i, long agora) {
+        double leituraAnterior;
+
+        synchronized (this) {
+            if (estado(i) != PREGUICOSO || instanteLimite(i) > agora) {
+                return;
+            }
+
+            long limite = passosAteLimite(i);
+            leituraAnterior = leituras[i] + consumoAcumulado(sementes[i], limite - 1);
+            leituras[i] = 0.0;
+            instanteBase[i] += limite * intervalos[i];
+        }
+        marcarSujo(i);
+
+        visoes[i].notificarLimite(leituraAnterior);
+    }
+
+    /**
+     * Quantidade de passos completos desde o instante base.
+     */
+    private long passosDesdeBase(int i, long agora) {
+        long decorrido = agora - instanteBase[i];
+        return decorrido <= 0 || intervalos[i] <= 0 ? 0 : decorrido / intervalos[i];
+    }
+
+    /**
+     * Menor número de passos, a partir da base, em que a leitura passa do limite.
+     * Como a variação é limitada, bastam no máximo poucas iterações.
+     */
+    private long passosAteLimite(int i) {
+        double falta = Hidrometro.LIMITE_MAX - leituras[i];
+        long n = Math.max(1, (long) ((falta - VARIACAO) / CONSUMO_MEDIO));
+
+        while (consumoAcumulado(sementes[i], n) <= falta) {
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Consumo acumulado após n passos, de forma determinística.
+     *
+     * É a média (n * 0,005) mais uma variação limitada que depende apenas
+     * da semente e de n. Como a variação fica entre -0,002 e +0,002,
+     * o consumo de cada passo fica sempre entre 0,001 e 0,009.
+     *
+     * @param semente semente do hidrômetro
+     * @param n quantidade de passos
+     * @return consumo acumulado em m³
+     */
+    static double consumoAcumulado(long semente, long n) {
+        if (n <= 0) {
+            return 0.0;
+        }
+        return CONSUMO_MEDIO * n + VARIACAO * (2 * uniforme(semente, n) - 1);
+    }
+
+    /**
+     * Valor pseudoaleatório em [0, 1) derivado de (semente, n) — mistura SplitMix64.
+     */
+    private static double uniforme(long semente, long n) {
+        long z = semente + n * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (z >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Limpa uma posição para reutilização.
+     */
+    void limpar(int i) {
+        definirEstado(i, LIVRE);
+        ids[i] = 0;
+        leituras[i] = 0.0;
+        intervalos[i] = 0L;
+        proximoPasso[i] = 0L;
+        instanteBase[i] = 0L;
+        sementes[i] = 0L;
+        visoes[i] = null;
+    }
+}
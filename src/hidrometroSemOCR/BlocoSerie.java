@@ -0,0 +1,116 @@
+package hidrometroSemOCR;
+
+import java.util.List;
+
+/**
+ * Bloco imutável de amostras comprimidas pelo {@link CompressorSerie}.
+ *
+ * Guarda o intervalo de tempo coberto e a quantidade de amostras,
+ * permitindo descartar o bloco inteiro em consultas fora desse intervalo
+ * sem descomprimir nada.
+ */
+final class BlocoSerie {
+
+    /** Instante da primeira amostra (ms) */
+    final long inicio;
+
+    /** Instante da última amostra (ms) */
+    final long fim;
+
+    /** Quantidade de amostras */
+    final int quantidade;
+
+    /** Bits comprimidos */
+    final byte[] dados;
+
+    /** Posição do próximo bit durante a leitura */
+    private int posicao;
+
+    BlocoSerie(long inicio, long fim, int quantidade, byte[] dados) {
+        this.inicio = inicio;
+        this.fim = fim;
+        this.quantidade = quantidade;
+        this.dados = dados;
+    }
+
+    /**
+     * Indica se o bloco tem amostras dentro do intervalo [de, ate].
+     */
+    boolean sobrepoe(long de, long ate) {
+        return inicio <= ate && fim >= de;
+    }
+
+    /**
+     * Descomprime o bloco e acrescenta à saída as amostras do intervalo [de, ate].
+     *
+     * @param de início do intervalo (ms, inclusivo)
+     * @param ate fim do intervalo (ms, inclusivo)
+     * @param saida lista que recebe as amostras
+     */
+    synchronized void decodificar(long de, long ate, List<AmostraLeitura> saida) {
+        posicao = 0;
+
+        long instante = ler(64);
+        long valor = ler(64);
+        long delta = 0;
+        int zerosEsquerda = 0;
+        int zerosDireita = 0;
+
+        for (int n = 0; n < quantidade; n++) {
+            if (n > 0) {
+                delta += lerDeltaDoDelta();
+                instante += delta;
+
+                if (ler(1) == 1) {
+                    if (ler(1) == 1) {
+                        zerosEsquerda = (int) ler(6);
+                        int significativos = (int) ler(6) + 1;
+                        zerosDireita = 64 - zerosEsquerda - significativos;
+                    }
+                    int significativos = 64 - zerosEsquerda - zerosDireita;
+                    valor ^= ler(significativos) << zerosDireita;
+                }
+            }
+
+            if (instante > ate) {
+                return;
+            }
+            if (instante >= de) {
+                saida.add(new AmostraLeitura(instante, valor / CompressorSerie.ESCALA));
+            }
+        }
+    }
+
+    /** Lê um delta-of-delta gravado por {@link CompressorSerie}. */
+    private long lerDeltaDoDelta() {
+        if (ler(1) == 0) {
+            return 0;
+        }
+        if (ler(1) == 0) {
+            return comSinal(ler(7), 7);
+        }
+        if (ler(1) == 0) {
+            return comSinal(ler(9), 9);
+        }
+        if (ler(1) == 0) {
+            return comSinal(ler(12), 12);
+        }
+        return ler(64);
+    }
+
+    /** Estende o sinal de um valor de n bits. */
+    private static long comSinal(long valor, int n) {
+        return (valor << (64 - n)) >> (64 - n);
+    }
+
+    /** Lê n bits, do mais para o menos significativo. */
+    private long ler(int n) {
+        long valor = 0;
+        for (int b = 0; b < n; b++) {
+            int bit = (dados[posicao >>> 3] >>> (7 - (posicao & 7))) & 1;
+            valor = (valor << 1) | bit;
+            posicao++;
+        }
+        return valor;
+    }
+}
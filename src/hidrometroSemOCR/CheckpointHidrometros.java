@@ -0,0 +1,235 @@
+package hidrometroSemOCR;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import src.Configuracoes;
+import src.RelogioSimulacao;
+
+/**
+ * Checkpoint incremental das leituras dos hidrômetros.
+ *
+ * Cada passo de simulação marca a posição do hidrômetro em um conjunto
+ * de bits do seu bloco ({@link BlocoHidrometros#marcarSujo(int)}). O
+ * checkpoint coleta e limpa esses bits palavra por palavra e grava
+ * apenas as leituras alteradas na persistência configurada. Hidrômetros
+ * preguiçosos só são marcados quando a base do modelo muda (leitura
+ * manual, mudança de intervalo, virada do limite); a leitura calculada
+ * de todos eles é gravada apenas no checkpoint do logout
+ * ({@link ArmazemHidrometros#marcarPreguicososSujos()}).
+ *
+ * O motor de simulação nunca espera pelo checkpoint: os bits são
+ * coletados com operações atômicas e as leituras são lidas sem lock.
+ * O lock do armazém é mantido só durante a coleta de cada palavra; as
+ * leituras coletadas são gravadas depois, em uma única chamada a
+ * {@link PersistenciaHidrometros#registrarLeituras}.
+ *
+ * A chave IntervaloCheckpointMs define o intervalo, em tempo real,
+ * entre checkpoints automáticos (padrão: 60000; 0 desativa, restando
+ * apenas o checkpoint do logout).
+ */
+public class CheckpointHidrometros {
+
+    /** Intervalo padrão entre checkpoints (ms) */
+    private static final long INTERVALO_PADRAO = 60_000;
+
+    /** Formatador do instante do último checkpoint */
+    private static final DateTimeFormatter FORMATTER =
+            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss"); //$NON-NLS-1$
+
+    /** Armazém colunar com o estado dos hidrômetros */
+    private final ArmazemHidrometros armazem = ArmazemHidrometros.getInstance();
+
+    /** Relógio da simulação, usado para a leitura dos hidrômetros preguiçosos */
+    private final RelogioSimulacao relogio = RelogioSimulacao.getInstance();
+
+    /** Persistência que recebe as leituras alteradas */
+    private final PersistenciaHidrometros persistencia;
+
+    /** Agendador dos checkpoints automáticos (null se desativados) */
+    private final ScheduledThreadPoolExecutor agendador;
+
+    /** Instante do último checkpoint concluído */
+    private volatile LocalDateTime ultimoCheckpoint;
+
+    /** Hidrômetros gravados no último checkpoint */
+    private volatile int ultimosGravados;
+
+    /** Total de bytes gravados pelos checkpoints */
+    private volatile long bytesGravados;
+
+    /** Duração do último checkpoint (ns) */
+    private volatile long ultimaDuracaoNanos;
+
+    /**
+     * Cria o checkpoint e agenda as execuções automáticas.
+     *
+     * @param persistencia persistência dos hidrômetros
+     */
+    public CheckpointHidrometros(PersistenciaHidrometros persistencia) {
+        this.persistencia = persistencia;
+
+        long intervalo = Configuracoes.getLong("IntervaloCheckpointMs", INTERVALO_PADRAO);
+        if (intervalo <= 0) {
+            agendador = null;
+            return;
+        }
+
+        agendador = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "sha-checkpoint");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        agendador.scheduleWithFixedDelay(this::executarAgendado,
+                intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Grava as leituras de todos os hidrômetros alterados desde o último checkpoint.
+     *
+     * @return quantidade de hidrômetros gravados
+     * @throws IOException em caso de erro de escrita
+     */
+    public synchronized int executar() throws IOException {
+        long inicio = System.nanoTime();
+        long bytesAntes = persistencia.getBytesGravados();
+        long agora = relogio.agoraMillis();
+        Map<String, Double> leituras = new LinkedHashMap<>();
+        List<Hidrometro> coletados = new ArrayList<>();
+
+        for (BlocoHidrometros bloco : armazem.getBlocos()) {
+            for (int palavra = 0; palavra < BlocoHidrometros.TAMANHO / 64; palavra++) {
+                long bits = bloco.coletarSujos(BlocoHidrometros.SUJOS_CHECKPOINT, palavra);
+                if (bits != 0) {
+                    coletarPalavra(bloco, palavra, bits, agora, leituras, coletados);
+                }
+            }
+        }
+        int gravados = gravar(leituras, coletados);
+
+        ultimosGravados = gravados;
+        bytesGravados += persistencia.getBytesGravados() - bytesAntes;
+        ultimoCheckpoint = relogio.agora();
+        ultimaDuracaoNanos = System.nanoTime() - inicio;
+        return gravados;
+    }
+
+    /**
+     * Coleta as leituras das posições sujas de uma palavra.
+     * Só memória: o lock do armazém não é mantido durante E/S.
+     */
+    private void coletarPalavra(BlocoHidrometros bloco, int palavra, long bits, long agora,
+            Map<String, Double> leituras, List<Hidrometro> coletados) {
+        synchronized (armazem) {
+            for (int b = 0; b < 64; b++) {
+                int i = palavra * 64 + b;
+                byte estado = bloco.estado(i);
+
+                boolean sujo = (bits & (1L << b)) != 0;
+                if (!sujo || estado == BlocoHidrometros.LIVRE) {
+                    continue;
+                }
+
+                Hidrometro h = bloco.visoes[i];
+                leituras.put(h.getIdentificador(), bloco.leitura(i, agora));
+                coletados.add(h);
+            }
+        }
+    }
+
+    /**
+     * Grava as leituras coletadas em uma única chamada.
+     *
+     * A remoção de um hidrômetro libera a posição antes de registrar a
+     * remoção na persistência, e esse registro precisa do lock da
+     * persistência. Descartando aqui, sob esse lock, os hidrômetros que
+     * já perderam a posição, nenhuma leitura é gravada depois do registro
+     * de remoção (o que faria o hidrômetro voltar na próxima carga).
+     */
+    private int gravar(Map<String, Double> leituras, List<Hidrometro> coletados) throws IOException {
+        if (leituras.isEmpty()) {
+            return 0;
+        }
+
+        synchronized (persistencia) {
+            synchronized (armazem) {
+                for (Hidrometro h : coletados) {
+                    if (!h.isAlocado()) {
+                        leituras.remove(h.getIdentificador());
+                    }
+                }
+            }
+            persistencia.registrarLeituras(leituras);
+        }
+        return leituras.size();
+    }
+
+    private void executarAgendado() {
+        try {
+            executar();
+        } catch (IOException | RuntimeException e) {
+            // Uma exceção cancelaria os próximos checkpoints
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Retorna o instante (relógio da simulação) do último checkpoint.
+     *
+     * @return instante ou null se ainda não houve checkpoint
+     */
+    public LocalDateTime getUltimoCheckpoint() {
+        return ultimoCheckpoint;
+    }
+
+    /**
+     * Retorna o total de bytes gravados pelos checkpoints.
+     *
+     * @return bytes gravados
+     */
+    public long getBytesGravados() {
+        return bytesGravados;
+    }
+
+    /**
+     * Retorna a duração do último checkpoint.
+     *
+     * @return duração em ms (0 se ainda não houve checkpoint)
+     */
+    public double getUltimaDuracaoMs() {
+        return ultimaDuracaoNanos / 1e6;
+    }
+
+    /**
+     * Retorna um resumo do checkpoint para exibição no painel.
+     *
+     * @return texto com o último checkpoint e os bytes gravados
+     */
+    public String getResumo() {
+        LocalDateTime ultimo = ultimoCheckpoint;
+        if (ultimo == null) {
+            return "Checkpoint: nenhum ainda";
+        }
+        return "Último checkpoint: " + ultimo.format(FORMATTER)
+                + " | Hidrômetros gravados: " + ultimosGravados
+                + " | Bytes gravados: " + bytesGravados
+                + String.format(" | Duração: %.3f ms", getUltimaDuracaoMs());
+    }
+
+    /**
+     * Cancela os checkpoints automáticos.
+     */
+    public void encerrar() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+        }
+    }
+}
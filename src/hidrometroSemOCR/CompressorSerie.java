@@ -0,0 +1,165 @@
+package hidrometroSemOCR;
+
+import java.util.Arrays;
+
+/**
+ * Compressor de uma sequência de amostras (instante, leitura) no estilo
+ * Gorilla, usado pelo histórico de leituras.
+ *
+ * - Instantes: delta-of-delta. Passos em intervalo regular custam 1 bit.
+ * - Leituras: quantizadas em milésimos de m³ (a resolução exibida pelo
+ *   hidrômetro) e codificadas pelo XOR com a leitura anterior, guardando
+ *   só os bits significativos.
+ *
+ * A quantização é o que torna o XOR eficiente: um double com ruído nos
+ * últimos bits da mantissa não comprime, enquanto o inteiro em milésimos
+ * muda poucos bits por passo.
+ *
+ * Cada instância monta um único bloco; quando cheio, {@link #fechar()}
+ * gera um {@link BlocoSerie} imutável.
+ */
+final class CompressorSerie {
+
+    /** Fator de quantização das leituras (milésimos de m³) */
+    static final double ESCALA = 1000.0;
+
+    /** Bits gravados até agora */
+    private byte[] bits = new byte[32];
+    private int totalBits;
+
+    /** Estado da codificação */
+    private int quantidade;
+    private long primeiroInstante;
+    private long ultimoInstante;
+    private long deltaAnterior;
+    private long valorAnterior;
+    private int zerosEsquerdaAnterior = -1;
+    private int zerosDireitaAnterior;
+
+    /**
+     * Acrescenta uma amostra ao bloco.
+     * Instantes devem ser não decrescentes.
+     *
+     * @param instante instante da leitura (ms)
+     * @param leitura valor da leitura
+     */
+    void adicionar(long instante, double leitura) {
+        long valor = Math.round(leitura * ESCALA);
+
+        if (quantidade == 0) {
+            escrever(instante, 64);
+            escrever(valor, 64);
+            primeiroInstante = instante;
+
+        } else {
+            long delta = instante - ultimoInstante;
+            escreverDeltaDoDelta(delta - deltaAnterior);
+            escreverXor(valor ^ valorAnterior);
+            deltaAnterior = delta;
+        }
+
+        ultimoInstante = instante;
+        valorAnterior = valor;
+        quantidade++;
+    }
+
+    /**
+     * Gera o bloco imutável com as amostras acumuladas.
+     *
+     * @return bloco comprimido
+     */
+    BlocoSerie fechar() {
+        return new BlocoSerie(primeiroInstante, ultimoInstante, quantidade,
+                Arrays.copyOf(bits, (totalBits + 7) / 8));
+    }
+
+    /** Quantidade de amostras no bloco. */
+    int getQuantidade() {
+        return quantidade;
+    }
+
+    /** Tamanho atual do bloco em bytes. */
+    int getTamanhoBytes() {
+        return (totalBits + 7) / 8;
+    }
+
+    // ===================== CODIFICAÇÃO =====================
+
+    /**
+     * Delta-of-delta: '0' para zero; '10', '110' e '1110' para valores que
+     * cabem em 7, 9 e 12 bits; '1111' seguido do valor em 64 bits.
+     */
+    private void escreverDeltaDoDelta(long dod) {
+        if (dod == 0) {
+            escrever(0b0, 1);
+        } else if (cabe(dod, 7)) {
+            escrever(0b10, 2);
+            escrever(dod, 7);
+        } else if (cabe(dod, 9)) {
+            escrever(0b110, 3);
+            escrever(dod, 9);
+        } else if (cabe(dod, 12)) {
+            escrever(0b1110, 4);
+            escrever(dod, 12);
+        } else {
+            escrever(0b1111, 4);
+            escrever(dod, 64);
+        }
+    }
+
+    /**
+     * XOR: '0' se a leitura não mudou; '10' seguido dos bits significativos
+     * quando cabem na janela anterior; '11' seguido de 6 bits de zeros à
+     * esquerda, 6 bits de tamanho e os bits significativos.
+     *
+     * O Gorilla original usa 5 bits para os zeros à esquerda, pensando em
+     * doubles; com leituras quantizadas o XOR tem quase sempre mais de 50
+     * zeros à esquerda, e limitar a 31 alargaria a janela sem necessidade.
+     */
+    private void escreverXor(long xor) {
+        if (xor == 0) {
+            escrever(0b0, 1);
+            return;
+        }
+
+        int esquerda = Long.numberOfLeadingZeros(xor);
+        int direita = Long.numberOfTrailingZeros(xor);
+
+        if (zerosEsquerdaAnterior >= 0
+                && esquerda >= zerosEsquerdaAnterior
+                && direita >= zerosDireitaAnterior) {
+            escrever(0b10, 2);
+            escrever(xor >>> zerosDireitaAnterior, 64 - zerosEsquerdaAnterior - zerosDireitaAnterior);
+            return;
+        }
+
+        int significativos = 64 - esquerda - direita;
+        escrever(0b11, 2);
+        escrever(esquerda, 6);
+        escrever(significativos - 1, 6);
+        escrever(xor >>> direita, significativos);
+
+        zerosEsquerdaAnterior = esquerda;
+        zerosDireitaAnterior = direita;
+    }
+
+    /** Indica se o valor com sinal cabe em n bits (complemento de dois). */
+    private static boolean cabe(long valor, int n) {
+        long limite = 1L << (n - 1);
+        return valor >= -limite && valor < limite;
+    }
+
+    /** Grava os n bits menos significativos do valor, do mais para o menos significativo. */
+    private void escrever(long valor, int n) {
+        if (totalBits + n > bits.length * 8L) {
+            bits = Arrays.copyOf(bits, Math.max(bits.length * 2, (totalBits + n) / 8 + 1));
+        }
+
+        for (int b = n - 1; b >= 0; b--) {
+            if (((valor >>> b) & 1L) != 0) {
+                bits[totalBits >>> 3] |= (byte) (0x80 >>> (totalBits & 7));
+            }
+            totalBits++;
+        }
+    }
+}
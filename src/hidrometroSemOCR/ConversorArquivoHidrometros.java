@@ -0,0 +1,45 @@
+package hidrometroSemOCR;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+
+import src.Configuracoes;
+
+/**
+ * Converte o arquivo texto de hidrômetros (e o seu log de alterações)
+ * para o formato binário de {@link PersistenciaBinariaHidrometros}.
+ *
+ * Uso: ConversorArquivoHidrometros [arquivoTexto] [arquivoBinario]
+ * Sem argumentos, usa NomeArquivoDeHidrometros e NomeArquivoBinarioHidrometros.
+ *
+ * O arquivo texto não é alterado; o log vazio que a carga cria
+ * (quando ainda não existia) é removido ao final.
+ */
+public class ConversorArquivoHidrometros {
+
+    public static void main(String[] args) throws IOException {
+        File texto = new File(args.length > 0 ? args[0]
+                : Configuracoes.getString("NomeArquivoDeHidrometros", "hidrometros.txt"));
+        File binario = new File(args.length > 1 ? args[1]
+                : Configuracoes.getString("NomeArquivoBinarioHidrometros", "hidrometros.dat"));
+
+        File log = new File(texto.getPath() + ".log"); //$NON-NLS-1$
+        boolean haviaLog = log.exists();
+
+        PersistenciaHidrometros origem = new PersistenciaLogHidrometros(texto);
+        Map<String, Double> leituras = origem.carregar();
+        origem.fechar();
+        if (!haviaLog) {
+            Files.deleteIfExists(log.toPath());
+        }
+
+        PersistenciaHidrometros destino = new PersistenciaBinariaHidrometros(binario);
+        destino.gravarEstado(leituras);
+        destino.fechar();
+
+        System.out.println(leituras.size() + " hidrômetros convertidos de "
+                + texto + " para " + binario + ".");
+    }
+}
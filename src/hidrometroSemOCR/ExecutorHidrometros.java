@@ -0,0 +1,88 @@
+package hidrometroSemOCR;
+
+/**
+ * Interface que define como os hidrômetros são colocados em execução.
+ *
+ * Implementa o padrão Strategy: o HidrometroDAO não sabe se cada
+ * hidrômetro ganha sua própria Thread ou se todos são conduzidos
+ * por um motor de simulação compartilhado. A escolha é feita pela
+ * chave ModoSimulacaoHidrometros do arquivo configuracoesSistema.properties:
+ *
+ * - THREADS  → modo legado, uma Thread de plataforma por hidrômetro
+ * - AGENDADO → motor com pool de threads do tamanho do número de núcleos (padrão)
+ * - VIRTUAL  → uma thread virtual por hidrômetro (Java 21+; caso contrário usa AGENDADO)
+ * - PREGUICOSO → leituras calculadas na consulta, sem passos periódicos
+ */
+public interface ExecutorHidrometros {
+
+    /** Modo legado: uma Thread por hidrômetro */
+    String MODO_THREADS = "THREADS";
+
+    /** Motor de simulação com pool agendado */
+    String MODO_AGENDADO = "AGENDADO";
+
+    /** Uma thread virtual por hidrômetro */
+    String MODO_VIRTUAL = "VIRTUAL";
+
+    /** Hidrômetros preguiçosos, com leitura calculada na consulta */
+    String MODO_PREGUICOSO = "PREGUICOSO";
+
+    /**
+     * Coloca o hidrômetro em execução.
+     *
+     * @param h hidrômetro a ser iniciado
+     */
+    void iniciar(Hidrometro h);
+
+    /**
+     * Interrompe a execução do hidrômetro.
+     *
+     * @param h hidrômetro a ser parado
+     */
+    void parar(Hidrometro h);
+
+    /**
+     * Retorna quantos hidrômetros estão em execução.
+     *
+     * @return quantidade de hidrômetros ativos
+     */
+    int getHidrometrosAtivos();
+
+    /**
+     * Retorna um resumo da execução para exibição no painel.
+     *
+     * @return texto com os números do executor
+     */
+    default String getResumo() {
+        return "Hidrômetros ativos: " + getHidrometrosAtivos();
+    }
+
+    /**
+     * Libera os recursos do executor (threads, agendadores).
+     */
+    void encerrar();
+
+    /**
+     * Cria o executor correspondente ao modo informado.
+     * Modos desconhecidos usam o motor agendado.
+     *
+     * @param modo valor da chave ModoSimulacaoHidrometros
+     * @return executor do modo escolhido
+     */
+    static ExecutorHidrometros criar(String modo) {
+        if (MODO_THREADS.equalsIgnoreCase(modo)) {
+            return new ExecutorThreadsDedicadas();
+        }
+        if (MODO_PREGUICOSO.equalsIgnoreCase(modo)) {
+            return new ExecutorPreguicoso();
+        }
+        if (MODO_VIRTUAL.equalsIgnoreCase(modo)) {
+            if (ExecutorThreadsVirtuais.disponivel()) {
+                return new ExecutorThreadsVirtuais();
+            }
+            System.out.println("Threads virtuais indisponíveis nesta JVM. Usando o modo "
+                    + MODO_AGENDADO + ".");
+        }
+        return new MotorSimulacaoHidrometros();
+    }
+}
@@ -0,0 +1,156 @@
+package hidrometroSemOCR;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import src.Configuracoes;
+import src.RelogioSimulacao;
+
+/**
+ * Executor de hidrômetros preguiçosos.
+ *
+ * Nenhum hidrômetro é acordado periodicamente: cada um guarda uma
+ * leitura base, um instante base e uma semente, e a leitura atual é
+ * calculada de forma determinística quando {@link Hidrometro#getLeituraAtual()}
+ * é chamado. O consumo por passo segue a mesma faixa da simulação
+ * real (0,001 a 0,009 m³ por intervalo).
+ *
+ * Só os hidrômetros próximos do limite máximo de leitura recebem um
+ * despertador, para que a virada e a notificação aos observers
+ * aconteçam na hora certa. A chave opcional HorizonteDespertarMs
+ * define quão perto do limite um hidrômetro precisa estar (padrão: 1 hora);
+ * uma varredura com essa mesma periodicidade agenda os próximos.
+ *
+ * Com isso o uso de CPU ocioso independe do tamanho da frota.
+ */
+public class ExecutorPreguicoso implements ExecutorHidrometros {
+
+    /** Horizonte padrão dos despertadores (ms) */
+    private static final long HORIZONTE_PADRAO = 60 * 60 * 1000L;
+
+    /** Período real da varredura quando o relógio está em velocidade máxima (ms) */
+    private static final long PERIODO_MAXIMA_VELOCIDADE = 100;
+
+    /** Agendador dos despertadores e da varredura periódica */
+    private final ScheduledThreadPoolExecutor agendador;
+
+    /** Relógio da simulação */
+    private final RelogioSimulacao relogio = RelogioSimulacao.getInstance();
+
+    /** Armazém colunar com o estado dos hidrômetros */
+    private final ArmazemHidrometros armazem = ArmazemHidrometros.getInstance();
+
+    /** Despertadores agendados (hidrômetro → tarefa) */
+    private final Map<Hidrometro, ScheduledFuture<?>> despertadores = new ConcurrentHashMap<>();
+
+    /** Distância máxima (ms simulados) até o limite para agendar um despertador */
+    private final long horizonte;
+
+    /**
+     * Cria o executor e agenda a varredura periódica de despertadores.
+     */
+    public ExecutorPreguicoso() {
+        horizonte = Configuracoes.getLong("HorizonteDespertarMs", HORIZONTE_PADRAO);
+
+        agendador = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "sha-despertador");
+            t.setDaemon(true);
+            return t;
+        });
+        agendador.setRemoveOnCancelPolicy(true);
+        long periodo = relogio.isMaximaVelocidade()
+                ? PERIODO_MAXIMA_VELOCIDADE
+                : Math.max(1, relogio.paraTempoReal(horizonte));
+        agendador.scheduleAtFixedRate(this::varrer, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void iniciar(Hidrometro h) {
+        h.iniciarPreguicoso(relogio.agoraMillis(), ThreadLocalRandom.current().nextLong());
+        agendarSeProximo(h);
+    }
+
+    @Override
+    public void parar(Hidrometro h) {
+        h.pararLeitura();
+
+        ScheduledFuture<?> despertador = despertadores.remove(h);
+        if (despertador != null) {
+            despertador.cancel(false);
+        }
+    }
+
+    @Override
+    public int getHidrometrosAtivos() {
+        return armazem.getQuantidadeRodando();
+    }
+
+    @Override
+    public String getResumo() {
+        return ExecutorHidrometros.super.getResumo()
+                + " | Despertadores agendados: " + despertadores.size();
+    }
+
+    @Override
+    public void encerrar() {
+        agendador.shutdownNow();
+        despertadores.clear();
+    }
+
+    /**
+     * Agenda um despertador para o hidrômetro se o limite máximo
+     * estiver dentro do horizonte configurado.
+     */
+    private void agendarSeProximo(Hidrometro h) {
+        if (!h.estaRodando() || despertadores.containsKey(h)) {
+            return;
+        }
+
+        long espera = h.instanteLimite() - relogio.agoraMillis();
+        // Em velocidade máxima não há como esperar: a varredura confere de tempos em tempos
+        if (espera > horizonte || (espera > 0 && relogio.isMaximaVelocidade())) {
+            return;
+        }
+
+        despertadores.put(h, agendador.schedule(() -> despertar(h),
+                relogio.paraTempoReal(Math.max(0, espera)), TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Executa a virada do limite e reagenda caso o instante tenha mudado
+     * (por exemplo, após uma alteração de intervalo ou de leitura).
+     */
+    private void despertar(Hidrometro h) {
+        despertadores.remove(h);
+        if (!h.estaRodando()) {
+            return;
+        }
+
+        h.virarLimite(relogio.agoraMillis());
+        agendarSeProximo(h);
+    }
+
+    /**
+     * Varre o armazém procurando hidrômetros preguiçosos que entraram
+     * no horizonte desde a última varredura.
+     */
+    private void varrer() {
+        try {
+            for (BlocoHidrometros bloco : armazem.getBlocos()) {
+                for (int i = 0; i < BlocoHidrometros.TAMANHO; i++) {
+                    Hidrometro h = bloco.visoes[i];
+                    if (h != null && bloco.estado(i) == BlocoHidrometros.PREGUICOSO) {
+                        agendarSeProximo(h);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // Uma exceção cancelaria a varredura periódica
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package hidrometroSemOCR;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor legado: cada hidrômetro roda em sua própria Thread,
+ * dormindo em {@link Hidrometro#run()} entre as leituras.
+ *
+ * Mantido para comparação com o motor de simulação agendado.
+ */
+public class ExecutorThreadsDedicadas implements ExecutorHidrometros {
+
+    /** Quantidade de hidrômetros com Thread ativa */
+    private final AtomicInteger ativos = new AtomicInteger();
+
+    @Override
+    public void iniciar(Hidrometro h) {
+        new Thread(h).start();
+        ativos.incrementAndGet();
+    }
+
+    @Override
+    public void parar(Hidrometro h) {
+        h.pararLeitura();
+        ativos.decrementAndGet();
+    }
+
+    @Override
+    public int getHidrometrosAtivos() {
+        return ativos.get();
+    }
+
+    @Override
+    public void encerrar() {
+        // As threads terminam sozinhas quando pararLeitura() é chamado
+    }
+}
@@ -0,0 +1,137 @@
+package hidrometroSemOCR;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor que roda o laço {@link Hidrometro#run()} de cada hidrômetro
+ * em uma thread virtual, em vez de uma Thread de plataforma.
+ *
+ * Threads virtuais não reservam uma pilha de 1 MB cada uma: enquanto
+ * o hidrômetro dorme entre as leituras, nenhuma thread portadora
+ * (carrier) fica ocupada. Isso permite simular centenas de milhares
+ * de hidrômetros com o mesmo código do modo legado.
+ *
+ * Threads virtuais existem a partir do Java 21. Como o projeto ainda
+ * compila com versões anteriores, o executor é obtido por reflexão;
+ * use {@link #disponivel()} antes de instanciar esta classe.
+ */
+public class ExecutorThreadsVirtuais implements ExecutorHidrometros {
+
+    /** Escalonador padrão das threads virtuais (java.lang.VirtualThread) */
+    private static final String CAMPO_ESCALONADOR = "DEFAULT_SCHEDULER";
+
+    /** Propriedade que define o paralelismo do escalonador */
+    private static final String PROPRIEDADE_PARALELISMO = "jdk.virtualThreadScheduler.parallelism";
+
+    /** Executor que cria uma thread virtual por tarefa */
+    private final ExecutorService virtuais;
+
+    /** Quantidade de hidrômetros com laço de leitura ativo */
+    private final AtomicInteger ativos = new AtomicInteger();
+
+    /**
+     * Pool de threads portadoras, se a JVM permitir o acesso
+     * (--add-opens java.base/java.lang=ALL-UNNAMED); senão null.
+     */
+    private final ForkJoinPool escalonador = localizarEscalonador();
+
+    /**
+     * Cria o executor de threads virtuais.
+     *
+     * @throws IllegalStateException se a JVM não suportar threads virtuais
+     */
+    public ExecutorThreadsVirtuais() {
+        try {
+            Method fabrica = java.util.concurrent.Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor");
+            virtuais = (ExecutorService) fabrica.invoke(null);
+
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Threads virtuais exigem Java 21 ou superior.", e);
+        }
+    }
+
+    /**
+     * Indica se a JVM atual oferece threads virtuais.
+     *
+     * @return true se for possível criar este executor
+     */
+    public static boolean disponivel() {
+        try {
+            java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void iniciar(Hidrometro h) {
+        ativos.incrementAndGet();
+        virtuais.execute(() -> {
+            try {
+                h.run();
+            } finally {
+                ativos.decrementAndGet();
+            }
+        });
+    }
+
+    @Override
+    public void parar(Hidrometro h) {
+        h.pararLeitura();
+    }
+
+    @Override
+    public int getHidrometrosAtivos() {
+        return ativos.get();
+    }
+
+    /**
+     * Retorna quantas threads portadoras o escalonador de threads
+     * virtuais mantém no momento. Sem acesso ao escalonador, retorna
+     * o paralelismo configurado (o número de portadoras em regime).
+     *
+     * Não percorre as threads da JVM: isso exigiria um safepoint e uma
+     * cópia da pilha de cada thread, caro com muitas threads virtuais.
+     *
+     * @return quantidade de threads portadoras
+     */
+    public int getThreadsPortadoras() {
+        if (escalonador != null) {
+            return escalonador.getPoolSize();
+        }
+        return Integer.getInteger(PROPRIEDADE_PARALELISMO, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Obtém, por reflexão, o ForkJoinPool que escalona as threads virtuais.
+     */
+    private static ForkJoinPool localizarEscalonador() {
+        try {
+            Field campo = Class.forName("java.lang.VirtualThread").getDeclaredField(CAMPO_ESCALONADOR);
+            campo.setAccessible(true);
+            Object escalonador = campo.get(null);
+            return escalonador instanceof ForkJoinPool ? (ForkJoinPool) escalonador : null;
+
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java sem threads virtuais ou java.lang não aberto para reflexão
+            return null;
+        }
+    }
+
+    @Override
+    public String getResumo() {
+        return ExecutorHidrometros.super.getResumo()
+                + " | Threads portadoras: " + getThreadsPortadoras();
+    }
+
+    @Override
+    public void encerrar() {
+        virtuais.shutdownNow();
+    }
+}
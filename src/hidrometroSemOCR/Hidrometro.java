@@ -1,52 +1,67 @@
 package hidrometroSemOCR;
 
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
 
+import metricas.EventoLimiteMaximo;
 import src.Messages;
+import src.RelogioSimulacao;
 
 /**
  * Classe que representa um Hidrômetro.
  *
  * Esta classe:
- * - Estende Thread para simular leituras periódicas
- * - Gera consumo automaticamente em intervalos fixos
+ * - É uma visão leve sobre uma posição do {@link ArmazemHidrometros};
+ *   leitura e intervalo ficam nas colunas do armazém
+ * - Gera consumo a cada chamada de {@link #avancarLeitura()}
+ * - Implementa Runnable para o modo legado (uma Thread por hidrômetro);
+ *   nos demais modos quem agenda as leituras é o ExecutorHidrometros
  * - Implementa o padrão Observer (customizado) para notificar
  *   quando o limite máximo de leitura é ultrapassado
  */
-public class Hidrometro extends Thread {
+public class Hidrometro implements Runnable {
 
     /** Limite máximo permitido para a leitura do hidrômetro */
-	private static final double LIMITE_MAX = 9_999_999.0;
+	public static final double LIMITE_MAX = 9_999_999.0;
+
+    /** Intervalo padrão entre leituras (ms) */
+    private static final long INTERVALO_PADRAO = 5000;
+
+    /** Relógio da simulação */
+    private static final RelogioSimulacao RELOGIO = RelogioSimulacao.getInstance();
+
+    /** Formatador de data/hora para exibição (imutável, compartilhado) */
+    private static final DateTimeFormatter FORMATTER =
+            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss"); //$NON-NLS-1$
 
     /** Identificador único do hidrômetro */
-	private String id;
+	private final String id;
 
-    /** Leitura atual do hidrômetro */
-    private double leituraAtual;
+    /** Armazém onde fica o estado do hidrômetro */
+    private final ArmazemHidrometros armazem;
 
-    /** Flag de controle da execução da Thread */
-    private volatile boolean rodando;
+    /** Posição global do hidrômetro no armazém */
+    private final int posicao;
 
-    /** Intervalo de tempo entre leituras (em milissegundos) */
-    private long intervalo = 5000;	
+    /** Bloco do armazém que contém o hidrômetro */
+    private final BlocoHidrometros bloco;
 
-    /** Gerador de números aleatórios para simular consumo */
-    private Random random;
+    /** Posição do hidrômetro dentro do bloco */
+    private final int indice;
 
-    /** Formatador de data/hora para exibição */
-    private DateTimeFormatter formatter;
+    /** Flag de controle da execução da Thread */
+    private volatile boolean rodando;
 
     // -------- LISTA DE OBSERVADORES --------
 
     /**
      * Lista de observadores interessados em eventos do hidrômetro,
      * como o estouro do limite máximo de leitura.
+     * Criada apenas quando o primeiro observador é registrado.
      */
-    private List<HidrometroObserver> observers = new ArrayList<>();
+    private volatile List<HidrometroObserver> observers;
 
     // ---------------------------------------
 
@@ -55,8 +70,7 @@ public class Hidrometro extends Thread {
      * Inicializa leitura com 0 e intervalo padrão de 5 segundos.
      */
     public Hidrometro() {
-        this(0.0, 5000);
-        this.id = String.format("%07d", random.nextInt(10000000)); //$NON-NLS-1$
+        this(0.0, INTERVALO_PADRAO);
     }
 
     /**
@@ -65,12 +79,7 @@ public class Hidrometro extends Thread {
      * @param leituraInicial valor inicial da leitura
      */
     public Hidrometro(double leituraInicial) {
-		this.leituraAtual = leituraInicial;
-		this.intervalo = 5000;
-		this.rodando = false;
-		this.random = new Random();
-		this.formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss"); //$NON-NLS-1$
-		this.id = String.format("%07d", random.nextInt(10000000)); //$NON-NLS-1$
+        this(leituraInicial, INTERVALO_PADRAO);
 	}
 
     /**
@@ -81,11 +90,7 @@ public class Hidrometro extends Thread {
      * @param leituraInicial leitura inicial
      */
     public Hidrometro(String id, double leituraInicial) {
-        this.leituraAtual = leituraInicial;
-        this.id = id;
-        this.rodando = false;
-        this.random = new Random();
-        this.formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss"); //$NON-NLS-1$
+        this(id, leituraInicial, INTERVALO_PADRAO);
     }
 
     /**
@@ -95,12 +100,24 @@ public class Hidrometro extends Thread {
      * @param intervalo intervalo entre leituras (ms)
      */
     public Hidrometro(double leituraInicial, long intervalo) {
-        this.leituraAtual = leituraInicial;
-        this.intervalo = intervalo;
+        this(String.format("%07d", ThreadLocalRandom.current().nextInt(10000000)), //$NON-NLS-1$
+                leituraInicial, intervalo);
+    }
+
+    /**
+     * Construtor completo: reserva a posição do hidrômetro no armazém.
+     *
+     * @param id identificador do hidrômetro
+     * @param leituraInicial leitura inicial
+     * @param intervalo intervalo entre leituras (ms)
+     */
+    private Hidrometro(String id, double leituraInicial, long intervalo) {
+        this.id = id;
         this.rodando = false;
-        this.random = new Random();
-        this.formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss"); //$NON-NLS-1$
-        this.id = String.format("%07d", random.nextInt(10000000)); //$NON-NLS-1$
+        this.armazem = ArmazemHidrometros.getInstance();
+        this.posicao = armazem.alocar(this, id, leituraInicial, intervalo);
+        this.bloco = armazem.getBloco(posicao);
+        this.indice = posicao % BlocoHidrometros.TAMANHO;
     }
 
     // -------- MÉTODOS DO OBSERVER ----------
@@ -110,7 +127,10 @@ public class Hidrometro extends Thread {
      *
      * @param o observador interessado nos eventos
      */
-    public void adicionarObserver(HidrometroObserver o) {
+    public synchronized void adicionarObserver(HidrometroObserver o) {
+        if (observers == null) {
+            observers = new CopyOnWriteArrayList<>();
+        }
         observers.add(o);
     }
 
@@ -119,18 +139,31 @@ public class Hidrometro extends Thread {
      *
      * @param o observador a ser removido
      */
-    public void removerObserver(HidrometroObserver o) {
-        observers.remove(o);
+    public synchronized void removerObserver(HidrometroObserver o) {
+        if (observers != null) {
+            observers.remove(o);
+        }
     }
 
     /**
      * Notifica todos os observadores quando o limite máximo
-     * de leitura é ultrapassado.
+     * de leitura é ultrapassado (e registra o evento JFR).
      *
      * @param leituraAnterior valor antes do estouro
      */
-    private void notificarLimite(double leituraAnterior) {
-        for (HidrometroObserver o : observers) {
+    void notificarLimite(double leituraAnterior) {
+        EventoLimiteMaximo jfr = new EventoLimiteMaximo();
+        if (jfr.shouldCommit()) {
+            jfr.hidrometro = id;
+            jfr.leituraAnterior = leituraAnterior;
+            jfr.commit();
+        }
+
+        List<HidrometroObserver> atuais = observers;
+        if (atuais == null) {
+            return;
+        }
+        for (HidrometroObserver o : atuais) {
             o.limiteUltrapassado(this, leituraAnterior);
         }
     }
@@ -138,7 +171,7 @@ public class Hidrometro extends Thread {
     // ----------------------------------------
 
     /**
-     * Método executado pela Thread.
+     * Método executado pela Thread (modo legado).
      *
      * Simula o funcionamento contínuo do hidrômetro,
      * gerando consumo periódico e verificando o limite máximo.
@@ -147,34 +180,99 @@ public class Hidrometro extends Thread {
     public void run() {
         rodando = true;
 
-        while (rodando) {
-            try {
-                Thread.sleep(intervalo);
+        try {
+            while (rodando) {
+                try {
+                    RELOGIO.dormir(getIntervalo());
 
-                if (rodando) {
-                    // Gera consumo aleatório
-                    double consumo = 0.001 + (random.nextDouble() * 0.009);
-                    double leituraAnterior = leituraAtual;
-
-                    leituraAtual += consumo;
-
-                    // ------- CHECAGEM DO LIMITE -------
-                    if (leituraAtual > LIMITE_MAX) {
-                        leituraAtual = 0.0;
-                        notificarLimite(leituraAnterior); // dispara evento!
+                    if (rodando) {
+                        avancarLeitura();
                     }
-                    // ----------------------------------
-                }
 
-            } catch (InterruptedException e) {
-                System.out.println(Messages.getString("Hidrometro.1")); //$NON-NLS-1$
-                rodando = false;
+                } catch (InterruptedException e) {
+                    System.out.println(Messages.getString("Hidrometro.1")); //$NON-NLS-1$
+                    rodando = false;
+                }
             }
+        } finally {
+            // Mesmo após um erro: o relógio de máxima velocidade espera as participantes
+            RELOGIO.sairDaSimulacao();
         }
 
         System.out.println(
             Messages.getString("Hidrometro.2") +
-            String.format("%.3f", leituraAtual)); //$NON-NLS-1$ //$NON-NLS-2$
+            String.format("%.3f", getLeituraAtual())); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * Executa um único passo de simulação:
+     * gera um consumo aleatório e verifica o limite máximo.
+     *
+     * Chamado pelo laço de {@link #run()} nos modos com uma thread
+     * por hidrômetro. O motor agendado avança o bloco inteiro de uma vez.
+     */
+    public synchronized void avancarLeitura() {
+        bloco.passo(indice, RELOGIO.agoraMillis(), ThreadLocalRandom.current());
+        armazem.contarPassos(1);
+    }
+
+    /**
+     * Coloca o hidrômetro sob controle do motor de simulação agendado.
+     *
+     * @param agora instante atual (ms)
+     */
+    void iniciarSimulacao(long agora) {
+        rodando = true;
+        armazem.iniciarSimulacao(bloco, indice, agora);
+    }
+
+    /**
+     * Coloca o hidrômetro no modo preguiçoso: a leitura deixa de ser
+     * avançada periodicamente e passa a ser calculada a cada consulta.
+     *
+     * @param agora instante atual (ms)
+     * @param semente semente do modelo de consumo
+     */
+    void iniciarPreguicoso(long agora, long semente) {
+        rodando = true;
+        armazem.iniciarPreguicoso(bloco, indice, agora, semente);
+    }
+
+    /**
+     * Retorna o instante (ms) em que um hidrômetro preguiçoso
+     * ultrapassará o limite máximo de leitura.
+     */
+    long instanteLimite() {
+        return bloco.instanteLimite(indice);
+    }
+
+    /**
+     * Executa a virada do limite de um hidrômetro preguiçoso,
+     * se o instante do limite já tiver sido atingido.
+     *
+     * @param agora instante atual (ms)
+     */
+    void virarLimite(long agora) {
+        bloco.virarLimite(indice, agora);
+    }
+
+    /**
+     * Libera a posição do hidrômetro no armazém.
+     * Chamado quando o hidrômetro é removido do sistema;
+     * o objeto não deve ser usado depois disso.
+     */
+    void liberar() {
+        rodando = false;
+        armazem.liberar(posicao);
+    }
+
+    /**
+     * Indica se o hidrômetro ainda ocupa sua posição no armazém
+     * (a posição pode ter sido liberada e reaproveitada).
+     * Deve ser chamado sob o lock do armazém.
+     */
+    boolean isAlocado() {
+        return bloco.estado(indice) != BlocoHidrometros.LIVRE && bloco.visoes[indice] == this;
     }
 
     /**
@@ -183,6 +281,7 @@ public class Hidrometro extends Thread {
      */
     public void pararLeitura() {
         rodando = false;
+        armazem.pararSimulacao(bloco, indice);
         System.out.println(Messages.getString("Hidrometro.3")); //$NON-NLS-1$
     }
 
@@ -201,16 +300,29 @@ public class Hidrometro extends Thread {
      * @return leitura atual
      */
     public double getLeituraAtual() {
-        return leituraAtual;
+        return bloco.leitura(indice, RELOGIO.agoraMillis());
     }
 
     /**
      * Atualiza manualmente a leitura do hidrômetro.
+     * Ignorado se o hidrômetro já foi removido: a posição pode ter
+     * sido reaproveitada por outro hidrômetro.
      *
      * @param novaLeitura novo valor da leitura
      */
-    public void setLeituraAtual(double novaLeitura) {
-        this.leituraAtual = novaLeitura;
+    public synchronized void setLeituraAtual(double novaLeitura) {
+        long agora = RELOGIO.agoraMillis();
+        synchronized (armazem) {
+            if (!isAlocado()) {
+                return;
+            }
+            synchronized (bloco) {
+                bloco.rebasear(indice, agora);
+                bloco.leituras[indice] = novaLeitura;
+            }
+            bloco.marcarSujo(indice);
+        }
+        armazem.notificarLeitura(this, agora, novaLeitura);
         System.out.println(
             Messages.getString("Hidrometro.4") +
             String.format("%.3f", novaLeitura)); //$NON-NLS-1$ //$NON-NLS-2$
@@ -222,7 +334,20 @@ public class Hidrometro extends Thread {
      * @param intervalo intervalo em milissegundos
      */
     public void setIntervalo(long intervalo) {
-        this.intervalo = intervalo;
+        synchronized (bloco) {
+            // No modo preguiçoso, o consumo até aqui segue o intervalo antigo
+            bloco.rebasear(indice, RELOGIO.agoraMillis());
+            bloco.intervalos[indice] = intervalo;
+        }
+    }
+
+    /**
+     * Retorna o intervalo entre leituras.
+     *
+     * @return intervalo em milissegundos
+     */
+    public long getIntervalo() {
+        return bloco.intervalos[indice];
     }
 
     /**
@@ -243,9 +368,9 @@ public class Hidrometro extends Thread {
     	String resposta = ""; //$NON-NLS-1$
 		resposta += (Messages.getString("Hidrometro.5") + id + " "); //$NON-NLS-1$ //$NON-NLS-2$
 		resposta += (Messages.getString("Hidrometro.6") +
-		             String.format("%.3f", leituraAtual) + " "); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		             String.format("%.3f", getLeituraAtual()) + " "); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 		resposta += (Messages.getString("Hidrometro.7") +
-		             LocalDateTime.now().format(formatter) + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		             RELOGIO.agora().format(FORMATTER) + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
 		return resposta;
 	}
 }
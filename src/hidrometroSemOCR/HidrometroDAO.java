@@ -1,16 +1,17 @@
 package hidrometroSemOCR;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import metricas.EventoPersistencia;
+import src.BarramentoEventos;
 import src.Configuracoes;
 import src.Evento;
 import src.Observer;
@@ -22,7 +23,8 @@ import src.Subject;
  * Esta classe:
  * - Implementa o padrão Singleton (instância única)
  * - Gerencia hidrômetros em memória
- * - Realiza persistência em arquivo texto
+ * - Realiza persistência em arquivo texto, registrando cada
+ *   alteração em um log e compactando-o no arquivo principal
  * - Implementa o padrão Observer (Subject),
  *   notificando outros módulos quando um hidrômetro é removido
  */
@@ -36,11 +38,29 @@ public class HidrometroDAO implements Subject {
     /** Arquivo onde os hidrômetros são persistidos */
     private final File arquivo;
 
-    /** Mapa em memória contendo os hidrômetros (ID → Hidrometro) */
-	private Map<String, Hidrometro> mapaHidrometros;
+    /** Estratégia de persistência (texto com log ou binário mapeado) */
+	private final PersistenciaHidrometros persistencia;
+
+    /** Checkpoint incremental das leituras alteradas */
+	private final CheckpointHidrometros checkpoint;
+
+    /** Publicador dos eventos LEITURA_ATUALIZADA */
+	private final PublicadorLeituras publicador;
+
+    /**
+     * Mapa em memória contendo os hidrômetros (ID → Hidrometro).
+     * Consultado sem lock por threads de apoio (OCR, gravação em lote).
+     */
+	private final Map<String, Hidrometro> mapaHidrometros = new ConcurrentHashMap<>();
 
     /** Lista de observers interessados em eventos do hidrômetro */
-	private List<Observer> observers = new ArrayList<>();
+	private final CopyOnWriteArrayList<Observer> observers = new CopyOnWriteArrayList<>();
+
+    /** Estratégia que coloca os hidrômetros em execução (Threads ou motor agendado) */
+	private final ExecutorHidrometros executor;
+
+    /** Histórico comprimido de leituras (null quando desativado) */
+	private final HistoricoLeituras historico;
 
     /**
      * Construtor privado.
@@ -50,7 +70,22 @@ public class HidrometroDAO implements Subject {
      */
     private HidrometroDAO(String caminhoArquivo) {
     	this.arquivo = new File(caminhoArquivo);
-    	mapaHidrometros = new HashMap<>();
+    	this.persistencia = PersistenciaHidrometros.criar(
+    			Configuracoes.getString("FormatoArquivoHidrometros",
+    					PersistenciaHidrometros.FORMATO_TEXTO),
+    			arquivo);
+    	this.checkpoint = new CheckpointHidrometros(persistencia);
+    	this.publicador = new PublicadorLeituras(this);
+    	executor = ExecutorHidrometros.criar(
+    			Configuracoes.getString("ModoSimulacaoHidrometros",
+    					ExecutorHidrometros.MODO_AGENDADO));
+
+    	if (Configuracoes.getString("HistoricoLeituras", "ATIVO").equalsIgnoreCase("ATIVO")) {
+    		historico = HistoricoLeituras.getInstance();
+    		ArmazemHidrometros.getInstance().adicionarObserver(historico);
+    	} else {
+    		historico = null;
+    	}
     }
 
     /**
@@ -72,100 +107,67 @@ public class HidrometroDAO implements Subject {
      * Útil principalmente para testes.
      */
     public static synchronized void resetInstance() {
+		if (instance != null) {
+			instance.checkpoint.encerrar();
+			instance.publicador.encerrar();
+			instance.persistencia.fechar();
+		}
 		instance = null;
 	}
 
     /**
      * Inicializa o sistema carregando os hidrômetros do arquivo
-     * e iniciando cada um em sua própria Thread.
+     * (snapshot mais o log de alterações) e colocando cada um em
+     * execução pelo executor configurado.
      */
     public void inicializarSistema() {
+    	EventoPersistencia jfr = new EventoPersistencia();
+    	jfr.begin();
     	try {
-			Map<String, Double> hidrometros = lerTodos();
+			Map<String, Double> hidrometros = persistencia.carregar();
 			for (Map.Entry<String, Double> entry : hidrometros.entrySet()) {
 				String id = entry.getKey();
 				double leitura = entry.getValue();
 				Hidrometro hidrometro = new Hidrometro(id, leitura);
-				new Thread(hidrometro).start();
+				executor.iniciar(hidrometro);
 				mapaHidrometros.put(id, hidrometro);
 			}
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+    	jfr.concluir("HIDROMETRO", "inicializarSistema", mapaHidrometros.size(), -1);
     }
 
     /**
-     * Salva ou atualiza a leitura de um hidrômetro no arquivo.
+     * Salva ou atualiza a leitura de um hidrômetro,
+     * acrescentando um registro ao log de alterações.
      *
      * @param id identificador do hidrômetro
      * @param leitura leitura atual
      * @throws IOException em caso de erro de escrita
      */
-    private synchronized void salvar(String id, double leitura) throws IOException {
-        Map<String, Double> dados = lerTodos();
-        dados.put(id, leitura);
-
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(arquivo))) {
-            for (Map.Entry<String, Double> entry : dados.entrySet()) {
-                writer.write(entry.getKey() + " - " + entry.getValue());
-                writer.newLine();
-            }
-        }
+    private void salvar(String id, double leitura) throws IOException {
+        persistencia.registrarLeitura(id, leitura);
     }
 
     /**
-     * Retorna a leitura de um hidrômetro específico.
+     * Retorna a leitura persistida de um hidrômetro específico.
      *
      * @param id identificador do hidrômetro
-     * @return leitura atual
+     * @return leitura persistida
      */
-    public synchronized Double lerPorId(String id) throws IOException {
-        return lerTodos().get(id);
+    public Double lerPorId(String id) throws IOException {
+        return persistencia.lerLeitura(id);
     }
 
     /**
-     * Lê todos os hidrômetros armazenados no arquivo.
-     *
-     * @return mapa contendo ID → leitura
-     */
-    private synchronized Map<String, Double> lerTodos() throws IOException {
-        Map<String, Double> dados = new HashMap<>();
-        File file = new File(arquivo.getName());
-
-        if (!file.exists()) {
-            return dados;
-        }
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String linha;
-            while ((linha = reader.readLine()) != null) {
-                String[] partes = linha.split("-");
-                if (partes.length == 2) {
-                    String id = partes[0].trim();
-                    double leitura = Double.parseDouble(partes[1].trim());
-                    dados.put(id, leitura);
-                }
-            }
-        }
-
-        return dados;
-    }
-
-    /**
-     * Remove um hidrômetro do arquivo.
+     * Remove um hidrômetro do arquivo,
+     * acrescentando um registro ao log de alterações.
      *
      * @param id identificador do hidrômetro
      */
-    public synchronized void remover(String id) throws IOException {
-        Map<String, Double> dados = lerTodos();
-        dados.remove(id);
-
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(arquivo))) {
-            for (Map.Entry<String, Double> entry : dados.entrySet()) {
-                writer.write(entry.getKey() + " - " + entry.getValue());
-                writer.newLine();
-            }
-        }
+    public void remover(String id) throws IOException {
+        persistencia.registrarRemocao(id);
     }
 
     /**
@@ -177,15 +179,16 @@ public class HidrometroDAO implements Subject {
 
     /**
      * Cria e adiciona um novo hidrômetro ao sistema.
-     * O hidrômetro é iniciado em uma nova Thread.
+     * O hidrômetro é iniciado pelo executor configurado.
      *
      * @param leituraInicial leitura inicial do hidrômetro
      */
 	public synchronized void adicionarHidrometro(Double leituraInicial) {
 		try {
 			Hidrometro hidrometro = new Hidrometro(leituraInicial);
-			new Thread(hidrometro).start();
+			executor.iniciar(hidrometro);
 			mapaHidrometros.put(hidrometro.getIdentificador(), hidrometro);
+			salvar(hidrometro.getIdentificador(), leituraInicial);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -208,16 +211,25 @@ public class HidrometroDAO implements Subject {
     /**
      * Remove um hidrômetro do sistema.
      *
-     * - Para a Thread do hidrômetro
+     * - Para a execução do hidrômetro
+     * - Libera sua posição no armazém colunar
      * - Remove do mapa em memória
      * - Notifica os observers (ex: ContaDAO)
      *
+     * Um ID sem hidrômetro não gera registro nem evento.
+     *
      * @param id identificador do hidrômetro
      */
 	public void removerHidrometro(String id) {
-		Hidrometro hidrometro = mapaHidrometros.get(id);
-		hidrometro.pararLeitura();
-		mapaHidrometros.remove(id);
+		if (!desativar(id)) {
+			return;
+		}
+
+		try {
+			remover(id);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 
 		// Notifica o sistema que o hidrômetro foi removido
 		notificarObservers(
@@ -226,18 +238,174 @@ public class HidrometroDAO implements Subject {
 	}
 
     /**
-     * Persiste o estado atual de todos os hidrômetros no arquivo.
+     * Remove vários hidrômetros em uma única operação
+     * (ex.: desativação de todos os hidrômetros de um bairro).
+     *
+     * As remoções são gravadas juntas e os observers recebem
+     * um único evento com todos os IDs removidos.
+     *
+     * @param ids identificadores dos hidrômetros
+     */
+	public void removerHidrometros(Collection<String> ids) {
+		List<String> removidos = new ArrayList<>();
+		for (String id : ids) {
+			if (desativar(id)) {
+				removidos.add(id);
+			}
+		}
+		if (removidos.isEmpty()) {
+			return;
+		}
+
+		try {
+			persistencia.registrarRemocoes(removidos);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		notificarObservers(
+		    new Evento(Evento.Tipo.HIDROMETRO_REMOVIDO, removidos)
+		);
+	}
+
+    /**
+     * Para a execução do hidrômetro, libera sua posição no armazém
+     * colunar e o retira do mapa em memória.
+     *
+     * @return true se o hidrômetro existia
+     */
+	private boolean desativar(String id) {
+		// Retira do mapa antes de liberar: quem ainda buscar o ID não
+		// recebe uma visão cuja posição pode ser reaproveitada
+		Hidrometro hidrometro = mapaHidrometros.remove(id);
+		if (hidrometro == null) {
+			return false;
+		}
+
+		executor.parar(hidrometro);
+		hidrometro.liberar();
+		if (historico != null) {
+			historico.remover(id);
+		}
+		return true;
+	}
+
+    /**
+     * Atualiza manualmente a leitura de um hidrômetro e registra a alteração.
+     * IDs sem hidrômetro são ignorados.
+     *
+     * @param id identificador do hidrômetro
+     * @param leitura nova leitura
+     */
+	public void atualizarLeitura(String id, double leitura) {
+		Hidrometro hidrometro = mapaHidrometros.get(id);
+		if (hidrometro == null) {
+			return;
+		}
+		hidrometro.setLeituraAtual(leitura);
+
+		try {
+			salvar(id, leitura);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+    /**
+     * Atualiza a leitura de vários hidrômetros em uma única operação
+     * (ex.: leituras por foto processadas em lote).
+     *
+     * As leituras são gravadas juntas; IDs sem hidrômetro são ignorados.
+     *
+     * @param leituras mapa ID → nova leitura
+     * @return quantidade de hidrômetros atualizados
+     */
+	public int atualizarLeituras(Map<String, Double> leituras) {
+		Map<String, Double> atualizadas = new HashMap<>();
+		for (Map.Entry<String, Double> entry : leituras.entrySet()) {
+			Hidrometro hidrometro = mapaHidrometros.get(entry.getKey());
+			if (hidrometro != null) {
+				hidrometro.setLeituraAtual(entry.getValue());
+				atualizadas.put(entry.getKey(), entry.getValue());
+			}
+		}
+
+		try {
+			persistencia.registrarLeituras(atualizadas);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return atualizadas.size();
+	}
+
+    /**
+     * Persiste o estado atual dos hidrômetros.
+     *
+     * Executa um checkpoint incremental: apenas as leituras alteradas
+     * desde o último checkpoint são gravadas, então o logout não
+     * depende do tamanho da frota. Antes, publica as leituras
+     * alteradas na última janela, para que as contas sejam salvas
+     * com a leitura mais recente.
      */
 	public void salvarEstadoHidrometros() {
-        try (FileWriter fw = new FileWriter(arquivo.getName(), false)) {
-			List<Hidrometro> lista = getHidrometros();
-            for (Hidrometro u : lista) {
-                String linha = u.getIdentificador() + "-" + u.getLeituraAtual();
-                fw.write(linha + System.lineSeparator());
-            }
+		EventoPersistencia jfr = new EventoPersistencia();
+		jfr.begin();
+		long bytesAntes = checkpoint.getBytesGravados();
+		int gravados = 0;
+
+		ArmazemHidrometros.getInstance().marcarPreguicososSujos();
+		publicador.publicar();
+
+        try {
+			gravados = checkpoint.executar();
         } catch (IOException e) {
 			e.printStackTrace();
 		}
+
+        if (historico != null) {
+        	historico.descarregar();
+        }
+		jfr.concluir("HIDROMETRO", "salvarEstadoHidrometros", gravados,
+				checkpoint.getBytesGravados() - bytesAntes);
+	}
+
+    /**
+     * Retorna as leituras registradas de um hidrômetro em um intervalo de tempo.
+     *
+     * @param id identificador do hidrômetro
+     * @param de início do intervalo (ms)
+     * @param ate fim do intervalo (ms)
+     * @return leituras em ordem de tempo (vazia se o histórico estiver desativado)
+     * @throws IOException em caso de erro ao ler o histórico
+     */
+	public List<AmostraLeitura> consultarHistorico(String id, long de, long ate) throws IOException {
+		if (historico == null) {
+			return new ArrayList<>();
+		}
+		return historico.consultar(id, de, ate);
+	}
+
+    /**
+     * Registra um observer que recebe cada nova leitura dos hidrômetros.
+     *
+     * @param observer observer de leituras
+     */
+	public void adicionarObserverLeitura(LeituraObserver observer) {
+		ArmazemHidrometros.getInstance().adicionarObserver(observer);
+	}
+
+    /**
+     * Retorna o checkpoint incremental dos hidrômetros.
+     */
+	public CheckpointHidrometros getCheckpoint() {
+		return checkpoint;
+	}
+
+    /**
+     * Retorna o executor responsável pela simulação dos hidrômetros.
+     */
+	public ExecutorHidrometros getExecutor() {
+		return executor;
 	}
 
     /**
@@ -254,8 +422,8 @@ public class HidrometroDAO implements Subject {
      */
 	@Override
 	public void adicionarObserver(Observer o) {
-	    if (o != null && !observers.contains(o)) {
-	        observers.add(o);
+	    if (o != null) {
+	        observers.addIfAbsent(o);
 	    }
 	}
 
@@ -274,8 +442,6 @@ public class HidrometroDAO implements Subject {
      */
 	@Override
 	public void notificarObservers(Evento evento) {
-	    for (Observer o : observers) {
-	        o.atualizar(evento);
-	    }
+	    BarramentoEventos.getInstance().publicar(evento, observers);
 	}
 }
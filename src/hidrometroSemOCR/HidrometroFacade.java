@@ -1,5 +1,7 @@
 package hidrometroSemOCR;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -91,6 +93,59 @@ public class HidrometroFacade {
 		hidrometroDao.removerHidrometro(id);
 	}
 
+	/**
+	 * Retorna um resumo da execução dos hidrômetros
+	 * (hidrômetros ativos e threads utilizadas).
+	 *
+	 * @return texto para exibição no painel
+	 */
+	public String getResumoExecucao() {
+		return hidrometroDao.getExecutor().getResumo();
+	}
+
+	/**
+	 * Retorna um resumo do checkpoint das leituras
+	 * (último checkpoint e bytes gravados).
+	 *
+	 * @return texto para exibição no painel
+	 */
+	public String getResumoCheckpoint() {
+		return hidrometroDao.getCheckpoint().getResumo();
+	}
+
+	/**
+	 * Consulta o histórico de leituras de um hidrômetro.
+	 *
+	 * @param id identificador do hidrômetro
+	 * @param de início do intervalo (ms)
+	 * @param ate fim do intervalo (ms)
+	 * @return leituras em ordem de tempo
+	 * @throws IOException em caso de erro ao ler o histórico
+	 */
+	public List<AmostraLeitura> consultarHistorico(String id, long de, long ate) throws IOException {
+		return hidrometroDao.consultarHistorico(id, de, ate);
+	}
+
+	/**
+	 * Remove vários hidrômetros em uma única operação.
+	 * As contas associadas são removidas por um único evento em lote.
+	 *
+	 * @param ids identificadores dos hidrômetros
+	 */
+	public void removerHidrometros(Collection<String> ids) {
+		hidrometroDao.removerHidrometros(ids);
+	}
+
+	/**
+	 * Atualiza manualmente a leitura de um hidrômetro.
+	 *
+	 * @param idHidrometro identificador do hidrômetro
+	 * @param leitura nova leitura
+	 */
+	public void atualizarLeitura(String idHidrometro, double leitura) {
+		hidrometroDao.atualizarLeitura(idHidrometro, leitura);
+	}
+
 	/**
 	 * Finaliza a sessão do sistema de hidrômetros,
 	 * salvando o estado atual em arquivo.
@@ -0,0 +1,507 @@
+package hidrometroSemOCR;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import src.Configuracoes;
+
+/**
+ * Histórico de leituras dos hidrômetros — Singleton
+ *
+ * Armazena, apenas por acréscimo, as amostras (instante, leitura) de cada
+ * hidrômetro, comprimidas no estilo Gorilla (delta-of-delta nos instantes
+ * e XOR nas leituras). Registrado como {@link LeituraObserver} no
+ * {@link ArmazemHidrometros}, recebe cada passo de simulação.
+ *
+ * Cada hidrômetro mantém poucos blocos em memória; os mais antigos são
+ * gravados, por uma única thread de gravação, em segmentos compartilhados
+ * no diretório DiretorioHistorico (padrão: historico). Ao fechar um
+ * segmento, os deslocamentos dos seus blocos por hidrômetro são gravados
+ * em um {@link IndiceSegmento} ao lado dele; a memória guarda apenas o
+ * intervalo de tempo de cada segmento e os blocos do segmento aberto.
+ * Uma consulta por hidrômetro e intervalo salta direto para os blocos
+ * daquele hidrômetro, sem percorrer os dos demais nem descomprimir blocos
+ * fora do intervalo.
+ *
+ * Segmentos de execuções anteriores sem índice (ex.: queda do sistema)
+ * são indexados na primeira consulta, até o último registro completo.
+ *
+ * Configurações opcionais:
+ * - HistoricoLeituras=ATIVO|DESATIVADO
+ * - AmostrasPorBlocoHistorico (padrão: 720, uma hora a cada 5 s)
+ * - BlocosEmMemoriaHistorico (padrão: 2)
+ * - TamanhoSegmentoHistoricoMB (padrão: 64)
+ */
+public class HistoricoLeituras implements LeituraObserver {
+
+    /** Instância única do histórico */
+    private static HistoricoLeituras instance;
+
+    /** Diretório dos segmentos */
+    private final File diretorio;
+
+    /** Séries por hidrômetro (ID → série) */
+    private final Map<String, SerieLeituras> series = new ConcurrentHashMap<>();
+
+    private final int amostrasPorBloco;
+    private final int blocosEmMemoria;
+    private final long tamanhoMaximoSegmento;
+
+    /** Segmento que recebe os novos blocos */
+    private RandomAccessFile segmentoAtual;
+    private int numeroSegmentoAtual;
+
+    /**
+     * Faixa dos segmentos (número → {início, fim, tamanho gravado}).
+     * Os de execuções anteriores são indexados na primeira consulta.
+     */
+    private final TreeMap<Integer, long[]> segmentos = new TreeMap<>();
+
+    /** Blocos do segmento aberto (ID → {início, fim, deslocamento}), até ele ser fechado */
+    private final Map<String, List<long[]>> blocosSegmentoAtual = new HashMap<>();
+    private final List<Integer> segmentosAntigos = new ArrayList<>();
+    private boolean antigosIndexados;
+
+    /** Thread única que grava os blocos despejados pelas séries */
+    private final ExecutorService gravador = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "sha-historico");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Estatísticas dos blocos fechados */
+    private final AtomicLong amostrasComprimidas = new AtomicLong();
+    private final AtomicLong bytesComprimidos = new AtomicLong();
+
+    /**
+     * Construtor privado (Singleton).
+     */
+    private HistoricoLeituras() {
+        diretorio = new File(Configuracoes.getString("DiretorioHistorico", "historico"));
+        amostrasPorBloco = (int) Configuracoes.getLong("AmostrasPorBlocoHistorico", 720);
+        blocosEmMemoria = (int) Configuracoes.getLong("BlocosEmMemoriaHistorico", 2);
+        tamanhoMaximoSegmento = Configuracoes.getLong("TamanhoSegmentoHistoricoMB", 64) << 20;
+
+        diretorio.mkdirs();
+        String[] nomes = diretorio.list();
+        if (nomes != null) {
+            for (String nome : nomes) {
+                if (nome.startsWith("segmento-") && nome.endsWith(".dat")) {
+                    int numero = Integer.parseInt(nome.substring(9, nome.length() - 4));
+                    segmentosAntigos.add(numero);
+                    numeroSegmentoAtual = Math.max(numeroSegmentoAtual, numero);
+                }
+            }
+        }
+        segmentosAntigos.sort(null);
+    }
+
+    /**
+     * Retorna a instância única do histórico.
+     *
+     * @return instância singleton
+     */
+    public static synchronized HistoricoLeituras getInstance() {
+        if (instance == null) {
+            instance = new HistoricoLeituras();
+        }
+        return instance;
+    }
+
+    // ===================== API PÚBLICA =====================
+
+    @Override
+    public void leituraAtualizada(Hidrometro h, long instante, double leitura) {
+        serie(h.getIdentificador()).adicionar(instante, leitura);
+    }
+
+    /**
+     * Retorna as leituras de um hidrômetro em um intervalo de tempo.
+     *
+     * @param id identificador do hidrômetro
+     * @param de início do intervalo (ms, inclusivo)
+     * @param ate fim do intervalo (ms, inclusivo)
+     * @return amostras em ordem de tempo (vazia se não houver histórico)
+     * @throws IOException em caso de erro ao ler os segmentos
+     */
+    public List<AmostraLeitura> consultar(String id, long de, long ate) throws IOException {
+        indexarSegmentosAntigos();
+
+        // Memória antes do disco: um bloco gravado entre os dois passos
+        // aparece nos dois lugares e é descartado pelo instante inicial
+        List<BlocoSerie> blocos = new ArrayList<>();
+        SerieLeituras serie = series.get(id);
+        if (serie != null) {
+            blocos.addAll(serie.blocosEmMemoria(de, ate));
+        }
+        Set<Long> inicios = new HashSet<>();
+        for (BlocoSerie bloco : blocos) {
+            inicios.add(bloco.inicio);
+        }
+
+        // Deslocamentos por segmento; null = buscar no índice do segmento fechado
+        Map<Integer, List<Long>> candidatos = new TreeMap<>();
+        Map<Integer, Long> tamanhos = new HashMap<>();
+        synchronized (this) {
+            for (Map.Entry<Integer, long[]> e : segmentos.entrySet()) {
+                long[] faixa = e.getValue();
+                if (faixa[0] > ate || faixa[1] < de) {
+                    continue;
+                }
+                tamanhos.put(e.getKey(), faixa[2]);
+                if (segmentoAtual != null && e.getKey() == numeroSegmentoAtual) {
+                    candidatos.put(e.getKey(), deslocamentosAbertos(id, de, ate));
+                } else {
+                    candidatos.put(e.getKey(), null);
+                }
+            }
+        }
+
+        // Leitura de disco fora do lock, para não atrasar a gravação
+        for (Map.Entry<Integer, List<Long>> e : candidatos.entrySet()) {
+            int numero = e.getKey();
+            List<Long> deslocamentos = e.getValue();
+            if (deslocamentos == null) {
+                File indice = arquivoIndice(numero);
+                if (!indice.exists()) {
+                    // Índice não gravado (erro ao fechar o segmento): percorre os cabeçalhos
+                    lerBlocos(numero, tamanhos.get(numero), id, de, ate, inicios, blocos);
+                    continue;
+                }
+                deslocamentos = IndiceSegmento.buscar(indice, id, de, ate);
+            }
+            lerBlocos(numero, deslocamentos, inicios, blocos);
+        }
+        blocos.sort((a, b) -> Long.compare(a.inicio, b.inicio));
+
+        List<AmostraLeitura> amostras = new ArrayList<>();
+        for (BlocoSerie bloco : blocos) {
+            bloco.decodificar(de, ate, amostras);
+        }
+        return amostras;
+    }
+
+    /**
+     * Grava em disco os blocos em memória de um hidrômetro removido e
+     * descarta a sua série. O histórico gravado continua consultável.
+     *
+     * @param id identificador do hidrômetro
+     */
+    public void remover(String id) {
+        SerieLeituras serie = series.remove(id);
+        if (serie != null) {
+            serie.descarregar();
+        }
+    }
+
+    /**
+     * Grava em disco todos os blocos ainda em memória e aguarda a
+     * thread de gravação. Chamado ao salvar o estado dos hidrômetros.
+     */
+    public void descarregar() {
+        for (SerieLeituras serie : series.values()) {
+            serie.descarregar();
+        }
+        try {
+            gravador.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Retorna a média de bytes por amostra nos blocos já fechados.
+     *
+     * @return bytes por amostra (0 se ainda não houver blocos)
+     */
+    public double getBytesPorAmostra() {
+        long amostras = amostrasComprimidas.get();
+        return amostras == 0 ? 0.0 : (double) bytesComprimidos.get() / amostras;
+    }
+
+    // ===================== USO INTERNO =====================
+
+    int getAmostrasPorBloco() {
+        return amostrasPorBloco;
+    }
+
+    int getBlocosEmMemoria() {
+        return blocosEmMemoria;
+    }
+
+    /** Registra as estatísticas de um bloco recém-fechado. */
+    void contabilizar(BlocoSerie bloco) {
+        amostrasComprimidas.addAndGet(bloco.quantidade);
+        bytesComprimidos.addAndGet(bloco.dados.length);
+    }
+
+    private SerieLeituras serie(String id) {
+        SerieLeituras serie = series.get(id);
+        if (serie == null) {
+            serie = series.computeIfAbsent(id, chave -> new SerieLeituras(chave, this));
+        }
+        return serie;
+    }
+
+    /**
+     * Entrega um bloco à thread de gravação. Não bloqueia: a série mantém
+     * o bloco em memória até {@link SerieLeituras#gravado} ser chamado.
+     */
+    void despejar(SerieLeituras serie, BlocoSerie bloco) {
+        gravador.execute(() -> {
+            try {
+                gravarBloco(serie.getId(), bloco);
+            } catch (IOException e) {
+                // Sem disco, o bloco é perdido; a simulação continua
+                e.printStackTrace();
+            } finally {
+                serie.gravado(bloco);
+            }
+        });
+    }
+
+    /**
+     * Acrescenta um bloco ao segmento atual e atualiza o índice.
+     *
+     * Formato do registro: ID (UTF), início, fim, quantidade,
+     * tamanho dos dados e os dados comprimidos.
+     */
+    private synchronized void gravarBloco(String id, BlocoSerie bloco) throws IOException {
+        if (segmentoAtual == null || segmentoAtual.length() >= tamanhoMaximoSegmento) {
+            abrirNovoSegmento();
+        }
+
+        long deslocamento = segmentoAtual.length();
+        segmentoAtual.seek(deslocamento);
+        segmentoAtual.writeUTF(id);
+        segmentoAtual.writeLong(bloco.inicio);
+        segmentoAtual.writeLong(bloco.fim);
+        segmentoAtual.writeInt(bloco.quantidade);
+        segmentoAtual.writeInt(bloco.dados.length);
+        segmentoAtual.write(bloco.dados);
+
+        indexar(numeroSegmentoAtual, bloco.inicio, bloco.fim, segmentoAtual.getFilePointer());
+        blocosSegmentoAtual.computeIfAbsent(id, k -> new ArrayList<>())
+                .add(new long[] { bloco.inicio, bloco.fim, deslocamento });
+    }
+
+    /** Deslocamentos dos blocos de um hidrômetro no segmento aberto. Chamado com o lock */
+    private List<Long> deslocamentosAbertos(String id, long de, long ate) {
+        List<Long> deslocamentos = new ArrayList<>();
+        List<long[]> blocos = blocosSegmentoAtual.get(id);
+        if (blocos != null) {
+            for (long[] b : blocos) {
+                if (b[0] <= ate && b[1] >= de) {
+                    deslocamentos.add(b[2]);
+                }
+            }
+        }
+        return deslocamentos;
+    }
+
+    /**
+     * Lê os blocos nos deslocamentos informados, exceto os que já estão em memória.
+     */
+    private void lerBlocos(int numero, List<Long> deslocamentos, Set<Long> emMemoria,
+            List<BlocoSerie> blocos) throws IOException {
+        if (deslocamentos.isEmpty()) {
+            return;
+        }
+        try (RandomAccessFile segmento = new RandomAccessFile(arquivoSegmento(numero), "r")) {
+            for (long deslocamento : deslocamentos) {
+                segmento.seek(deslocamento);
+                segmento.readUTF();
+                long inicio = segmento.readLong();
+                long fim = segmento.readLong();
+                int quantidade = segmento.readInt();
+                byte[] dados = new byte[segmento.readInt()];
+                if (emMemoria.contains(inicio)) {
+                    continue;
+                }
+                segmento.readFully(dados);
+                blocos.add(new BlocoSerie(inicio, fim, quantidade, dados));
+            }
+        }
+    }
+
+    /** Amplia a faixa de tempo de um segmento e registra seu tamanho. */
+    private void indexar(int numero, long inicio, long fim, long tamanho) {
+        long[] faixa = segmentos.get(numero);
+        if (faixa == null) {
+            segmentos.put(numero, new long[] { inicio, fim, tamanho });
+        } else {
+            faixa[0] = Math.min(faixa[0], inicio);
+            faixa[1] = Math.max(faixa[1], fim);
+            faixa[2] = tamanho;
+        }
+    }
+
+    /**
+     * Percorre os cabeçalhos de um segmento até {@code tamanho} bytes e
+     * lê apenas os blocos do hidrômetro que se sobrepõem ao intervalo,
+     * exceto os que já estão em memória.
+     */
+    private void lerBlocos(int numero, long tamanho, String id, long de, long ate,
+            Set<Long> emMemoria, List<BlocoSerie> blocos) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(arquivoSegmento(numero))))) {
+            long deslocamento = 0;
+
+            while (deslocamento < tamanho) {
+                String idBloco = in.readUTF();
+                long inicio = in.readLong();
+                long fim = in.readLong();
+                int quantidade = in.readInt();
+                int tamanhoDados = in.readInt();
+
+                if (idBloco.equals(id) && inicio <= ate && fim >= de && !emMemoria.contains(inicio)) {
+                    byte[] dados = new byte[tamanhoDados];
+                    in.readFully(dados);
+                    blocos.add(new BlocoSerie(inicio, fim, quantidade, dados));
+                } else {
+                    in.skipNBytes(tamanhoDados);
+                }
+                deslocamento += tamanhoCabecalho(idBloco) + tamanhoDados;
+            }
+        }
+    }
+
+    private void abrirNovoSegmento() throws IOException {
+        if (segmentoAtual != null) {
+            fecharSegmento();
+        }
+        numeroSegmentoAtual++;
+        segmentoAtual = new RandomAccessFile(arquivoSegmento(numeroSegmentoAtual), "rw");
+    }
+
+    /**
+     * Fecha o segmento atual e grava o seu índice. Sem índice (erro de
+     * escrita), as consultas percorrem os cabeçalhos do segmento.
+     */
+    private void fecharSegmento() throws IOException {
+        long tamanho = segmentoAtual.length();
+        segmentoAtual.close();
+        segmentoAtual = null;
+        try {
+            IndiceSegmento.gravar(arquivoIndice(numeroSegmentoAtual), blocosSegmentoAtual, tamanho);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        blocosSegmentoAtual.clear();
+    }
+
+    private File arquivoSegmento(int numero) {
+        return new File(diretorio, String.format("segmento-%05d.dat", numero));
+    }
+
+    private File arquivoIndice(int numero) {
+        return new File(diretorio, String.format("segmento-%05d.idx", numero));
+    }
+
+    /**
+     * Registra a faixa de tempo e o tamanho dos segmentos de execuções
+     * anteriores, lendo o cabeçalho do seu índice ou, sem índice,
+     * percorrendo o segmento e gravando o índice que faltava.
+     */
+    private synchronized void indexarSegmentosAntigos() throws IOException {
+        if (antigosIndexados) {
+            return;
+        }
+
+        for (int numero : segmentosAntigos) {
+            File indice = arquivoIndice(numero);
+            if (indice.exists()) {
+                IndiceSegmento cabecalho = IndiceSegmento.lerCabecalho(indice);
+                indexar(numero, cabecalho.inicio, cabecalho.fim, cabecalho.tamanho);
+                continue;
+            }
+
+            Map<String, List<long[]>> blocos = new HashMap<>();
+            long tamanho = percorrerSegmento(numero, blocos);
+            if (blocos.isEmpty()) {
+                continue;
+            }
+            for (List<long[]> lista : blocos.values()) {
+                for (long[] b : lista) {
+                    indexar(numero, b[0], b[1], tamanho);
+                }
+            }
+            try {
+                IndiceSegmento.gravar(indice, blocos, tamanho);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        antigosIndexados = true;
+    }
+
+    /**
+     * Percorre os cabeçalhos de um segmento sem índice, até o último
+     * registro completo (um registro cortado por uma queda durante a
+     * gravação é ignorado).
+     *
+     * @param blocos recebe os blocos de cada hidrômetro (ID → {início, fim, deslocamento})
+     * @return tamanho coberto pelos registros completos
+     */
+    private long percorrerSegmento(int numero, Map<String, List<long[]>> blocos) throws IOException {
+        File arquivo = arquivoSegmento(numero);
+        long tamanhoArquivo = arquivo.length();
+        long deslocamento = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(arquivo)))) {
+            while (true) {
+                String id;
+                long inicio;
+                long fim;
+                int tamanho;
+                try {
+                    id = in.readUTF();
+                    inicio = in.readLong();
+                    fim = in.readLong();
+                    in.readInt();
+                    tamanho = in.readInt();
+                } catch (EOFException registroIncompleto) {
+                    break;
+                }
+                long proximo = deslocamento + tamanhoCabecalho(id) + tamanho;
+                if (tamanho < 0 || proximo > tamanhoArquivo) {
+                    break;
+                }
+                in.skipNBytes(tamanho);
+
+                blocos.computeIfAbsent(id, k -> new ArrayList<>())
+                        .add(new long[] { inicio, fim, deslocamento });
+                deslocamento = proximo;
+            }
+        }
+        return deslocamento;
+    }
+
+    /** Tamanho em bytes do cabeçalho de um registro de segmento. */
+    private static int tamanhoCabecalho(String id) throws IOException {
+        DataOutputStream contador = new DataOutputStream(java.io.OutputStream.nullOutputStream());
+        contador.writeUTF(id);
+        return contador.size() + 8 + 8 + 4 + 4;
+    }
+}
@@ -0,0 +1,157 @@
+package hidrometroSemOCR;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice de um segmento do {@link HistoricoLeituras}, gravado ao lado
+ * dele (segmento-NNNNN.idx) quando o segmento é fechado.
+ *
+ * As entradas (ID, início, fim e deslocamento de cada bloco) ficam
+ * agrupadas em baldes pelo hash do ID. Uma consulta lê o cabeçalho,
+ * salta para o balde do hidrômetro e depois direto para os seus blocos
+ * no segmento, sem percorrer os blocos dos demais hidrômetros.
+ *
+ * Formato: início, fim e tamanho do segmento (long), quantidade de
+ * baldes (int), posição de cada balde no arquivo (long) e, em cada
+ * balde, a quantidade de entradas (int) seguida das entradas
+ * (ID em UTF, início, fim, deslocamento).
+ */
+final class IndiceSegmento {
+
+    /** Bytes do cabeçalho antes da tabela de baldes */
+    private static final int CABECALHO = 8 + 8 + 8 + 4;
+
+    /** Intervalo de tempo e tamanho do segmento */
+    final long inicio;
+    final long fim;
+    final long tamanho;
+
+    private IndiceSegmento(long inicio, long fim, long tamanho) {
+        this.inicio = inicio;
+        this.fim = fim;
+        this.tamanho = tamanho;
+    }
+
+    /**
+     * Grava o índice de um segmento (em arquivo temporário, depois renomeado).
+     *
+     * @param arquivo arquivo do índice
+     * @param blocos blocos de cada hidrômetro (ID → {início, fim, deslocamento})
+     * @param tamanho tamanho do segmento coberto pelo índice
+     */
+    static void gravar(File arquivo, Map<String, List<long[]>> blocos, long tamanho) throws IOException {
+        int quantidadeBaldes = Math.max(1, blocos.size());
+        List<List<Map.Entry<String, List<long[]>>>> baldes = new ArrayList<>();
+        for (int b = 0; b < quantidadeBaldes; b++) {
+            baldes.add(new ArrayList<>());
+        }
+
+        long inicio = Long.MAX_VALUE;
+        long fim = Long.MIN_VALUE;
+        for (Map.Entry<String, List<long[]>> e : blocos.entrySet()) {
+            baldes.get(balde(e.getKey(), quantidadeBaldes)).add(e);
+            for (long[] bloco : e.getValue()) {
+                inicio = Math.min(inicio, bloco[0]);
+                fim = Math.max(fim, bloco[1]);
+            }
+        }
+
+        // Primeiro os baldes, medindo a posição de cada um; a tabela vem antes deles
+        File temporario = new File(arquivo.getPath() + ".tmp"); //$NON-NLS-1$
+        long[] posicoes = new long[quantidadeBaldes];
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(temporario)))) {
+            out.writeLong(inicio);
+            out.writeLong(fim);
+            out.writeLong(tamanho);
+            out.writeInt(quantidadeBaldes);
+            for (int b = 0; b < quantidadeBaldes; b++) {
+                out.writeLong(0);
+            }
+
+            for (int b = 0; b < quantidadeBaldes; b++) {
+                posicoes[b] = out.size();
+                int entradas = 0;
+                for (Map.Entry<String, List<long[]>> e : baldes.get(b)) {
+                    entradas += e.getValue().size();
+                }
+                out.writeInt(entradas);
+                for (Map.Entry<String, List<long[]>> e : baldes.get(b)) {
+                    for (long[] bloco : e.getValue()) {
+                        out.writeUTF(e.getKey());
+                        out.writeLong(bloco[0]);
+                        out.writeLong(bloco[1]);
+                        out.writeLong(bloco[2]);
+                    }
+                }
+            }
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(temporario, "rw")) { //$NON-NLS-1$
+            raf.seek(CABECALHO);
+            for (long posicao : posicoes) {
+                raf.writeLong(posicao);
+            }
+        }
+        Files.move(temporario.toPath(), arquivo.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Lê apenas o cabeçalho de um índice (intervalo e tamanho do segmento).
+     */
+    static IndiceSegmento lerCabecalho(File arquivo) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(arquivo, "r")) { //$NON-NLS-1$
+            return new IndiceSegmento(raf.readLong(), raf.readLong(), raf.readLong());
+        }
+    }
+
+    /**
+     * Retorna os deslocamentos, no segmento, dos blocos de um hidrômetro
+     * que se sobrepõem ao intervalo [de, ate].
+     */
+    static List<Long> buscar(File arquivo, String id, long de, long ate) throws IOException {
+        List<Long> deslocamentos = new ArrayList<>();
+        try (RandomAccessFile raf = new RandomAccessFile(arquivo, "r")) { //$NON-NLS-1$
+            raf.seek(CABECALHO - 4);
+            int quantidadeBaldes = raf.readInt();
+            int b = balde(id, quantidadeBaldes);
+            raf.seek(CABECALHO + 8L * b);
+            long posicao = raf.readLong();
+            long proximo = b + 1 < quantidadeBaldes ? raf.readLong() : raf.length();
+
+            // O balde inteiro em uma leitura
+            byte[] balde = new byte[(int) (proximo - posicao)];
+            raf.seek(posicao);
+            raf.readFully(balde);
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(balde));
+            int entradas = in.readInt();
+            for (int i = 0; i < entradas; i++) {
+                String idBloco = in.readUTF();
+                long inicio = in.readLong();
+                long fim = in.readLong();
+                long deslocamento = in.readLong();
+                if (idBloco.equals(id) && inicio <= ate && fim >= de) {
+                    deslocamentos.add(deslocamento);
+                }
+            }
+        }
+        return deslocamentos;
+    }
+
+    private static int balde(String id, int quantidadeBaldes) {
+        return Math.floorMod(id.hashCode(), quantidadeBaldes);
+    }
+}
@@ -0,0 +1,24 @@
+package hidrometroSemOCR;
+
+/**
+ * Interface Observer para acompanhar cada nova leitura dos hidrômetros.
+ *
+ * Diferente do {@link HidrometroObserver}, que é registrado em um
+ * hidrômetro específico, este observer é registrado no
+ * {@link ArmazemHidrometros} e recebe as leituras de todos os hidrômetros.
+ *
+ * É chamado na thread que executou o passo de simulação (muitas vezes
+ * uma thread do motor), então a implementação deve ser rápida e não
+ * deve bloquear.
+ */
+public interface LeituraObserver {
+
+    /**
+     * Método chamado a cada nova leitura de um hidrômetro.
+     *
+     * @param h        hidrômetro que registrou a leitura
+     * @param instante instante simulado da leitura (ms)
+     * @param leitura  novo valor da leitura
+     */
+    void leituraAtualizada(Hidrometro h, long instante, double leitura);
+}
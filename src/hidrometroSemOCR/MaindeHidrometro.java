@@ -11,7 +11,7 @@ public class MaindeHidrometro {
 	    h1.adicionarObserver(not);
 	    h2.adicionarObserver(not);
 
-	    h1.start();
-	    h2.start();
+	    new Thread(h1).start();
+	    new Thread(h2).start();
 	}
 }
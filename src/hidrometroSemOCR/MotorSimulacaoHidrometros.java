@@ -0,0 +1,194 @@
+package hidrometroSemOCR;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import metricas.EventoPassosSimulacao;
+import src.Configuracoes;
+import src.RelogioSimulacao;
+
+/**
+ * Motor de simulação dos hidrômetros.
+ *
+ * Em vez de uma Thread dormindo por hidrômetro, todos os hidrômetros
+ * são conduzidos por um único agendador com uma thread por núcleo.
+ * O estado fica no {@link ArmazemHidrometros}; cada thread do agendador
+ * é dona de uma partição de blocos e, a cada passada, avança de uma vez
+ * todos os hidrômetros do bloco cujo próximo passo já venceu.
+ *
+ * O intervalo de cada hidrômetro continua sendo respeitado
+ * (coluna de próximo passo), inclusive após {@link Hidrometro#setIntervalo(long)}.
+ * A chave opcional ResolucaoSimulacaoMs define de quanto em quanto
+ * tempo as partições são varridas (padrão: 100 ms).
+ *
+ * O tempo vem do {@link RelogioSimulacao}. Com o relógio em velocidade
+ * máxima não há agendamento periódico: uma thread condutora varre todas
+ * as partições em paralelo e então avança o relógio direto para o
+ * próximo passo pendente.
+ */
+public class MotorSimulacaoHidrometros implements ExecutorHidrometros {
+
+    /** Resolução padrão das passadas (ms) */
+    private static final long RESOLUCAO_PADRAO = 100;
+
+    /** Agendador compartilhado por todas as partições */
+    private final ScheduledThreadPoolExecutor agendador;
+
+    /** Relógio da simulação */
+    private final RelogioSimulacao relogio = RelogioSimulacao.getInstance();
+
+    /** Armazém colunar com o estado dos hidrômetros */
+    private final ArmazemHidrometros armazem = ArmazemHidrometros.getInstance();
+
+    /** Quantidade de partições (uma por thread do agendador) */
+    private final int particoes;
+
+    /** Resolução das passadas (ms reais) */
+    private final long resolucao;
+
+    /**
+     * Cria o motor com uma thread por núcleo disponível.
+     */
+    public MotorSimulacaoHidrometros() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Cria o motor com um número fixo de threads.
+     *
+     * @param threads tamanho do pool do agendador (e número de partições)
+     */
+    public MotorSimulacaoHidrometros(int threads) {
+        AtomicInteger contador = new AtomicInteger();
+
+        this.particoes = threads;
+        agendador = new ScheduledThreadPoolExecutor(threads, r -> {
+            Thread t = new Thread(r, "sha-simulacao-" + contador.incrementAndGet());
+            t.setDaemon(true); // não impede o encerramento do painel
+            return t;
+        });
+
+        resolucao = Configuracoes.getLong("ResolucaoSimulacaoMs", RESOLUCAO_PADRAO);
+
+        if (relogio.isMaximaVelocidade()) {
+            Thread condutora = new Thread(this::conduzirVelocidadeMaxima, "sha-simulacao-condutora");
+            condutora.setDaemon(true);
+            condutora.start();
+            return;
+        }
+
+        for (int p = 0; p < particoes; p++) {
+            final int particao = p;
+            agendador.scheduleAtFixedRate(() -> avancarParticao(particao, relogio.agoraMillis()),
+                    resolucao, resolucao, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void iniciar(Hidrometro h) {
+        h.iniciarSimulacao(relogio.agoraMillis());
+    }
+
+    @Override
+    public void parar(Hidrometro h) {
+        h.pararLeitura();
+    }
+
+    @Override
+    public int getHidrometrosAtivos() {
+        return armazem.getQuantidadeRodando();
+    }
+
+    /**
+     * Retorna o total de passos de simulação executados pelo motor.
+     *
+     * @return quantidade de passos
+     */
+    public long getPassosExecutados() {
+        return armazem.getPassosExecutados();
+    }
+
+    @Override
+    public String getResumo() {
+        return ExecutorHidrometros.super.getResumo()
+                + " | Threads do agendador: " + agendador.getPoolSize();
+    }
+
+    @Override
+    public void encerrar() {
+        agendador.shutdownNow();
+    }
+
+    /**
+     * Laço do modo de velocidade máxima: executa em paralelo todos os
+     * passos vencidos no instante atual e avança o relógio para o
+     * próximo passo pendente. Sem hidrômetros rodando, aguarda a resolução.
+     */
+    private void conduzirVelocidadeMaxima() {
+        List<Callable<Void>> tarefas = new ArrayList<>();
+        for (int p = 0; p < particoes; p++) {
+            final int particao = p;
+            tarefas.add(() -> {
+                avancarParticao(particao, relogio.agoraMillis());
+                return null;
+            });
+        }
+
+        try {
+            while (!agendador.isShutdown()) {
+                agendador.invokeAll(tarefas);
+
+                long proximo = Long.MAX_VALUE;
+                for (BlocoHidrometros bloco : armazem.getBlocos()) {
+                    proximo = Math.min(proximo, bloco.proximoMinimo);
+                }
+
+                if (proximo == Long.MAX_VALUE) {
+                    Thread.sleep(resolucao);
+                } else {
+                    relogio.avancarPara(proximo);
+                }
+            }
+        } catch (InterruptedException | java.util.concurrent.RejectedExecutionException e) {
+            // Motor encerrado
+        }
+    }
+
+    /**
+     * Avança todos os blocos pertencentes a uma partição.
+     * O bloco b pertence à partição b % particoes e as execuções de uma
+     * mesma tarefa periódica nunca se sobrepõem, então cada bloco tem
+     * um único escritor por vez.
+     */
+    private void avancarParticao(int particao, long agora) {
+        EventoPassosSimulacao jfr = new EventoPassosSimulacao();
+        jfr.begin();
+        try {
+            BlocoHidrometros[] blocos = armazem.getBlocos();
+            int executados = 0;
+            int percorridos = 0;
+
+            for (int b = particao; b < blocos.length; b += particoes) {
+                executados += blocos[b].avancar(agora);
+                percorridos++;
+            }
+            armazem.contarPassos(executados);
+
+            jfr.end();
+            if (executados > 0 && jfr.shouldCommit()) {
+                jfr.particao = particao;
+                jfr.blocos = percorridos;
+                jfr.passos = executados;
+                jfr.commit();
+            }
+
+        } catch (RuntimeException e) {
+            // Uma exceção cancelaria a tarefa periódica da partição
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package hidrometroSemOCR;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persistência dos hidrômetros em arquivo binário mapeado em memória.
+ *
+ * O arquivo tem um cabeçalho fixo seguido de registros de 16 bytes:
+ * - ID numérico (int)
+ * - bits da leitura (long, {@link Double#doubleToRawLongBits(double)})
+ * - flags (int; bit 0 = posição ocupada)
+ *
+ * Cada hidrômetro ocupa sempre a mesma posição, e atualizações são
+ * escritas diretamente em posição * tamanho do registro, sem regravar
+ * o arquivo. Carregar o sistema é apenas mapear o arquivo e percorrer
+ * os registros, sem conversão de texto.
+ *
+ * Apenas IDs numéricos de 7 dígitos (como os gerados pelo sistema) são
+ * suportados: o registro guarda o número, e a carga devolve o ID com
+ * zeros à esquerda. IDs que não voltariam iguais são recusados na escrita.
+ * O {@link ConversorArquivoHidrometros} gera este arquivo a partir
+ * do arquivo texto.
+ */
+public class PersistenciaBinariaHidrometros implements PersistenciaHidrometros {
+
+    /** Identifica o formato do arquivo ("SHAH") */
+    private static final int ASSINATURA = 0x53484148;
+
+    /** Versão do formato */
+    private static final int VERSAO = 1;
+
+    /** Tamanho do cabeçalho: assinatura, versão, posições usadas, reservado */
+    private static final int CABECALHO = 16;
+
+    /** Tamanho de cada registro */
+    static final int TAMANHO_REGISTRO = 16;
+
+    /** Deslocamentos dentro do registro */
+    private static final int CAMPO_ID = 0;
+    private static final int CAMPO_LEITURA = 4;
+    private static final int CAMPO_FLAGS = 12;
+
+    /** Flag de posição ocupada */
+    private static final int OCUPADO = 1;
+
+    /** Capacidade inicial (registros) de um arquivo novo */
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    /** Arquivo binário */
+    private final File arquivo;
+
+    /** Canal do arquivo, mantido aberto para remapear ao crescer */
+    private RandomAccessFile acesso;
+
+    /** Região mapeada do arquivo */
+    private MappedByteBuffer mapa;
+
+    /** Quantidade de registros que cabem na região mapeada */
+    private int capacidade;
+
+    /** Posições já usadas alguma vez (ocupadas ou livres) */
+    private int usadas;
+
+    /** Posição de cada hidrômetro (ID → posição) */
+    private final Map<String, Integer> posicoes = new HashMap<>();
+
+    /** Bytes escritos nos registros */
+    private long bytesGravados;
+
+    /** Posições liberadas por remoções */
+    private int[] livres = new int[16];
+    private int totalLivres;
+
+    /**
+     * @param arquivo arquivo binário (criado se não existir)
+     */
+    public PersistenciaBinariaHidrometros(File arquivo) {
+        this.arquivo = arquivo;
+    }
+
+    // ===================== CARGA =====================
+
+    @Override
+    public synchronized Map<String, Double> carregar() throws IOException {
+        abrir();
+
+        posicoes.clear();
+        totalLivres = 0;
+        Map<String, Double> leituras = new HashMap<>();
+
+        for (int p = 0; p < usadas; p++) {
+            int base = deslocamento(p);
+
+            if ((mapa.getInt(base + CAMPO_FLAGS) & OCUPADO) == 0) {
+                adicionarLivre(p);
+                continue;
+            }
+
+            String id = formatarId(mapa.getInt(base + CAMPO_ID));
+            posicoes.put(id, p);
+            leituras.put(id, Double.longBitsToDouble(mapa.getLong(base + CAMPO_LEITURA)));
+        }
+        return leituras;
+    }
+
+    @Override
+    public synchronized Double lerLeitura(String id) {
+        Integer p = posicoes.get(id);
+        if (p == null) {
+            return null;
+        }
+        return Double.longBitsToDouble(mapa.getLong(deslocamento(p) + CAMPO_LEITURA));
+    }
+
+    // ===================== ESCRITA =====================
+
+    @Override
+    public synchronized void registrarLeitura(String id, double leitura) throws IOException {
+        if (mapa == null) {
+            carregar();
+        }
+
+        Integer p = posicoes.get(id);
+        if (p == null) {
+            p = alocar();
+            posicoes.put(id, p);
+
+            int base = deslocamento(p);
+            mapa.putInt(base + CAMPO_ID, codificarId(id));
+            mapa.putLong(base + CAMPO_LEITURA, Double.doubleToRawLongBits(leitura));
+            mapa.putInt(base + CAMPO_FLAGS, OCUPADO);
+            bytesGravados += TAMANHO_REGISTRO;
+            return;
+        }
+        mapa.putLong(deslocamento(p) + CAMPO_LEITURA, Double.doubleToRawLongBits(leitura));
+        bytesGravados += Long.BYTES;
+    }
+
+    @Override
+    public synchronized void registrarRemocao(String id) throws IOException {
+        if (mapa == null) {
+            carregar();
+        }
+
+        Integer p = posicoes.remove(id);
+        if (p == null) {
+            return;
+        }
+        mapa.putInt(deslocamento(p) + CAMPO_FLAGS, 0);
+        bytesGravados += Integer.BYTES;
+        adicionarLivre(p);
+    }
+
+    /**
+     * Atualiza cada leitura na sua posição e libera as posições
+     * de hidrômetros que não existem mais.
+     */
+    @Override
+    public synchronized void gravarEstado(Map<String, Double> leituras) throws IOException {
+        if (mapa == null) {
+            carregar();
+        }
+
+        for (String id : posicoes.keySet().toArray(new String[0])) {
+            if (!leituras.containsKey(id)) {
+                registrarRemocao(id);
+            }
+        }
+        for (Map.Entry<String, Double> entry : leituras.entrySet()) {
+            registrarLeitura(entry.getKey(), entry.getValue());
+        }
+        mapa.force();
+    }
+
+    @Override
+    public synchronized long getBytesGravados() {
+        return bytesGravados;
+    }
+
+    @Override
+    public synchronized void fechar() {
+        if (mapa == null) {
+            return;
+        }
+        mapa.force();
+        try {
+            acesso.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        mapa = null;
+    }
+
+    // ===================== ARQUIVO =====================
+
+    /**
+     * Abre (ou cria) o arquivo e mapeia a região dos registros.
+     */
+    private void abrir() throws IOException {
+        if (mapa != null) {
+            return;
+        }
+
+        boolean novo = !arquivo.exists() || arquivo.length() < CABECALHO;
+        acesso = new RandomAccessFile(arquivo, "rw"); //$NON-NLS-1$
+
+        if (novo) {
+            mapear(CAPACIDADE_INICIAL);
+            mapa.putInt(0, ASSINATURA);
+            mapa.putInt(4, VERSAO);
+            mapa.putInt(8, 0);
+            usadas = 0;
+            return;
+        }
+
+        mapear((int) ((arquivo.length() - CABECALHO) / TAMANHO_REGISTRO));
+        if (mapa.getInt(0) != ASSINATURA || mapa.getInt(4) != VERSAO) {
+            throw new IOException("Arquivo de hidrômetros binário inválido: " + arquivo); //$NON-NLS-1$
+        }
+        usadas = mapa.getInt(8);
+    }
+
+    /**
+     * Mapeia o arquivo com a capacidade informada, aumentando-o se necessário.
+     */
+    private void mapear(int novaCapacidade) throws IOException {
+        if (mapa != null) {
+            mapa.force();
+        }
+        capacidade = novaCapacidade;
+        mapa = acesso.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                CABECALHO + (long) capacidade * TAMANHO_REGISTRO);
+    }
+
+    /**
+     * Reserva uma posição, reaproveitando posições livres antes de crescer o arquivo.
+     */
+    private int alocar() throws IOException {
+        if (totalLivres > 0) {
+            return livres[--totalLivres];
+        }
+        if (usadas == capacidade) {
+            mapear(capacidade * 2);
+        }
+        mapa.putInt(8, usadas + 1);
+        return usadas++;
+    }
+
+    private void adicionarLivre(int p) {
+        if (totalLivres == livres.length) {
+            livres = Arrays.copyOf(livres, livres.length * 2);
+        }
+        livres[totalLivres++] = p;
+    }
+
+    private static int deslocamento(int posicao) {
+        return CABECALHO + posicao * TAMANHO_REGISTRO;
+    }
+
+    /**
+     * Converte o ID textual no inteiro gravado no registro.
+     * Recusa IDs que {@link #formatarId(int)} não reproduziria
+     * (ex.: "42" voltaria como "0000042").
+     */
+    private static int codificarId(String id) throws IOException {
+        int numero;
+        try {
+            numero = Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            throw new IOException("ID de hidrômetro não numérico: " + id, e); //$NON-NLS-1$
+        }
+        if (!formatarId(numero).equals(id)) {
+            throw new IOException("ID de hidrômetro fora do formato de 7 dígitos: " + id); //$NON-NLS-1$
+        }
+        return numero;
+    }
+
+    /**
+     * Converte o ID numérico no formato de 7 dígitos usado pelo sistema.
+     * Evita String.format, que dominaria o tempo de carga de frotas grandes.
+     */
+    private static String formatarId(int id) {
+        String digitos = Integer.toString(id);
+        if (digitos.length() >= 7) {
+            return digitos;
+        }
+        return "0000000".substring(digitos.length()) + digitos; //$NON-NLS-1$
+    }
+}
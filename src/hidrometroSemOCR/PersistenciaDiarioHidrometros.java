@@ -0,0 +1,106 @@
+package hidrometroSemOCR;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import src.DiarioEventos;
+
+/**
+ * Persistência dos hidrômetros no diário de eventos compartilhado
+ * com usuários e contas (ModoPersistencia=DIARIO).
+ *
+ * Cada leitura registrada vira uma linha H no {@link DiarioEventos};
+ * snapshots e reaplicação ficam a cargo do diário.
+ */
+public class PersistenciaDiarioHidrometros implements PersistenciaHidrometros {
+
+    /** Bytes de cada registro além do ID e da leitura: prefixo (HS-/HR-) e quebra de linha */
+    private static final int SOBRA_REGISTRO = 4;
+
+    /** Diário compartilhado pelos três DAOs */
+    private final DiarioEventos diario = DiarioEventos.getInstance();
+
+    /** Bytes registrados no diário por esta persistência */
+    private long bytesGravados;
+
+    @Override
+    public Map<String, Double> carregar() {
+        Map<String, Double> leituras = new HashMap<>();
+        for (String linha : diario.linhas(DiarioEventos.Entidade.HIDROMETRO)) {
+            // A leitura pode conter hífen (ex.: 1.0E-4)
+            String[] partes = linha.split("-", 2);
+            leituras.put(partes[0], Double.parseDouble(partes[1]));
+        }
+        return leituras;
+    }
+
+    @Override
+    public Double lerLeitura(String id) {
+        String linha = diario.linha(DiarioEventos.Entidade.HIDROMETRO, id);
+        if (linha == null) {
+            return null;
+        }
+        return Double.parseDouble(linha.substring(linha.indexOf('-') + 1));
+    }
+
+    @Override
+    public synchronized void registrarLeitura(String id, double leitura) {
+        String linha = id + "-" + leitura; //$NON-NLS-1$
+        diario.registrar(DiarioEventos.Entidade.HIDROMETRO, id, linha);
+        bytesGravados += linha.length() + SOBRA_REGISTRO;
+    }
+
+    /**
+     * Registra todas as leituras no diário com uma única descarga do buffer.
+     */
+    @Override
+    public synchronized void registrarLeituras(Map<String, Double> leituras) {
+        Map<String, String> linhas = new LinkedHashMap<>();
+        for (Map.Entry<String, Double> entry : leituras.entrySet()) {
+            String linha = entry.getKey() + "-" + entry.getValue(); //$NON-NLS-1$
+            linhas.put(entry.getKey(), linha);
+            bytesGravados += linha.length() + SOBRA_REGISTRO;
+        }
+        diario.registrarVarios(DiarioEventos.Entidade.HIDROMETRO, linhas);
+    }
+
+    @Override
+    public synchronized void registrarRemocao(String id) {
+        diario.registrarRemocao(DiarioEventos.Entidade.HIDROMETRO, id);
+        bytesGravados += id.length() + SOBRA_REGISTRO;
+    }
+
+    @Override
+    public synchronized void registrarRemocoes(Collection<String> ids) {
+        diario.registrarRemocoes(DiarioEventos.Entidade.HIDROMETRO, ids);
+        for (String id : ids) {
+            bytesGravados += id.length() + SOBRA_REGISTRO;
+        }
+    }
+
+    /**
+     * Registra a leitura de cada hidrômetro e a remoção dos que não existem mais.
+     */
+    @Override
+    public void gravarEstado(Map<String, Double> leituras) {
+        Map<String, Double> anteriores = carregar();
+        anteriores.keySet().removeAll(leituras.keySet());
+        registrarRemocoes(anteriores.keySet());
+        registrarLeituras(leituras);
+    }
+
+    @Override
+    public synchronized long getBytesGravados() {
+        return bytesGravados;
+    }
+
+    /**
+     * Nada a liberar: o diário é compartilhado com os outros DAOs
+     * e descarrega cada registro ao gravá-lo.
+     */
+    @Override
+    public void fechar() {
+    }
+}
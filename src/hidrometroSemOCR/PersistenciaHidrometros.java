@@ -0,0 +1,129 @@
+package hidrometroSemOCR;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+import src.Configuracoes;
+import src.DiarioEventos;
+
+/**
+ * Estratégia de persistência dos hidrômetros (padrão Strategy).
+ *
+ * O {@link HidrometroDAO} registra cada alteração individual
+ * (cadastro, atualização de leitura e remoção) e, ao salvar o estado
+ * do sistema, grava as leituras de todos os hidrômetros de uma vez.
+ *
+ * O formato é escolhido pela chave FormatoArquivoHidrometros:
+ * - TEXTO   → arquivo texto com log de alterações (padrão)
+ * - BINARIO → registros de tamanho fixo em arquivo mapeado em memória
+ *
+ * Com ModoPersistencia=DIARIO, os hidrômetros são gravados no diário
+ * de eventos compartilhado com usuários e contas, qualquer que seja o formato.
+ */
+public interface PersistenciaHidrometros {
+
+    /** Arquivo texto (snapshot) com log de alterações */
+    String FORMATO_TEXTO = "TEXTO";
+
+    /** Arquivo binário de registros fixos mapeado em memória */
+    String FORMATO_BINARIO = "BINARIO";
+
+    /**
+     * Carrega o estado persistido.
+     *
+     * @return mapa ID → leitura
+     * @throws IOException em caso de erro de leitura
+     */
+    Map<String, Double> carregar() throws IOException;
+
+    /**
+     * Retorna a leitura persistida de um hidrômetro.
+     *
+     * @param id identificador do hidrômetro
+     * @return leitura ou null se o hidrômetro não existir
+     */
+    Double lerLeitura(String id);
+
+    /**
+     * Registra o cadastro ou a atualização da leitura de um hidrômetro.
+     *
+     * @param id identificador do hidrômetro
+     * @param leitura leitura atual
+     * @throws IOException em caso de erro de escrita
+     */
+    void registrarLeitura(String id, double leitura) throws IOException;
+
+    /**
+     * Registra a remoção de um hidrômetro.
+     *
+     * @param id identificador do hidrômetro
+     * @throws IOException em caso de erro de escrita
+     */
+    void registrarRemocao(String id) throws IOException;
+
+    /**
+     * Registra a remoção de vários hidrômetros de uma vez.
+     *
+     * @param ids identificadores dos hidrômetros
+     * @throws IOException em caso de erro de escrita
+     */
+    default void registrarRemocoes(Collection<String> ids) throws IOException {
+        for (String id : ids) {
+            registrarRemocao(id);
+        }
+    }
+
+    /**
+     * Registra a leitura de vários hidrômetros de uma vez.
+     *
+     * @param leituras mapa ID → nova leitura
+     * @throws IOException em caso de erro de escrita
+     */
+    default void registrarLeituras(Map<String, Double> leituras) throws IOException {
+        for (Map.Entry<String, Double> entry : leituras.entrySet()) {
+            registrarLeitura(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Grava as leituras de todos os hidrômetros, substituindo o estado anterior.
+     *
+     * @param leituras mapa ID → leitura
+     * @throws IOException em caso de erro de escrita
+     */
+    void gravarEstado(Map<String, Double> leituras) throws IOException;
+
+    /**
+     * Retorna o total de bytes gravados desde a criação desta instância.
+     *
+     * @return bytes gravados
+     */
+    long getBytesGravados();
+
+    /**
+     * Libera os recursos (arquivos abertos, threads de apoio).
+     */
+    void fechar();
+
+    /**
+     * Cria a persistência correspondente ao formato informado.
+     * Formatos desconhecidos usam o arquivo texto. Com o diário de
+     * eventos ativo, o formato é ignorado.
+     *
+     * @param formato valor da chave FormatoArquivoHidrometros
+     * @param arquivoTexto arquivo texto de hidrômetros
+     * @return persistência do formato escolhido
+     */
+    static PersistenciaHidrometros criar(String formato, File arquivoTexto) {
+        if (DiarioEventos.isAtivo()) {
+            return new PersistenciaDiarioHidrometros();
+        }
+        if (FORMATO_BINARIO.equalsIgnoreCase(formato)) {
+            return new PersistenciaBinariaHidrometros(new File(
+                    Configuracoes.getString("NomeArquivoBinarioHidrometros", "hidrometros.dat")));
+        }
+        return new PersistenciaLogHidrometros(arquivoTexto);
+    }
+}
@@ -0,0 +1,349 @@
+package hidrometroSemOCR;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import src.Configuracoes;
+
+/**
+ * Persistência dos hidrômetros com log de escrita antecipada (write-ahead log).
+ *
+ * O arquivo de hidrômetros (ex.: hidrometros.txt) passa a ser um
+ * snapshot, e cada alteração vira uma linha acrescentada ao arquivo
+ * de log (mesmo nome com sufixo .log):
+ * - A-id-leitura : cadastro ou atualização
+ * - R-id         : remoção
+ *
+ * Os IDs não têm hífen; a leitura pode ter (ex.: 1.0E-4), por isso as
+ * linhas são divididas no máximo no número de campos do registro.
+ *
+ * Quando o log atinge LimiteRegistrosLogHidrometros linhas
+ * (padrão: 10000), uma thread de apoio o compacta no snapshot:
+ * o log atual é renomeado (.log.1), um novo log passa a receber as
+ * alterações e o snapshot é regravado a partir do estado em memória.
+ *
+ * Ao iniciar, o snapshot é carregado e os logs são reaplicados por cima.
+ * Reaplicar um log já compactado não altera o resultado, pois cada
+ * linha apenas define ou remove o valor de um hidrômetro.
+ */
+public class PersistenciaLogHidrometros implements PersistenciaHidrometros {
+
+    /** Quantidade padrão de registros no log antes da compactação */
+    private static final int LIMITE_PADRAO = 10000;
+
+    /** Snapshot (arquivo de hidrômetros) */
+    private final File snapshot;
+
+    /** Log que recebe as alterações */
+    private final File log;
+
+    /** Log em compactação */
+    private final File logAntigo;
+
+    /** Estado atual (snapshot + log), de onde sai o próximo snapshot */
+    private final Map<String, Double> estado = new HashMap<>();
+
+    /** Quantidade de registros no log antes de compactar */
+    private final int limite;
+
+    /** Thread de apoio da compactação */
+    private final ExecutorService compactador = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "sha-compactacao-hidrometros");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Bytes gravados no log e nos snapshots */
+    private final AtomicLong bytesGravados = new AtomicLong();
+
+    /** Garante que apenas um snapshot seja gravado por vez */
+    private final Object travaSnapshot = new Object();
+
+    /** Escritor do log (aberto em modo de acréscimo) */
+    private BufferedWriter escritor;
+
+    /** Registros no log atual */
+    private int registros;
+
+    /** Indica se há uma compactação em andamento */
+    private boolean compactando;
+
+    /**
+     * Incrementado a cada gravação completa, invalidando compactações antigas.
+     * Volátil porque é lido sob {@link #travaSnapshot}, sem o lock do objeto.
+     */
+    private volatile long geracao;
+
+    /**
+     * @param snapshot arquivo de hidrômetros
+     */
+    public PersistenciaLogHidrometros(File snapshot) {
+        this.snapshot = snapshot;
+        this.log = new File(snapshot.getPath() + ".log"); //$NON-NLS-1$
+        this.logAntigo = new File(snapshot.getPath() + ".log.1"); //$NON-NLS-1$
+        this.limite = (int) Configuracoes.getLong("LimiteRegistrosLogHidrometros", LIMITE_PADRAO);
+    }
+
+    // ===================== CARGA =====================
+
+    @Override
+    public synchronized Map<String, Double> carregar() throws IOException {
+        estado.clear();
+        lerSnapshot();
+        registros = reaplicar(logAntigo) + reaplicar(log);
+        abrirLog();
+        return new HashMap<>(estado);
+    }
+
+    @Override
+    public synchronized Double lerLeitura(String id) {
+        return estado.get(id);
+    }
+
+    /**
+     * Lê o snapshot (formato id-leitura, o mesmo do arquivo de hidrômetros).
+     */
+    private void lerSnapshot() throws IOException {
+        if (!snapshot.exists()) {
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(snapshot))) {
+            String linha;
+            while ((linha = reader.readLine()) != null) {
+                String[] partes = linha.split("-", 2);
+                if (partes.length == 2) {
+                    estado.put(partes[0].trim(), Double.parseDouble(partes[1].trim()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reaplica um arquivo de log sobre o estado.
+     * Uma última linha incompleta (queda durante a escrita) é ignorada.
+     *
+     * @return quantidade de registros reaplicados
+     */
+    private int reaplicar(File arquivo) throws IOException {
+        if (!arquivo.exists()) {
+            return 0;
+        }
+
+        int total = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(arquivo))) {
+            String linha;
+            while ((linha = reader.readLine()) != null) {
+                String[] partes = linha.split("-", 3);
+                try {
+                    if (partes[0].equals("A") && partes.length == 3) { //$NON-NLS-1$
+                        estado.put(partes[1], Double.parseDouble(partes[2]));
+                    } else if (partes[0].equals("R") && partes.length == 2) { //$NON-NLS-1$
+                        estado.remove(partes[1]);
+                    } else {
+                        continue;
+                    }
+                    total++;
+                } catch (NumberFormatException registroIncompleto) {
+                    // Apenas a última linha pode estar incompleta; ignora
+                }
+            }
+        }
+        return total;
+    }
+
+    // ===================== ESCRITA =====================
+
+    @Override
+    public synchronized void registrarLeitura(String id, double leitura) throws IOException {
+        estado.put(id, leitura);
+        acrescentar("A-" + id + "-" + leitura); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Override
+    public synchronized void registrarRemocao(String id) throws IOException {
+        estado.remove(id);
+        acrescentar("R-" + id); //$NON-NLS-1$
+    }
+
+    /**
+     * Acrescenta todas as remoções ao log com uma única descarga do buffer.
+     */
+    @Override
+    public synchronized void registrarRemocoes(Collection<String> ids) throws IOException {
+        StringBuilder registros = new StringBuilder();
+        for (String id : ids) {
+            estado.remove(id);
+            if (registros.length() > 0) {
+                registros.append(System.lineSeparator());
+            }
+            registros.append("R-").append(id); //$NON-NLS-1$
+        }
+        acrescentar(registros.toString(), ids.size());
+    }
+
+    /**
+     * Acrescenta todas as leituras ao log com uma única descarga do buffer.
+     */
+    @Override
+    public synchronized void registrarLeituras(Map<String, Double> leituras) throws IOException {
+        if (leituras.isEmpty()) {
+            return;
+        }
+        StringBuilder registros = new StringBuilder();
+        for (Map.Entry<String, Double> entry : leituras.entrySet()) {
+            estado.put(entry.getKey(), entry.getValue());
+            if (registros.length() > 0) {
+                registros.append(System.lineSeparator());
+            }
+            registros.append("A-").append(entry.getKey()).append('-').append(entry.getValue()); //$NON-NLS-1$
+        }
+        acrescentar(registros.toString(), leituras.size());
+    }
+
+    /**
+     * Grava o estado completo diretamente no snapshot e descarta os logs.
+     */
+    @Override
+    public synchronized void gravarEstado(Map<String, Double> leituras) throws IOException {
+        estado.clear();
+        estado.putAll(leituras);
+        geracao++;
+
+        fecharLog();
+        synchronized (travaSnapshot) {
+            gravarSnapshot(estado);
+            Files.deleteIfExists(logAntigo.toPath());
+            Files.deleteIfExists(log.toPath());
+        }
+        abrirLog();
+        registros = 0;
+    }
+
+    @Override
+    public long getBytesGravados() {
+        return bytesGravados.get();
+    }
+
+    @Override
+    public synchronized void fechar() {
+        compactador.shutdown();
+        try {
+            fecharLog();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Acrescenta um registro ao log e agenda a compactação se o limite foi atingido.
+     */
+    private void acrescentar(String registro) throws IOException {
+        acrescentar(registro, 1);
+    }
+
+    /**
+     * Acrescenta uma ou mais linhas de registro ao log.
+     *
+     * @param linhas registros já separados por quebra de linha
+     * @param quantidade quantidade de registros nas linhas
+     */
+    private void acrescentar(String linhas, int quantidade) throws IOException {
+        if (escritor == null) {
+            abrirLog();
+        }
+        escritor.write(linhas);
+        escritor.newLine();
+        escritor.flush();
+        bytesGravados.addAndGet(linhas.length() + System.lineSeparator().length());
+
+        registros += quantidade;
+        if (registros >= limite && !compactando) {
+            compactando = true;
+            compactador.execute(this::compactar);
+        }
+    }
+
+    // ===================== COMPACTAÇÃO =====================
+
+    /**
+     * Troca o log e grava um novo snapshot, sem bloquear novas alterações
+     * enquanto o snapshot é escrito.
+     */
+    private void compactar() {
+        Map<String, Double> copia;
+        long geracaoCopia;
+
+        try {
+            synchronized (this) {
+                if (logAntigo.exists()) {
+                    // Compactação anterior interrompida: grava tudo de uma vez
+                    gravarEstado(new HashMap<>(estado));
+                    return;
+                }
+
+                fecharLog();
+                Files.move(log.toPath(), logAntigo.toPath());
+                abrirLog();
+                registros = 0;
+
+                copia = new HashMap<>(estado);
+                geracaoCopia = geracao;
+            }
+
+            synchronized (travaSnapshot) {
+                // Uma gravação completa feita nesse meio tempo já contém esta cópia
+                if (geracaoCopia == geracao) {
+                    gravarSnapshot(copia);
+                    Files.deleteIfExists(logAntigo.toPath());
+                }
+            }
+
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            synchronized (this) {
+                compactando = false;
+            }
+        }
+    }
+
+    /**
+     * Grava o snapshot em um arquivo temporário e o substitui de uma vez.
+     */
+    private void gravarSnapshot(Map<String, Double> leituras) throws IOException {
+        File temporario = new File(snapshot.getPath() + ".tmp"); //$NON-NLS-1$
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(temporario, false))) {
+            for (Map.Entry<String, Double> entry : leituras.entrySet()) {
+                writer.write(entry.getKey() + "-" + entry.getValue());
+                writer.newLine();
+            }
+        }
+        bytesGravados.addAndGet(temporario.length());
+        Files.move(temporario.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void abrirLog() throws IOException {
+        escritor = new BufferedWriter(new FileWriter(log, true));
+    }
+
+    private void fecharLog() throws IOException {
+        if (escritor != null) {
+            escritor.close();
+            escritor = null;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package hidrometroSemOCR;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import src.Configuracoes;
+import src.Evento;
+import src.RelogioSimulacao;
+import src.Subject;
+
+/**
+ * Publicador dos eventos LEITURA_ATUALIZADA.
+ *
+ * Os passos de simulação não publicam eventos: eles apenas marcam a
+ * posição do hidrômetro no conjunto de bits de eventos do seu bloco.
+ * A cada janela o publicador coleta esses bits e publica um único
+ * evento por hidrômetro alterado, com a leitura mais recente. Assim,
+ * com 100 mil hidrômetros avançando a cada poucos segundos, os
+ * observers recebem no máximo um evento por hidrômetro por janela.
+ * Hidrômetros preguiçosos não têm passos: são publicados quando a base
+ * do modelo muda e na publicação do logout.
+ *
+ * A chave JanelaEventosLeituraMs define a janela, em tempo real
+ * (padrão: 5000; 0 desativa, restando apenas a publicação do logout).
+ */
+public class PublicadorLeituras {
+
+    /** Janela padrão entre publicações (ms) */
+    private static final long JANELA_PADRAO = 5_000;
+
+    /** Armazém colunar com o estado dos hidrômetros */
+    private final ArmazemHidrometros armazem = ArmazemHidrometros.getInstance();
+
+    /** Relógio da simulação, usado para a leitura dos hidrômetros preguiçosos */
+    private final RelogioSimulacao relogio = RelogioSimulacao.getInstance();
+
+    /** Subject que entrega os eventos aos seus observers */
+    private final Subject subject;
+
+    /** Agendador das publicações automáticas (null se desativadas) */
+    private final ScheduledThreadPoolExecutor agendador;
+
+    /** Total de eventos publicados */
+    private volatile long eventosPublicados;
+
+    /**
+     * Cria o publicador e agenda as publicações automáticas.
+     *
+     * @param subject Subject cujos observers recebem os eventos (HidrometroDAO)
+     */
+    public PublicadorLeituras(Subject subject) {
+        this.subject = subject;
+
+        long janela = Configuracoes.getLong("JanelaEventosLeituraMs", JANELA_PADRAO);
+        if (janela <= 0) {
+            agendador = null;
+            return;
+        }
+
+        agendador = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "sha-eventos-leitura");
+            t.setDaemon(true);
+            return t;
+        });
+        agendador.scheduleWithFixedDelay(this::publicarAgendado,
+                janela, janela, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Publica a leitura atual de todos os hidrômetros alterados desde a última janela.
+     *
+     * @return quantidade de eventos publicados
+     */
+    public synchronized int publicar() {
+        long agora = relogio.agoraMillis();
+        List<Evento> eventos = new ArrayList<>();
+        int publicados = 0;
+
+        for (BlocoHidrometros bloco : armazem.getBlocos()) {
+            for (int palavra = 0; palavra < BlocoHidrometros.TAMANHO / 64; palavra++) {
+                long bits = bloco.coletarSujos(BlocoHidrometros.SUJOS_EVENTOS, palavra);
+                coletarPalavra(bloco, palavra, bits, agora, eventos);
+
+                // Publica fora do lock do armazém, a cada palavra, para não
+                // acumular os eventos de todos os hidrômetros de uma vez
+                for (Evento evento : eventos) {
+                    subject.notificarObservers(evento);
+                }
+                publicados += eventos.size();
+                eventos.clear();
+            }
+        }
+        eventosPublicados += publicados;
+        return publicados;
+    }
+
+    /**
+     * Cria os eventos das posições sujas de uma palavra.
+     *
+     * A coleta acontece sob o lock do armazém, para não ler a posição de
+     * um hidrômetro enquanto ele é removido ou a posição é reaproveitada.
+     */
+    private void coletarPalavra(BlocoHidrometros bloco, int palavra, long bits, long agora,
+            List<Evento> eventos) {
+        synchronized (armazem) {
+            for (int b = 0; b < 64; b++) {
+                int i = palavra * 64 + b;
+                byte estado = bloco.estado(i);
+
+                boolean sujo = (bits & (1L << b)) != 0;
+                if (!sujo || estado == BlocoHidrometros.LIVRE) {
+                    continue;
+                }
+
+                eventos.add(new Evento(Evento.Tipo.LEITURA_ATUALIZADA,
+                        bloco.visoes[i].getIdentificador(), bloco.leitura(i, agora)));
+            }
+        }
+    }
+
+    private void publicarAgendado() {
+        try {
+            publicar();
+        } catch (RuntimeException e) {
+            // Uma exceção cancelaria as próximas publicações
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Retorna o total de eventos publicados.
+     *
+     * @return eventos publicados
+     */
+    public long getEventosPublicados() {
+        return eventosPublicados;
+    }
+
+    /**
+     * Cancela as publicações automáticas.
+     */
+    public void encerrar() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+        }
+    }
+}
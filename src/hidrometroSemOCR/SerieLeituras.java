@@ -0,0 +1,124 @@
+package hidrometroSemOCR;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Série de leituras de um único hidrômetro.
+ *
+ * As amostras novas entram em um bloco aberto ({@link CompressorSerie}).
+ * Blocos fechados ficam em um buffer em memória com tamanho limitado; ao
+ * estourar, o bloco mais antigo é entregue à thread de gravação do
+ * {@link HistoricoLeituras} e sai da memória quando já estiver em disco.
+ * A série não guarda referências aos blocos gravados: o índice dos
+ * segmentos fica no histórico.
+ */
+final class SerieLeituras {
+
+    /** Identificador do hidrômetro */
+    private final String id;
+
+    /** Histórico ao qual a série pertence (grava os segmentos) */
+    private final HistoricoLeituras historico;
+
+    /** Bloco que está recebendo amostras */
+    private CompressorSerie aberto = new CompressorSerie();
+
+    /**
+     * Blocos fechados ainda em memória, do mais antigo para o mais novo.
+     * Os {@link #enfileirados} primeiros já foram entregues à gravação.
+     */
+    private final ArrayDeque<BlocoSerie> recentes = new ArrayDeque<>();
+    private int enfileirados;
+
+    SerieLeituras(String id, HistoricoLeituras historico) {
+        this.id = id;
+        this.historico = historico;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    /**
+     * Acrescenta uma amostra à série. Não faz E/S: os blocos excedentes
+     * apenas entram na fila de gravação.
+     */
+    synchronized void adicionar(long instante, double leitura) {
+        aberto.adicionar(instante, leitura);
+
+        if (aberto.getQuantidade() >= historico.getAmostrasPorBloco()) {
+            fecharBlocoAberto();
+            enfileirarExcedentes(historico.getBlocosEmMemoria());
+        }
+    }
+
+    /**
+     * Fecha o bloco aberto e entrega à gravação todos os blocos em memória.
+     * Usado ao salvar o estado do sistema.
+     */
+    synchronized void descarregar() {
+        if (aberto.getQuantidade() > 0) {
+            fecharBlocoAberto();
+        }
+        enfileirarExcedentes(0);
+    }
+
+    /**
+     * Retira da memória um bloco já gravado (ou perdido por falta de disco).
+     * Chamado pela thread de gravação, na ordem de entrega.
+     */
+    synchronized void gravado(BlocoSerie bloco) {
+        if (recentes.peekFirst() == bloco) {
+            recentes.pollFirst();
+        } else {
+            recentes.remove(bloco);
+        }
+        enfileirados--;
+    }
+
+    /**
+     * Retorna os blocos em memória (inclusive os que aguardam gravação e
+     * uma cópia do bloco aberto) que se sobrepõem ao intervalo [de, ate].
+     */
+    synchronized List<BlocoSerie> blocosEmMemoria(long de, long ate) {
+        List<BlocoSerie> blocos = new ArrayList<>();
+        for (BlocoSerie bloco : recentes) {
+            if (bloco.sobrepoe(de, ate)) {
+                blocos.add(bloco);
+            }
+        }
+        if (aberto.getQuantidade() > 0) {
+            blocos.add(aberto.fechar());
+        }
+        return blocos;
+    }
+
+    private void fecharBlocoAberto() {
+        BlocoSerie bloco = aberto.fechar();
+        historico.contabilizar(bloco);
+        recentes.addLast(bloco);
+        aberto = new CompressorSerie();
+    }
+
+    /**
+     * Entrega à gravação os blocos mais antigos ainda não entregues,
+     * até restarem {@code manter} blocos fora da fila.
+     */
+    private void enfileirarExcedentes(int manter) {
+        int excedentes = recentes.size() - enfileirados - manter;
+        if (excedentes <= 0) {
+            return;
+        }
+        Iterator<BlocoSerie> it = recentes.iterator();
+        for (int i = 0; i < enfileirados; i++) {
+            it.next();
+        }
+        for (int i = 0; i < excedentes; i++) {
+            historico.despejar(this, it.next());
+        }
+        enfileirados += excedentes;
+    }
+}
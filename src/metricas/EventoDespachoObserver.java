@@ -0,0 +1,31 @@
+package metricas;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento JFR da entrega de um evento do sistema a um Observer.
+ */
+@Name("sha.DespachoObserver")
+@Label("Entrega a Observer")
+@Category({ "SHA", "Eventos" })
+@Description("Chamada de atualizar de um Observer pelo barramento de eventos")
+public class EventoDespachoObserver extends Event {
+
+    @Label("Observer")
+    public String observer;
+
+    @Label("Tipo do evento")
+    public String tipo;
+
+    @Label("Entidades")
+    @Description("IDs no evento (mais de um em eventos em lote)")
+    public int entidades;
+
+    @Label("Assíncrono")
+    @Description("true se entregue pela thread do Observer, false na thread de quem publicou")
+    public boolean assincrono;
+}
@@ -0,0 +1,23 @@
+package metricas;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento JFR de um hidrômetro que ultrapassou o limite máximo e voltou a zero.
+ */
+@Name("sha.LimiteMaximo")
+@Label("Limite máximo do hidrômetro")
+@Category({ "SHA", "Simulação" })
+@Description("Leitura ultrapassou LIMITE_MAX e foi reiniciada")
+public class EventoLimiteMaximo extends Event {
+
+    @Label("Hidrômetro")
+    public String hidrometro;
+
+    @Label("Leitura anterior")
+    public double leituraAnterior;
+}
@@ -0,0 +1,24 @@
+package metricas;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento JFR de uma execução de {@code OperacaoPainel.executar()}.
+ */
+@Name("sha.OperacaoPainel")
+@Label("Operação do painel")
+@Category({ "SHA", "Painel" })
+@Description("Execução completa de uma operação do painel (template method)")
+public class EventoOperacaoPainel extends Event {
+
+    @Label("Operação")
+    public String operacao;
+
+    @Label("Concluída")
+    @Description("false se a operação foi interrompida por exceção")
+    public boolean concluida;
+}
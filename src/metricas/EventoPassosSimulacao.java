@@ -0,0 +1,28 @@
+package metricas;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento JFR de uma passada do motor de simulação sobre uma partição.
+ */
+@Name("sha.PassosSimulacao")
+@Label("Passos de simulação")
+@Category({ "SHA", "Simulação" })
+@Description("Passada do motor agendado sobre os blocos de uma partição")
+public class EventoPassosSimulacao extends Event {
+
+    @Label("Partição")
+    public int particao;
+
+    @Label("Blocos")
+    @Description("Blocos de hidrômetros percorridos")
+    public int blocos;
+
+    @Label("Passos")
+    @Description("Passos de simulação executados (hidrômetros avançados)")
+    public int passos;
+}
@@ -0,0 +1,56 @@
+package metricas;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento JFR de uma carga ou gravação de um DAO.
+ *
+ * Criado e iniciado ({@link #begin()}) antes da operação;
+ * {@link #concluir(String, String, int, long)} preenche e grava o evento.
+ */
+@Name("sha.Persistencia")
+@Label("Persistência")
+@Category({ "SHA", "Persistência" })
+@Description("Carga ou gravação de usuários, hidrômetros ou contas")
+public class EventoPersistencia extends Event {
+
+    @Label("Entidade")
+    public String entidade;
+
+    @Label("Operação")
+    @Description("Método do DAO (inicializarSistema, fecharSistema, salvarEstadoHidrometros, regravarArquivo...)")
+    public String operacao;
+
+    @Label("Registros")
+    @Description("Entidades carregadas ou gravadas")
+    public int registros;
+
+    @Label("Bytes")
+    @Description("Tamanho do arquivo lido ou gravado, ou bytes acrescentados (-1 se desconhecido)")
+    @DataAmount
+    public long bytes;
+
+    /**
+     * Preenche e grava o evento, se a gravação estiver ativa.
+     *
+     * @param entidade USUARIO, HIDROMETRO ou CONTA
+     * @param operacao método do DAO
+     * @param registros entidades carregadas ou gravadas
+     * @param bytes bytes lidos ou gravados (-1 se desconhecido)
+     */
+    public void concluir(String entidade, String operacao, int registros, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.entidade = entidade;
+            this.operacao = operacao;
+            this.registros = registros;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
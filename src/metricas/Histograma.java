@@ -0,0 +1,118 @@
+package metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latências com faixas log-lineares (no estilo do HdrHistogram).
+ *
+ * Os valores (ns) até 63 têm uma faixa cada; acima disso cada potência
+ * de 2 é dividida em 32 faixas iguais, o que limita o erro relativo dos
+ * percentis a cerca de 3%. Valores acima de 2^40 ns (~18 min) caem na
+ * última faixa.
+ *
+ * O registro só incrementa contadores atômicos já alocados: pode ser
+ * chamado por várias threads, sem locks e sem criar objetos.
+ */
+public class Histograma {
+
+    /** Bits das subfaixas de cada potência de 2 */
+    private static final int BITS_SUBFAIXAS = 5;
+
+    /** Subfaixas de cada potência de 2 */
+    private static final int SUBFAIXAS = 1 << BITS_SUBFAIXAS;
+
+    /** Maior valor registrado com precisão (ns) */
+    private static final long VALOR_MAXIMO = (1L << 40) - 1;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(faixa(VALOR_MAXIMO) + 1);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong soma = new AtomicLong();
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * Registra um valor.
+     *
+     * @param valor valor em ns (negativos contam como 0)
+     */
+    public void registrar(long valor) {
+        long v = Math.max(0, Math.min(valor, VALOR_MAXIMO));
+        contagens.incrementAndGet(faixa(v));
+        total.incrementAndGet();
+        soma.addAndGet(v);
+
+        long atual;
+        while (v > (atual = maximo.get()) && !maximo.compareAndSet(atual, v)) {
+            // outro registro atualizou o máximo; tenta de novo
+        }
+    }
+
+    /**
+     * Retorna o valor abaixo do qual estão {@code percentil}% dos registros.
+     *
+     * @param percentil percentil (ex.: 50, 99, 99.9)
+     * @return limite superior da faixa do percentil (ns), ou 0 sem registros
+     */
+    public long percentil(double percentil) {
+        long n = total.get();
+        if (n == 0) {
+            return 0;
+        }
+
+        long alvo = Math.max(1, (long) Math.ceil(percentil / 100 * n));
+        long acumulado = 0;
+        for (int i = 0; i < contagens.length(); i++) {
+            acumulado += contagens.get(i);
+            if (acumulado >= alvo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    /** @return quantidade de valores registrados */
+    public long getTotal() {
+        return total.get();
+    }
+
+    /** @return maior valor registrado (ns) */
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    /** @return soma dos valores registrados (ns) */
+    public long getSoma() {
+        return soma.get();
+    }
+
+    /** @return média dos valores registrados (ns) */
+    public double getMedia() {
+        long n = total.get();
+        return n == 0 ? 0 : (double) soma.get() / n;
+    }
+
+    /**
+     * Faixa de um valor: linear até 2 * SUBFAIXAS, depois SUBFAIXAS
+     * faixas por potência de 2.
+     */
+    static int faixa(long valor) {
+        if (valor < 2 * SUBFAIXAS) {
+            return (int) valor;
+        }
+        int deslocamento = 64 - Long.numberOfLeadingZeros(valor) - (BITS_SUBFAIXAS + 1);
+        return 2 * SUBFAIXAS + (deslocamento - 1) * SUBFAIXAS
+                + (int) ((valor >>> deslocamento) - SUBFAIXAS);
+    }
+
+    /**
+     * Maior valor que cai na faixa.
+     */
+    static long limiteSuperior(int faixa) {
+        if (faixa < 2 * SUBFAIXAS) {
+            return faixa;
+        }
+        int deslocamento = (faixa - 2 * SUBFAIXAS) / SUBFAIXAS + 1;
+        long topo = (faixa - 2 * SUBFAIXAS) % SUBFAIXAS + SUBFAIXAS;
+        return ((topo + 1) << deslocamento) - 1;
+    }
+}
@@ -0,0 +1,200 @@
+package metricas;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import src.Configuracoes;
+
+/**
+ * Métricas das operações do painel — Singleton
+ *
+ * Guarda, para cada classe de operação, um {@link Histograma} de latência
+ * por fase do template method de {@code OperacaoPainel.executar()}
+ * (lerDados, validar, processar, exibirResultado) e um da operação
+ * inteira, além da quantidade de execuções interrompidas por exceção.
+ *
+ * Depois da primeira execução de cada operação, registrar uma fase
+ * não cria objetos. O relatório (contagem, p50, p99, p99.9 e máximo)
+ * pode ser obtido a qualquer momento e é gravado no arquivo
+ * ArquivoMetricas (padrão metricas.txt) ao encerrar o sistema.
+ */
+public class MetricasOperacoes {
+
+    /**
+     * Fases medidas em cada operação.
+     */
+    public enum Fase {
+        LER_DADOS("lerDados"),
+        VALIDAR("validar"),
+        PROCESSAR("processar"),
+        EXIBIR_RESULTADO("exibirResultado"),
+        TOTAL("total");
+
+        private final String nome;
+
+        Fase(String nome) {
+            this.nome = nome;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+    }
+
+    /** Fases na ordem do relatório (cópia única de Fase.values()) */
+    private static final Fase[] FASES = Fase.values();
+
+    /** Instância única */
+    private static MetricasOperacoes instance;
+
+    /** Métricas de cada classe de operação */
+    private final ConcurrentHashMap<Class<?>, Operacao> operacoes = new ConcurrentHashMap<>();
+
+    /** Arquivo do relatório gravado ao encerrar */
+    private final String arquivo;
+
+    private MetricasOperacoes() {
+        arquivo = Configuracoes.getString("ArquivoMetricas", "metricas.txt"); //$NON-NLS-1$ //$NON-NLS-2$
+        Runtime.getRuntime().addShutdownHook(new Thread(this::despejar, "sha-metricas-final"));
+    }
+
+    /**
+     * Retorna a instância única.
+     */
+    public static synchronized MetricasOperacoes getInstance() {
+        if (instance == null) {
+            instance = new MetricasOperacoes();
+        }
+        return instance;
+    }
+
+    /**
+     * Retorna as métricas de uma classe de operação, criando-as na
+     * primeira execução.
+     *
+     * @param classe classe da operação
+     * @return métricas da operação
+     */
+    public Operacao de(Class<?> classe) {
+        Operacao operacao = operacoes.get(classe);
+        if (operacao == null) {
+            operacao = operacoes.computeIfAbsent(classe, c -> new Operacao(c.getSimpleName()));
+        }
+        return operacao;
+    }
+
+    /**
+     * @return métricas de todas as operações já executadas
+     */
+    Collection<Operacao> getOperacoes() {
+        return operacoes.values();
+    }
+
+    /**
+     * Monta o relatório de latências (ms) de todas as operações já executadas.
+     *
+     * @return texto com um bloco por operação e uma linha por fase
+     */
+    public String getRelatorio() {
+        List<Operacao> lista = new ArrayList<>(operacoes.values());
+        lista.sort(Comparator.comparing(o -> o.nome));
+
+        StringBuilder sb = new StringBuilder("Latência das operações (ms):");
+        if (lista.isEmpty()) {
+            sb.append(" nenhuma operação executada");
+        }
+        for (Operacao o : lista) {
+            sb.append(System.lineSeparator()).append("  ").append(o.nome)
+                    .append(": ").append(o.fases[Fase.TOTAL.ordinal()].getTotal()).append(" execuções, ")
+                    .append(o.falhas.get()).append(" com erro");
+            for (Fase fase : FASES) {
+                Histograma h = o.fases[fase.ordinal()];
+                if (h.getTotal() == 0) {
+                    continue;
+                }
+                sb.append(System.lineSeparator()).append(String.format(
+                        "    %-16s n %-7d p50 %9.3f | p99 %9.3f | p99.9 %9.3f | máx. %9.3f",
+                        fase.getNome(), h.getTotal(), h.percentil(50) / 1e6,
+                        h.percentil(99) / 1e6, h.percentil(99.9) / 1e6, h.getMaximo() / 1e6));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Grava o relatório no arquivo de métricas (sobrescreve o anterior).
+     */
+    public void despejar() {
+        if (operacoes.isEmpty()) {
+            return;
+        }
+        try (Writer w = new FileWriter(arquivo, false)) {
+            w.write(LocalDateTime.now() + System.lineSeparator());
+            w.write(getRelatorio() + System.lineSeparator());
+        } catch (IOException e) {
+            System.out.println("Falha ao gravar as métricas em " + arquivo);
+        }
+    }
+
+    /**
+     * Histogramas de uma classe de operação.
+     */
+    public static final class Operacao {
+        private final String nome;
+        private final Histograma[] fases = new Histograma[FASES.length];
+        private final AtomicLong falhas = new AtomicLong();
+
+        Operacao(String nome) {
+            this.nome = nome;
+            for (int i = 0; i < fases.length; i++) {
+                fases[i] = new Histograma();
+            }
+        }
+
+        /**
+         * Registra a duração de uma fase.
+         *
+         * @param fase fase concluída
+         * @param inicioNanos instante de início da fase (System.nanoTime)
+         * @return instante atual, início da próxima fase
+         */
+        public long registrar(Fase fase, long inicioNanos) {
+            long agora = System.nanoTime();
+            fases[fase.ordinal()].registrar(agora - inicioNanos);
+            return agora;
+        }
+
+        /** @return nome simples da classe da operação */
+        public String getNome() {
+            return nome;
+        }
+
+        /** @return execuções interrompidas por exceção */
+        public long getFalhas() {
+            return falhas.get();
+        }
+
+        /**
+         * Conta uma execução interrompida por exceção.
+         */
+        public void registrarFalha() {
+            falhas.incrementAndGet();
+        }
+
+        /**
+         * @param fase fase desejada
+         * @return histograma da fase
+         */
+        public Histograma getHistograma(Fase fase) {
+            return fases[fase.ordinal()];
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package metricas;
+
+import java.util.concurrent.TimeUnit;
+
+import conta.ContaDAO;
+import hidrometroSemOCR.ArmazemHidrometros;
+import hidrometroSemOCR.HidrometroDAO;
+import src.BarramentoEventos;
+import src.DiarioEventos;
+import src.Logger;
+import usuario.UsuarioDAO;
+
+/**
+ * Métricas gerais do sistema — Singleton
+ *
+ * Monta o painel "Métricas do sistema" apenas com contadores mantidos
+ * pelos próprios subsistemas (quantidades dos DAOs e do armazém, passos
+ * de simulação, filas do barramento, registros pendentes do log), sem
+ * percorrer hidrômetros, usuários ou contas. Pode ser consultado a
+ * cada segundo mesmo com muitos hidrômetros.
+ *
+ * A memória por tipo de entidade é estimada a partir da quantidade e
+ * do tamanho médio medido de cada entidade (JDK 17, oops comprimidos),
+ * já que a JVM não informa a memória ocupada por classe a baixo custo.
+ */
+public class MetricasSistema {
+
+    /** Bytes médios por usuário (objeto, três strings e entrada do mapa) */
+    static final int BYTES_USUARIO = 200;
+
+    /** Bytes médios por hidrômetro (colunas do armazém, visão, ID e entrada do mapa) */
+    static final int BYTES_HIDROMETRO = 240;
+
+    /** Bytes médios por conta (objeto com Random próprio e três índices do ContaDAO) */
+    static final int BYTES_CONTA = 650;
+
+    /** Instância única */
+    private static MetricasSistema instance;
+
+    /** Amostra anterior dos passos, para calcular passos por segundo */
+    private long passosAnteriores = -1;
+    private long instanteAnterior;
+
+    /** Duração da última gravação completa do estado (logout), em ns */
+    private volatile long ultimaPersistenciaNanos = -1;
+
+    private MetricasSistema() {}
+
+    /**
+     * Retorna a instância única.
+     */
+    public static synchronized MetricasSistema getInstance() {
+        if (instance == null) {
+            instance = new MetricasSistema();
+        }
+        return instance;
+    }
+
+    /**
+     * Registra a duração da última gravação completa do estado do sistema.
+     *
+     * @param nanos duração em ns
+     */
+    public void registrarPersistencia(long nanos) {
+        ultimaPersistenciaNanos = nanos;
+    }
+
+    /**
+     * @return duração da última gravação completa do estado (ns), ou -1
+     */
+    public long getUltimaPersistenciaNanos() {
+        return ultimaPersistenciaNanos;
+    }
+
+    /**
+     * Monta o texto das métricas atuais.
+     *
+     * @return uma linha por grupo de métricas
+     */
+    public String getResumo() {
+        ArmazemHidrometros armazem = ArmazemHidrometros.getInstance();
+        int usuarios = UsuarioDAO.getInstance().getQuantidade();
+        int hidrometros = armazem.getQuantidade();
+        int contas = ContaDAO.getInstance().getQuantidade();
+
+        Runtime rt = Runtime.getRuntime();
+        long heapUsado = rt.totalMemory() - rt.freeMemory();
+
+        String n = System.lineSeparator();
+        StringBuilder sb = new StringBuilder("=== Métricas do sistema ===");
+        sb.append(n).append("Hidrômetros ativos: ").append(armazem.getQuantidadeRodando())
+                .append(" de ").append(hidrometros)
+                .append(String.format(" | Passos/s: %.1f", passosPorSegundo(armazem.getPassosExecutados())));
+        sb.append(n).append("Cadastros: ").append(usuarios).append(" usuários | ")
+                .append(hidrometros).append(" hidrômetros | ").append(contas).append(" contas");
+        sb.append(n).append(String.format("Heap: %.1f MB usados de %.1f MB", mb(heapUsado), mb(rt.maxMemory())))
+                .append(String.format(" | Estimado: usuários %.1f MB, hidrômetros %.1f MB, contas %.1f MB",
+                        mb((long) usuarios * BYTES_USUARIO), mb((long) hidrometros * BYTES_HIDROMETRO),
+                        mb((long) contas * BYTES_CONTA)));
+        sb.append(n).append(HidrometroDAO.getInstance().getCheckpoint().getResumo());
+        long persistencia = ultimaPersistenciaNanos;
+        sb.append(n).append("Última gravação completa (logout): ")
+                .append(persistencia < 0 ? "nenhuma ainda" : String.format("%.3f ms", persistencia / 1e6));
+        if (DiarioEventos.isAtivo()) {
+            sb.append(n).append(DiarioEventos.getInstance().getResumo());
+        }
+        sb.append(n).append(BarramentoEventos.getInstance().getResumo());
+        sb.append(n).append("Log: ").append(Logger.getInstance().getPendentes()).append(" registros pendentes");
+        return sb.toString();
+    }
+
+    /**
+     * Passos por segundo desde a consulta anterior (0 na primeira).
+     */
+    private synchronized double passosPorSegundo(long passos) {
+        long agora = System.nanoTime();
+        double taxa = 0;
+        if (passosAnteriores >= 0 && agora > instanteAnterior) {
+            taxa = (passos - passosAnteriores) * (double) TimeUnit.SECONDS.toNanos(1) / (agora - instanteAnterior);
+        }
+        passosAnteriores = passos;
+        instanteAnterior = agora;
+        return taxa;
+    }
+
+    private static double mb(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+}
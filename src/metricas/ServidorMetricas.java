@@ -0,0 +1,226 @@
+package metricas;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import conta.ContaDAO;
+import hidrometroSemOCR.ArmazemHidrometros;
+import hidrometroSemOCR.CheckpointHidrometros;
+import hidrometroSemOCR.HidrometroDAO;
+import src.BarramentoEventos;
+import src.Configuracoes;
+import src.Logger;
+import usuario.UsuarioDAO;
+
+/**
+ * Servidor de métricas no formato de exposição do Prometheus — Singleton
+ *
+ * Ativado pela chave ServidorMetricas=true, atende GET /metrics em
+ * localhost, na porta PortaMetricas (padrão 9464), com uma única thread.
+ * Publica:
+ * - motor de simulação: hidrômetros cadastrados e ativos, passos executados
+ * - DAOs: usuários e contas, memória estimada por entidade, duração e
+ *   bytes dos checkpoints e duração da última gravação completa
+ * - barramento de eventos: profundidade e contadores de cada fila
+ * - Logger: registros gravados e pendentes
+ * - operações do painel: resumo (p50, p99, p99.9, soma e contagem) por
+ *   operação e fase, a partir dos histogramas de {@link MetricasOperacoes}
+ *
+ * Como as {@link MetricasSistema}, só lê contadores mantidos pelos
+ * subsistemas: o custo da coleta não depende da quantidade de hidrômetros.
+ */
+public class ServidorMetricas {
+
+    /** Porta padrão (faixa usada por exportadores do Prometheus) */
+    private static final int PORTA_PADRAO = 9464;
+
+    /** Quantis publicados para cada histograma */
+    private static final double[] QUANTIS = { 0.5, 0.99, 0.999 };
+
+    /** Instância única */
+    private static ServidorMetricas instance;
+
+    /** Servidor HTTP (null enquanto não iniciado) */
+    private HttpServer servidor;
+
+    private ServidorMetricas() {}
+
+    /**
+     * Retorna a instância única.
+     */
+    public static synchronized ServidorMetricas getInstance() {
+        if (instance == null) {
+            instance = new ServidorMetricas();
+        }
+        return instance;
+    }
+
+    /**
+     * Inicia o servidor se ServidorMetricas=true. Sem efeito se já iniciado.
+     */
+    public synchronized void iniciarSeConfigurado() {
+        if (servidor != null || !Boolean.parseBoolean(Configuracoes.getString("ServidorMetricas", "false"))) {
+            return;
+        }
+
+        int porta = (int) Configuracoes.getLong("PortaMetricas", PORTA_PADRAO);
+        try {
+            servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), porta), 0);
+        } catch (IOException e) {
+            System.out.println("Falha ao iniciar o servidor de métricas na porta " + porta + ": " + e.getMessage());
+            return;
+        }
+        servidor.createContext("/metrics", this::atender);
+        servidor.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "sha-metricas-http");
+            t.setDaemon(true);
+            return t;
+        }));
+        servidor.start();
+    }
+
+    /**
+     * Encerra o servidor, se iniciado.
+     */
+    public synchronized void encerrar() {
+        if (servidor != null) {
+            servidor.stop(0);
+            servidor = null;
+        }
+    }
+
+    private void atender(HttpExchange troca) throws IOException {
+        try {
+            if (!"GET".equals(troca.getRequestMethod())) {
+                troca.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] corpo = coletar().getBytes(StandardCharsets.UTF_8);
+            troca.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            troca.sendResponseHeaders(200, corpo.length);
+            try (OutputStream out = troca.getResponseBody()) {
+                out.write(corpo);
+            }
+        } finally {
+            troca.close();
+        }
+    }
+
+    /**
+     * Monta o texto de exposição com todas as métricas.
+     *
+     * @return métricas no formato de texto do Prometheus
+     */
+    public String coletar() {
+        StringBuilder sb = new StringBuilder(4096);
+
+        ArmazemHidrometros armazem = ArmazemHidrometros.getInstance();
+        int usuarios = UsuarioDAO.getInstance().getQuantidade();
+        int hidrometros = armazem.getQuantidade();
+        int contas = ContaDAO.getInstance().getQuantidade();
+
+        metrica(sb, "sha_hidrometros", "gauge", "Hidrômetros cadastrados", hidrometros);
+        metrica(sb, "sha_hidrometros_ativos", "gauge", "Hidrômetros em simulação", armazem.getQuantidadeRodando());
+        metrica(sb, "sha_passos_simulacao_total", "counter", "Passos de simulação executados",
+                armazem.getPassosExecutados());
+        metrica(sb, "sha_usuarios", "gauge", "Usuários cadastrados", usuarios);
+        metrica(sb, "sha_contas", "gauge", "Contas de água cadastradas", contas);
+
+        cabecalho(sb, "sha_memoria_estimada_bytes", "gauge", "Memória estimada por tipo de entidade");
+        amostra(sb, "sha_memoria_estimada_bytes", "entidade=\"usuario\"", (long) usuarios * MetricasSistema.BYTES_USUARIO);
+        amostra(sb, "sha_memoria_estimada_bytes", "entidade=\"hidrometro\"",
+                (long) hidrometros * MetricasSistema.BYTES_HIDROMETRO);
+        amostra(sb, "sha_memoria_estimada_bytes", "entidade=\"conta\"", (long) contas * MetricasSistema.BYTES_CONTA);
+
+        Runtime rt = Runtime.getRuntime();
+        metrica(sb, "sha_heap_usado_bytes", "gauge", "Heap usado pela JVM", rt.totalMemory() - rt.freeMemory());
+
+        CheckpointHidrometros checkpoint = HidrometroDAO.getInstance().getCheckpoint();
+        metrica(sb, "sha_checkpoint_duracao_segundos", "gauge", "Duração do último checkpoint dos hidrômetros",
+                checkpoint.getUltimaDuracaoMs() / 1e3);
+        metrica(sb, "sha_checkpoint_bytes_total", "counter", "Bytes gravados pelos checkpoints",
+                checkpoint.getBytesGravados());
+        long persistencia = MetricasSistema.getInstance().getUltimaPersistenciaNanos();
+        if (persistencia >= 0) {
+            metrica(sb, "sha_gravacao_completa_duracao_segundos", "gauge",
+                    "Duração da última gravação completa do estado (logout)", persistencia / 1e9);
+        }
+
+        cabecalho(sb, "sha_eventos_fila", "gauge", "Eventos aguardando entrega, por Observer");
+        for (BarramentoEventos.EstatisticaFila f : BarramentoEventos.getInstance().getEstatisticasFilas()) {
+            amostra(sb, "sha_eventos_fila", "observer=\"" + f.observer + "\"", f.profundidade);
+        }
+        cabecalho(sb, "sha_eventos_total", "counter", "Eventos por Observer e resultado");
+        for (BarramentoEventos.EstatisticaFila f : BarramentoEventos.getInstance().getEstatisticasFilas()) {
+            amostra(sb, "sha_eventos_total", "observer=\"" + f.observer + "\",resultado=\"entregue\"", f.entregues);
+            amostra(sb, "sha_eventos_total", "observer=\"" + f.observer + "\",resultado=\"descartado\"", f.descartados);
+            amostra(sb, "sha_eventos_total", "observer=\"" + f.observer + "\",resultado=\"coalescido\"", f.coalescidos);
+        }
+
+        Logger log = Logger.getInstance();
+        metrica(sb, "sha_log_registros_total", "counter", "Registros gravados no log", log.getGravados());
+        metrica(sb, "sha_log_pendentes", "gauge", "Registros aguardando a thread de escrita do log",
+                log.getPendentes());
+
+        operacoes(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Publica cada histograma de operação como um resumo do Prometheus.
+     */
+    private static void operacoes(StringBuilder sb) {
+        String nome = "sha_operacao_duracao_segundos";
+        cabecalho(sb, nome, "summary", "Duração das operações do painel, por fase");
+        for (MetricasOperacoes.Operacao o : MetricasOperacoes.getInstance().getOperacoes()) {
+            for (MetricasOperacoes.Fase fase : MetricasOperacoes.Fase.values()) {
+                Histograma h = o.getHistograma(fase);
+                if (h.getTotal() == 0) {
+                    continue;
+                }
+                String rotulos = "operacao=\"" + o.getNome() + "\",fase=\"" + fase.getNome() + "\"";
+                for (double q : QUANTIS) {
+                    amostra(sb, nome, rotulos + ",quantile=\"" + q + "\"", h.percentil(q * 100) / 1e9);
+                }
+                amostra(sb, nome + "_sum", rotulos, h.getSoma() / 1e9);
+                amostra(sb, nome + "_count", rotulos, h.getTotal());
+            }
+        }
+
+        cabecalho(sb, "sha_operacao_erros_total", "counter", "Execuções de operações interrompidas por exceção");
+        for (MetricasOperacoes.Operacao o : MetricasOperacoes.getInstance().getOperacoes()) {
+            amostra(sb, "sha_operacao_erros_total", "operacao=\"" + o.getNome() + "\"", o.getFalhas());
+        }
+    }
+
+    private static void metrica(StringBuilder sb, String nome, String tipo, String ajuda, double valor) {
+        cabecalho(sb, nome, tipo, ajuda);
+        amostra(sb, nome, null, valor);
+    }
+
+    private static void cabecalho(StringBuilder sb, String nome, String tipo, String ajuda) {
+        sb.append("# HELP ").append(nome).append(' ').append(ajuda).append('\n');
+        sb.append("# TYPE ").append(nome).append(' ').append(tipo).append('\n');
+    }
+
+    private static void amostra(StringBuilder sb, String nome, String rotulos, double valor) {
+        sb.append(nome);
+        if (rotulos != null) {
+            sb.append('{').append(rotulos).append('}');
+        }
+        sb.append(' ');
+        if (valor == Math.rint(valor) && Math.abs(valor) < 1e15) {
+            sb.append((long) valor);
+        } else {
+            sb.append(valor);
+        }
+        sb.append('\n');
+    }
+}
@@ -6,5 +6,10 @@
  */
 module PainelSHA {
 	requires tess4j;
+	requires com.sun.jna;
+	requires org.bytedeco.javacpp;
+	requires org.bytedeco.opencv;
 	requires java.desktop;
+	requires jdk.httpserver;
+	requires jdk.jfr;
 }
\ No newline at end of file
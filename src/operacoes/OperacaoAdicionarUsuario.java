@@ -39,7 +39,7 @@ public class OperacaoAdicionarUsuario extends OperacaoPainel {
 	@Override
 	protected void processar() throws UsuarioExistenteException {
 		fachada.adicionarUsuario(nome, loginCPF, senha);
-		log.info("Usuário " + nome + "CPF: "+loginCPF+" adicionado com sucesso.");
+		log.info("Usuário " + nome + "CPF: "+loginCPF+" adicionado com sucesso.", loginCPF, null);
 		System.out.println("Usuário adicionado com sucesso.");
 	}
 
@@ -0,0 +1,55 @@
+package operacoes;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Scanner;
+
+import src.FachadaSHA;
+import src.Logger;
+
+public class OperacaoLerFotosEmLote extends OperacaoPainel {
+
+	private FachadaSHA fachada;
+	private String diretorio;
+	private String relatorio;
+	private Logger log = Logger.getInstance();
+
+	public OperacaoLerFotosEmLote(FachadaSHA fachada) {
+		this.fachada = fachada;
+	}
+
+	@Override
+	protected void lerDados() {
+		Scanner sc = new Scanner(System.in);
+		System.out.println("Digite o diretorio das fotos (nome do arquivo = ID do hidrometro, ex.: 7199209.jpeg)");
+		diretorio = sc.nextLine().trim();
+	}
+
+	@Override
+	protected void validar() {
+		if (diretorio.isEmpty() || !new File(diretorio).isDirectory()) {
+			throw new IllegalArgumentException("Diretório não encontrado: " + diretorio);
+		}
+	}
+
+	@Override
+	protected void processar() {
+		try {
+			relatorio = fachada.lerFotosEmLote(diretorio);
+			log.info("Lote de fotos processado (" + diretorio + "): " + relatorio.lines().findFirst().orElse(""));
+		} catch (IOException e) {
+			System.out.println("Erro ao ler o diretório: " + e.getMessage());
+			log.error("Erro ao processar o lote de fotos de " + diretorio, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	protected void exibirResultado() {
+		if (relatorio != null) {
+			System.out.println(relatorio);
+		}
+	}
+
+}
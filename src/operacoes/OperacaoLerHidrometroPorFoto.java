@@ -0,0 +1,65 @@
+package operacoes;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Scanner;
+
+import hidrometroComOCR.LeituraOCR;
+import src.FachadaSHA;
+import src.Logger;
+
+public class OperacaoLerHidrometroPorFoto extends OperacaoPainel {
+
+	private FachadaSHA fachada;
+	private String id;
+	private String caminho;
+	private LeituraOCR leitura;
+	private Logger log = Logger.getInstance();
+
+	public OperacaoLerHidrometroPorFoto(FachadaSHA fachada) {
+		this.fachada = fachada;
+	}
+
+	@Override
+	protected void lerDados() {
+		Scanner sc = new Scanner(System.in);
+		System.out.println("Digite o ID do hidrometro");
+		id = sc.nextLine().trim();
+		System.out.println("Digite o caminho da foto do mostrador");
+		caminho = sc.nextLine().trim();
+	}
+
+	@Override
+	protected void validar() {
+		if (id.isEmpty() || caminho.isEmpty()) {
+			throw new IllegalArgumentException("ID e caminho da foto são obrigatórios.");
+		}
+		if (!fachada.existeHidrometro(id)) {
+			throw new IllegalArgumentException("O hidrometro com o ID informado não existe.");
+		}
+		if (!new File(caminho).isFile()) {
+			throw new IllegalArgumentException("Arquivo não encontrado: " + caminho);
+		}
+	}
+
+	@Override
+	protected void processar() {
+		try {
+			leitura = fachada.lerHidrometroPorFoto(id, caminho);
+			log.info("Leitura do hidrometro " + id + " por foto (" + caminho + "): " + leitura, null, id);
+		} catch (IOException e) {
+			System.out.println("Erro ao ler a foto: " + e.getMessage());
+			log.error("Erro ao ler a foto do hidrometro " + id, e, null, id);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	protected void exibirResultado() {
+		if (leitura != null) {
+			System.out.println("Leitura reconhecida: " + leitura);
+		}
+	}
+
+}
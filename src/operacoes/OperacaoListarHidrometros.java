@@ -29,6 +29,8 @@ public class OperacaoListarHidrometros extends OperacaoPainel{
 		for (Hidrometro hidrometro: fachada.listarHidrometros()) {
 			System.out.println("- " + hidrometro);
 		}
+		System.out.println(fachada.resumoExecucaoHidrometros());
+		System.out.println(fachada.resumoCheckpointHidrometros());
 		log.info("Hidrometros listados com sucesso.");
 	}
 
@@ -47,11 +47,11 @@ public class OperacaoLogin extends OperacaoPainel{
 		}
 		try {
 			fachada.fazerLogin(login, senha);
-			log.info("Usuário " + login + " logado com sucesso.");
+			log.info("Usuário " + login + " logado com sucesso.", login, null);
 			
 		} catch (LoginException e) {
 			System.out.println("Erro: " + e.getMessage());
-			log.error("Falha no login para o usuário " + login , e);
+			log.error("Falha no login para o usuário " + login , e, login, null);
 		}
 		
 	}
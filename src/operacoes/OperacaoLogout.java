@@ -29,7 +29,7 @@ public class OperacaoLogout extends OperacaoPainel{
 		String usuarioLogado = fachada.getUsuarioLogado().getLogin();
 		fachada.fazerLogout();
 		System.out.println("Logout realizado com sucesso.");
-		log.info("Usuário "+usuarioLogado+" deslogado com sucesso.");
+		log.info("Usuário "+usuarioLogado+" deslogado com sucesso.", usuarioLogado, null);
 		
 	}
 
@@ -0,0 +1,66 @@
+package operacoes;
+
+import java.util.Scanner;
+
+import src.FachadaSHA;
+import src.Logger;
+
+public class OperacaoMetricasSistema extends OperacaoPainel {
+
+	/** Limite de atualizações, para não prender o painel indefinidamente */
+	private static final int MAXIMO_ATUALIZACOES = 300;
+
+	private FachadaSHA fachada;
+	private String entrada;
+	private int atualizacoes;
+	private Logger log = Logger.getInstance();
+
+	public OperacaoMetricasSistema(FachadaSHA fachada) {
+		this.fachada = fachada;
+	}
+
+	@Override
+	protected void lerDados() {
+		Scanner sc = new Scanner(System.in);
+		System.out.println("Atualizar a cada segundo por quantos segundos? (Enter para exibir uma vez)");
+		entrada = sc.nextLine().trim();
+	}
+
+	@Override
+	protected void validar() {
+		if (entrada.isEmpty()) {
+			atualizacoes = 1;
+			return;
+		}
+		try {
+			atualizacoes = Integer.parseInt(entrada);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Informe um número de segundos.");
+		}
+		if (atualizacoes < 1 || atualizacoes > MAXIMO_ATUALIZACOES) {
+			throw new IllegalArgumentException("Informe entre 1 e " + MAXIMO_ATUALIZACOES + " segundos.");
+		}
+	}
+
+	@Override
+	protected void processar() {
+		for (int i = 0; i < atualizacoes; i++) {
+			if (i > 0) {
+				try {
+					Thread.sleep(1000);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			System.out.println(fachada.resumoMetricasSistema());
+		}
+		log.info("Métricas do sistema exibidas.");
+	}
+
+	@Override
+	protected void exibirResultado() {
+		System.out.println(fachada.relatorioLatenciasOperacoes());
+	}
+
+}
@@ -1,15 +1,51 @@
 package operacoes;
 
+import metricas.EventoOperacaoPainel;
+import metricas.MetricasOperacoes;
+import metricas.MetricasOperacoes.Fase;
+import src.Logger;
 import usuario.UsuarioExistenteException;
 
 public abstract class OperacaoPainel {
 
     // TEMPLATE METHOD
+    // Os registros de log feitos durante a operação levam o nome e a latência dela
+    // A duração de cada fase vai para os histogramas da operação (MetricasOperacoes)
+    // e cada execução vira um evento JFR (EventoOperacaoPainel)
     public final void executar() throws UsuarioExistenteException {
-        lerDados();
-        validar();
-        processar();
-        exibirResultado();
+        Logger log = Logger.getInstance();
+        MetricasOperacoes.Operacao metricas = MetricasOperacoes.getInstance().de(getClass());
+        boolean concluida = false;
+        EventoOperacaoPainel jfr = new EventoOperacaoPainel();
+        jfr.begin();
+
+        log.iniciarOperacao(getClass().getSimpleName());
+        long inicio = System.nanoTime();
+        long fase = inicio;
+        try {
+            lerDados();
+            fase = metricas.registrar(Fase.LER_DADOS, fase);
+            validar();
+            fase = metricas.registrar(Fase.VALIDAR, fase);
+            processar();
+            fase = metricas.registrar(Fase.PROCESSAR, fase);
+            exibirResultado();
+            metricas.registrar(Fase.EXIBIR_RESULTADO, fase);
+            concluida = true;
+        } finally {
+            metricas.registrar(Fase.TOTAL, inicio);
+            if (!concluida) {
+                metricas.registrarFalha();
+            }
+            log.encerrarOperacao();
+
+            jfr.end();
+            if (jfr.shouldCommit()) {
+                jfr.operacao = getClass().getSimpleName();
+                jfr.concluida = concluida;
+                jfr.commit();
+            }
+        }
     }
 
     protected abstract void lerDados();
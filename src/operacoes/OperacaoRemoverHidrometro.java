@@ -40,14 +40,14 @@ public class OperacaoRemoverHidrometro extends OperacaoPainel {
 		try {
 			if(fachada.existeHidrometro(id)) {
 				fachada.removerHidrometro(id);
-				log.info("Hidrometro com ID " + id + " removido com sucesso.");
+				log.info("Hidrometro com ID " + id + " removido com sucesso.", null, id);
 				System.out.println("Hidrometro removido com sucesso.");
 			}else {
 				System.out.println("O hidrometro com o ID informado não existe.");
 			}
 		} catch (Exception e) {
 			System.out.println("Erro ao remover hidrometro: " + e.getMessage());
-			log.error("Erro ao remover hidrometro com ID " + id, e);
+			log.error("Erro ao remover hidrometro com ID " + id, e, null, id);
 		}
 		
 	}
@@ -31,7 +31,7 @@ public class OperacaoRemoverUsuario extends OperacaoPainel {
 					log.error("Tentativa de remoção de usuário com CPF vazio.",null);
 					throw new IllegalArgumentException("CPF não pode ser vazio.");
 				}if(cpf.equals(fachada.getUsuarioLogado().getLogin())) {
-					log.error("Tentativa de remoção do usuário logado.",null);
+					log.error("Tentativa de remoção do usuário logado.", null, cpf, null);
 					throw new IllegalArgumentException("Não é possível remover o usuário logado.");
 				}
 		
@@ -42,14 +42,14 @@ public class OperacaoRemoverUsuario extends OperacaoPainel {
 		try {
 			if(fachada.existeUsuario(cpf)) {
 				fachada.removerUsuario(cpf);
-				log.info("Usuário com CPF " + cpf + " removido com sucesso.");
+				log.info("Usuário com CPF " + cpf + " removido com sucesso.", cpf, null);
 				System.out.println("Usuário removido com sucesso.");
 			}else {
-				log.info("Tentativa de remoção de usuário inexistente com CPF " + cpf + ".");
+				log.info("Tentativa de remoção de usuário inexistente com CPF " + cpf + ".", cpf, null);
 				System.out.println("Usuário com o CPF informado não existe.");
 			}
 		} catch (Exception e) {
-			log.error("Erro ao remover usuário com CPF " + cpf, e);
+			log.error("Erro ao remover usuário com CPF " + cpf, e, cpf, null);
 			System.out.println("Erro ao remover usuário: " + e.getMessage());
 		}
 		
@@ -34,14 +34,14 @@ public class OperaçãoCriarContaDeAgua extends OperacaoPainel {
 			log.error("Erro ao criar conta de água: ID do usuário ou ID do hidrômetro vazio.",null);
 			throw new IllegalArgumentException("ID do usuário e ID do hidrômetro não podem ser vazios.");
 		}if(!fachada.existeUsuario(idUsuario)) {
-			log.error("Erro ao criar conta de água: Usuário com o ID fornecido não existe.",null);
+			log.error("Erro ao criar conta de água: Usuário com o ID fornecido não existe.", null, idUsuario, idHidrometro);
 			throw new IllegalArgumentException("Usuário com o ID fornecido não existe.");
 		}if(!fachada.existeHidrometro(idHidrometro)) {
-			log.error("Erro ao criar conta de água: Hidrômetro com o ID fornecido não existe.",null);
+			log.error("Erro ao criar conta de água: Hidrômetro com o ID fornecido não existe.", null, idUsuario, idHidrometro);
 			throw new IllegalArgumentException("Hidrômetro com o ID fornecido não existe.");
 		}
 		fachada.criarContaDeAgua(idUsuario, idHidrometro);
-		log.info("Conta de água criada com sucesso para o usuário " + idUsuario + " e hidrômetro " + idHidrometro + ".");
+		log.info("Conta de água criada com sucesso para o usuário " + idUsuario + " e hidrômetro " + idHidrometro + ".", idUsuario, idHidrometro);
 		System.out.println("Conta de água criada com sucesso para o usuário " + idUsuario + " e hidrômetro " + idHidrometro + ".");
 		
 	}
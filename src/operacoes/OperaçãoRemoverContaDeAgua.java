@@ -40,14 +40,14 @@ public class OperaçãoRemoverContaDeAgua extends OperacaoPainel {
 		try {
 			if(fachada.existeConta(id)) {
 				fachada.removerConta(id);
-				log.info("Conta com ID " + id + " removido com sucesso.");
+				log.info("Conta com ID " + id + " removido com sucesso.", null, id);
 				System.out.println("Conta removida com sucesso.");
 			}else {
 				System.out.println("A conta com o ID informado não existe.");
 			}
 		} catch (Exception e) {
 			System.out.println("Erro ao remover conta: " + e.getMessage());
-			log.error("Erro ao remover conta com ID " + id, e);
+			log.error("Erro ao remover conta com ID " + id, e, null, id);
 		}
 		
 	}
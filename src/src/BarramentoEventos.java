@@ -0,0 +1,454 @@
+package src;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import metricas.EventoDespachoObserver;
+
+/**
+ * Barramento de eventos — Singleton
+ *
+ * Entrega os {@link Evento}s publicados pelos Subjects (UsuarioDAO,
+ * HidrometroDAO) aos seus Observers. A chave ModoBarramentoEventos
+ * define a entrega:
+ * - SINCRONO   → cada Observer é chamado na thread de quem publicou (padrão)
+ * - ASSINCRONO → cada Observer tem uma fila limitada e uma thread de
+ *   entrega própria; quem publica não espera Observers lentos
+ *
+ * No modo assíncrono cada Observer recebe os eventos na ordem em que
+ * foram publicados, vindos de qualquer Subject; em particular, os
+ * eventos de uma mesma entidade (mesmo ID) nunca chegam fora de ordem.
+ *
+ * Quando a fila de um Observer enche (CapacidadeFilaEventos, padrão 1024),
+ * vale a política PoliticaFilaEventos:
+ * - BLOQUEAR              → quem publica espera haver espaço (padrão)
+ * - DESCARTAR_MAIS_ANTIGO → o LEITURA_ATUALIZADA mais antigo da fila é
+ *   descartado; remoções (USUARIO_REMOVIDO, HIDROMETRO_REMOVIDO, avulsas
+ *   ou em lote) nunca são descartadas, pois deixariam contas órfãs, e sem
+ *   leitura na fila quem publica espera como em BLOQUEAR
+ * - COALESCER             → um evento do mesmo tipo e ID ainda na fila é
+ *   descartado e o novo entra no fim da fila, preservando a ordem em
+ *   relação aos demais eventos; sem evento igual, espera como em BLOQUEAR
+ *
+ * Com espaço na fila, todas as políticas apenas enfileiram o evento.
+ * Um valor desconhecido em PoliticaFilaEventos é avisado e substituído
+ * por BLOQUEAR. {@link #encerrar()} entrega os eventos pendentes e para
+ * as threads de entrega.
+ */
+public class BarramentoEventos {
+
+    /** Modos de entrega */
+    public static final String MODO_SINCRONO = "SINCRONO";
+    public static final String MODO_ASSINCRONO = "ASSINCRONO";
+
+    /** Políticas de fila cheia */
+    public enum Politica {
+        BLOQUEAR,
+        DESCARTAR_MAIS_ANTIGO,
+        COALESCER
+    }
+
+    /** Instância única do barramento */
+    private static BarramentoEventos instance;
+
+    /** Indica se a entrega é assíncrona */
+    private final boolean assincrono;
+
+    /** Capacidade da fila de cada Observer */
+    private final int capacidade;
+
+    /** Política de fila cheia */
+    private final Politica politica;
+
+    /** Assinatura (fila + thread) de cada Observer no modo assíncrono */
+    private final Map<Observer, Assinatura> assinaturas = new ConcurrentHashMap<>();
+
+    /** Depois de encerrado, os eventos são entregues na thread de quem publica */
+    private volatile boolean encerrado;
+
+    /**
+     * Construtor privado (Singleton).
+     */
+    private BarramentoEventos() {
+        assincrono = MODO_ASSINCRONO.equalsIgnoreCase(
+                Configuracoes.getString("ModoBarramentoEventos", MODO_SINCRONO));
+        capacidade = (int) Configuracoes.getLong("CapacidadeFilaEventos", 1024);
+        politica = politicaConfigurada();
+    }
+
+    /**
+     * Lê PoliticaFilaEventos; valores desconhecidos usam BLOQUEAR.
+     */
+    private static Politica politicaConfigurada() {
+        String nome = Configuracoes.getString("PoliticaFilaEventos", Politica.BLOQUEAR.name());
+        for (Politica p : Politica.values()) {
+            if (p.name().equalsIgnoreCase(nome.trim())) {
+                return p;
+            }
+        }
+        System.out.println("Política de fila de eventos desconhecida: " + nome
+                + ". Usando " + Politica.BLOQUEAR + ".");
+        return Politica.BLOQUEAR;
+    }
+
+    /**
+     * Retorna a instância única do barramento.
+     *
+     * @return instância singleton
+     */
+    public static synchronized BarramentoEventos getInstance() {
+        if (instance == null) {
+            instance = new BarramentoEventos();
+        }
+        return instance;
+    }
+
+    // ===================== PUBLICAÇÃO =====================
+
+    /**
+     * Entrega um evento a uma lista de Observers.
+     *
+     * @param evento evento publicado
+     * @param observers Observers do Subject que publicou
+     */
+    public void publicar(Evento evento, List<Observer> observers) {
+        for (Observer o : observers) {
+            // Publicado durante o encerramento: entrega na thread de quem publica
+            if (!assincrono || encerrado || !assinatura(o).enfileirar(evento)) {
+                entregar(o, evento, false);
+            }
+        }
+    }
+
+    /**
+     * Aguarda até que todas as filas estejam vazias e os eventos
+     * em andamento tenham sido entregues. Sem efeito no modo síncrono.
+     *
+     * Usado antes de salvar o estado do sistema, para que nenhuma
+     * remoção em cascata fique pendente.
+     */
+    public void esvaziar() {
+        for (Assinatura a : assinaturas.values()) {
+            a.aguardarVazia();
+        }
+    }
+
+    /**
+     * Entrega os eventos pendentes e para as threads de entrega.
+     * Eventos publicados depois disso são entregues de forma síncrona.
+     * Chamado ao encerrar o painel.
+     */
+    public void encerrar() {
+        encerrado = true;
+        for (Assinatura a : assinaturas.values()) {
+            a.parar();
+        }
+        assinaturas.clear();
+    }
+
+    /**
+     * Chama o Observer, registrando a entrega no JFR ({@link EventoDespachoObserver}).
+     */
+    private static void entregar(Observer o, Evento evento, boolean assincrono) {
+        EventoDespachoObserver jfr = new EventoDespachoObserver();
+        jfr.begin();
+        o.atualizar(evento);
+        jfr.end();
+        if (jfr.shouldCommit()) {
+            jfr.observer = o.getClass().getSimpleName();
+            jfr.tipo = evento.getTipo().name();
+            jfr.entidades = evento.getIds().size();
+            jfr.assincrono = assincrono;
+            jfr.commit();
+        }
+    }
+
+    private Assinatura assinatura(Observer o) {
+        Assinatura a = assinaturas.get(o);
+        return a != null ? a : assinaturas.computeIfAbsent(o, Assinatura::new);
+    }
+
+    // ===================== MÉTRICAS =====================
+
+    /**
+     * Retorna um resumo das filas: profundidade atual e máxima,
+     * eventos entregues, descartados e coalescidos e a latência
+     * de entrega (da publicação ao fim do atualizar).
+     *
+     * @return texto com uma linha por Observer
+     */
+    public String getResumo() {
+        if (!assincrono) {
+            return "Barramento de eventos: " + MODO_SINCRONO;
+        }
+
+        StringBuilder sb = new StringBuilder("Barramento de eventos: " + MODO_ASSINCRONO
+                + " (" + politica + ", capacidade " + capacidade + ")");
+        for (Assinatura a : assinaturas.values()) {
+            sb.append(System.lineSeparator()).append("  ").append(a.getResumo());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Retorna os números de cada fila (modo assíncrono; vazio no síncrono).
+     *
+     * @return uma estatística por Observer
+     */
+    public List<EstatisticaFila> getEstatisticasFilas() {
+        List<EstatisticaFila> lista = new ArrayList<>();
+        for (Assinatura a : assinaturas.values()) {
+            lista.add(a.getEstatistica());
+        }
+        return lista;
+    }
+
+    /**
+     * Números de uma fila em um instante.
+     */
+    public static final class EstatisticaFila {
+        public final String observer;
+        public final int profundidade;
+        public final long entregues;
+        public final long descartados;
+        public final long coalescidos;
+
+        EstatisticaFila(String observer, int profundidade, long entregues, long descartados, long coalescidos) {
+            this.observer = observer;
+            this.profundidade = profundidade;
+            this.entregues = entregues;
+            this.descartados = descartados;
+            this.coalescidos = coalescidos;
+        }
+    }
+
+    // ===================== ASSINATURA =====================
+
+    /**
+     * Fila limitada e thread de entrega de um Observer.
+     */
+    private final class Assinatura implements Runnable {
+
+        private final Observer observer;
+
+        private final ReentrantLock trava = new ReentrantLock();
+        private final Condition naoVazia = trava.newCondition();
+        private final Condition naoCheia = trava.newCondition();
+        private final Condition ociosa = trava.newCondition();
+
+        /** Eventos pendentes, na ordem de publicação */
+        private final ArrayDeque<Pendente> fila = new ArrayDeque<>();
+
+        /** Eventos pendentes por chave (tipo + ID), usado pela política COALESCER */
+        private final Map<String, Pendente> porChave = new HashMap<>();
+
+        private boolean entregando;
+
+        /** Pedido de parada: a thread termina quando a fila esvaziar */
+        private boolean parando;
+
+        private final Thread thread;
+
+        // Métricas (protegidas pela trava)
+        private int profundidadeMaxima;
+        private long entregues;
+        private long descartados;
+        private long coalescidos;
+        private long latenciaTotalNanos;
+        private long latenciaMaximaNanos;
+
+        Assinatura(Observer observer) {
+            this.observer = observer;
+            thread = new Thread(this, "sha-eventos-" + observer.getClass().getSimpleName());
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Enfileira o evento segundo a política de fila cheia.
+         *
+         * @return false se a assinatura já foi parada (o evento não entrou na fila)
+         */
+        boolean enfileirar(Evento evento) {
+            String chave = chave(evento);
+
+            trava.lock();
+            try {
+                while (!parando && fila.size() >= capacidade) {
+                    Pendente igual = chave == null ? null : porChave.get(chave);
+
+                    if (politica == Politica.DESCARTAR_MAIS_ANTIGO && descartarLeituraMaisAntiga()) {
+                        descartados++;
+                    } else if (politica == Politica.COALESCER && igual != null) {
+                        // O novo vai para o fim, depois dos eventos publicados entre os dois
+                        fila.remove(igual);
+                        porChave.remove(chave);
+                        coalescidos++;
+                    } else {
+                        naoCheia.awaitUninterruptibly();
+                    }
+                }
+                // Assinatura parada (inclusive durante a espera): não enfileira
+                if (parando) {
+                    return false;
+                }
+
+                Pendente p = new Pendente(evento, chave, System.nanoTime());
+                fila.addLast(p);
+                if (chave != null) {
+                    porChave.put(chave, p);
+                }
+                profundidadeMaxima = Math.max(profundidadeMaxima, fila.size());
+                naoVazia.signal();
+                return true;
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        /**
+         * Remove da fila o LEITURA_ATUALIZADA mais antigo, o único tipo de
+         * evento que pode ser perdido (a próxima leitura o substitui).
+         *
+         * @return false se a fila não tiver nenhuma leitura
+         */
+        private boolean descartarLeituraMaisAntiga() {
+            Iterator<Pendente> it = fila.iterator();
+            while (it.hasNext()) {
+                Pendente p = it.next();
+                if (p.evento.getTipo() == Evento.Tipo.LEITURA_ATUALIZADA) {
+                    it.remove();
+                    porChave.remove(p.chave, p);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Pendente p;
+
+                trava.lock();
+                try {
+                    while (fila.isEmpty()) {
+                        entregando = false;
+                        ociosa.signalAll();
+                        if (parando) {
+                            return;
+                        }
+                        naoVazia.awaitUninterruptibly();
+                    }
+                    p = fila.pollFirst();
+                    porChave.remove(p.chave, p);
+                    entregando = true;
+                    naoCheia.signal();
+                } finally {
+                    trava.unlock();
+                }
+
+                try {
+                    entregar(observer, p.evento, true);
+                } catch (RuntimeException e) {
+                    // Um Observer com erro não pode parar a entrega dos próximos eventos
+                    e.printStackTrace();
+                }
+
+                long latencia = System.nanoTime() - p.publicadoNanos;
+                trava.lock();
+                try {
+                    entregues++;
+                    latenciaTotalNanos += latencia;
+                    latenciaMaximaNanos = Math.max(latenciaMaximaNanos, latencia);
+                } finally {
+                    trava.unlock();
+                }
+            }
+        }
+
+        /**
+         * Pede a parada da thread e aguarda a entrega dos eventos pendentes.
+         */
+        void parar() {
+            trava.lock();
+            try {
+                parando = true;
+                naoVazia.signal();
+            } finally {
+                trava.unlock();
+            }
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void aguardarVazia() {
+            trava.lock();
+            try {
+                while (!fila.isEmpty() || entregando) {
+                    ociosa.awaitUninterruptibly();
+                }
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        EstatisticaFila getEstatistica() {
+            trava.lock();
+            try {
+                return new EstatisticaFila(observer.getClass().getSimpleName(),
+                        fila.size(), entregues, descartados, coalescidos);
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        String getResumo() {
+            trava.lock();
+            try {
+                double mediaMs = entregues == 0 ? 0 : latenciaTotalNanos / 1e6 / entregues;
+                return observer.getClass().getSimpleName()
+                        + ": fila " + fila.size() + " (máx. " + profundidadeMaxima + ")"
+                        + " | entregues " + entregues
+                        + " | descartados " + descartados
+                        + " | coalescidos " + coalescidos
+                        + String.format(" | latência média %.3f ms, máx. %.3f ms",
+                                mediaMs, latenciaMaximaNanos / 1e6);
+            } finally {
+                trava.unlock();
+            }
+        }
+    }
+
+    /**
+     * Evento na fila, com o instante da publicação para medir a latência.
+     */
+    private static final class Pendente {
+        final Evento evento;
+        final String chave;
+        final long publicadoNanos;
+
+        Pendente(Evento evento, String chave, long publicadoNanos) {
+            this.evento = evento;
+            this.chave = chave;
+            this.publicadoNanos = publicadoNanos;
+        }
+    }
+
+    /**
+     * Chave de coalescência: tipo e ID. Eventos em lote não são coalescidos.
+     */
+    private static String chave(Evento evento) {
+        return evento.isLote() ? null : evento.getTipo() + ":" + evento.getId();
+    }
+}
@@ -0,0 +1,126 @@
+package src;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Buffer circular limitado, sem locks, com vários produtores e um único consumidor.
+ *
+ * Cada posição tem um número de sequência que diz de quem é a vez:
+ * - sequência == posição          → livre para o produtor daquela posição
+ * - sequência == posição + 1      → preenchida, pronta para o consumidor
+ * - sequência == posição + tamanho → liberada para a próxima volta
+ *
+ * Produtores disputam a próxima posição com um único compareAndSet
+ * e depois escrevem sem coordenação; o consumidor não usa operações
+ * atômicas de leitura-modificação-escrita.
+ *
+ * @param <T> tipo dos elementos
+ */
+public class BufferCircular<T> {
+
+    /** Elementos (tamanho potência de 2) */
+    private final AtomicReferenceArray<T> elementos;
+
+    /** Sequência de cada posição */
+    private final AtomicLongArray sequencias;
+
+    /** Máscara para converter posição em índice */
+    private final int mascara;
+
+    /** Próxima posição a ser reservada pelos produtores */
+    private final AtomicLong cauda = new AtomicLong();
+
+    /** Próxima posição a ser lida pelo consumidor (apenas a thread consumidora escreve) */
+    private volatile long cabeca;
+
+    /**
+     * @param capacidadeMinima capacidade desejada (arredondada para potência de 2)
+     */
+    public BufferCircular(int capacidadeMinima) {
+        int capacidade = Integer.highestOneBit(Math.max(2, capacidadeMinima - 1)) << 1;
+        this.elementos = new AtomicReferenceArray<>(capacidade);
+        this.sequencias = new AtomicLongArray(capacidade);
+        this.mascara = capacidade - 1;
+
+        for (int i = 0; i < capacidade; i++) {
+            sequencias.set(i, i);
+        }
+    }
+
+    /**
+     * Tenta inserir um elemento (qualquer thread).
+     *
+     * @param elemento elemento a inserir
+     * @return false se o buffer estiver cheio
+     */
+    public boolean oferecer(T elemento) {
+        while (true) {
+            long posicao = cauda.get();
+            int indice = (int) posicao & mascara;
+            long diferenca = sequencias.get(indice) - posicao;
+
+            if (diferenca == 0) {
+                if (cauda.compareAndSet(posicao, posicao + 1)) {
+                    elementos.lazySet(indice, elemento);
+                    sequencias.set(indice, posicao + 1);
+                    return true;
+                }
+            } else if (diferenca < 0) {
+                return false;
+            }
+            // diferenca > 0: outro produtor reservou a posição; tenta a seguinte
+        }
+    }
+
+    /**
+     * Retira até {@code maximo} elementos, na ordem de inserção
+     * (apenas a thread consumidora).
+     *
+     * @param destino recebe cada elemento retirado
+     * @param maximo quantidade máxima de elementos
+     * @return quantidade de elementos retirados
+     */
+    public int drenar(Consumer<T> destino, int maximo) {
+        long posicao = cabeca;
+        int retirados = 0;
+
+        while (retirados < maximo) {
+            int indice = (int) posicao & mascara;
+            if (sequencias.get(indice) != posicao + 1) {
+                break;
+            }
+
+            T elemento = elementos.get(indice);
+            elementos.lazySet(indice, null);
+            sequencias.set(indice, posicao + mascara + 1);
+            destino.accept(elemento);
+
+            posicao++;
+            retirados++;
+        }
+
+        cabeca = posicao;
+        return retirados;
+    }
+
+    /**
+     * Retorna a quantidade de posições já reservadas pelos produtores.
+     *
+     * @return total de inserções reservadas desde a criação
+     */
+    public long getReservados() {
+        return cauda.get();
+    }
+
+    /**
+     * Retorna a quantidade de elementos já retirados pelo consumidor.
+     *
+     * @return total de retiradas desde a criação
+     */
+    public long getRetirados() {
+        return cabeca;
+    }
+}
@@ -55,4 +55,40 @@ public class Configuracoes {
             return "!" + key + "!";
         }
     }
+
+    /**
+     * Retorna o valor associado a uma chave ou um valor padrão
+     * quando a chave não estiver definida no arquivo.
+     *
+     * Útil para configurações opcionais, que não precisam existir
+     * em instalações antigas do sistema.
+     *
+     * @param key chave definida no arquivo configuracoesSistema.properties
+     * @param padrao valor retornado caso a chave não exista
+     * @return valor da chave (sem espaços nas pontas) ou o valor padrão
+     */
+    public static String getString(String key, String padrao) {
+        try {
+            return RESOURCE_BUNDLE.getString(key).trim();
+
+        } catch (MissingResourceException e) {
+            return padrao;
+        }
+    }
+
+    /**
+     * Retorna o valor numérico associado a uma chave.
+     *
+     * @param key chave definida no arquivo configuracoesSistema.properties
+     * @param padrao valor retornado caso a chave não exista ou não seja numérica
+     * @return valor da chave convertido para long ou o valor padrão
+     */
+    public static long getLong(String key, long padrao) {
+        try {
+            return Long.parseLong(getString(key, String.valueOf(padrao)));
+
+        } catch (NumberFormatException e) {
+            return padrao;
+        }
+    }
 }
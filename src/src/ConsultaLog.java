@@ -0,0 +1,335 @@
+package src;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Consulta ao log estruturado (FormatoLog=JSON) pela linha de comando.
+ *
+ * Uso:
+ *   java src.ConsultaLog [--de AAAA-MM-DD[THH:MM]] [--ate AAAA-MM-DD[THH:MM]]
+ *                        [--nivel INFO|ERRO] [--cpf CPF] [--arquivo sistema.log]
+ *
+ * Percorre o arquivo de log atual e os rotacionados (comprimidos ou não).
+ * Para cada arquivo com índice (.idx, ver {@link IndiceLog}) só os lotes que
+ * podem conter registros do filtro são lidos; arquivos sem índice são lidos
+ * por inteiro. Os registros encontrados vão para a saída padrão e o resumo
+ * (registros e lotes lidos) para a saída de erro.
+ */
+public class ConsultaLog {
+
+    private final long de;
+    private final long ate;
+    private final String nivel;
+    private final String cpf;
+    private final Charset charset = Charset.defaultCharset();
+
+    private long encontrados;
+    private long lotesLidos;
+    private long lotesTotal;
+    private long bytesLidos;
+
+    /**
+     * @param de instante inicial (ms, inclusive)
+     * @param ate instante final (ms, inclusive)
+     * @param nivel nível procurado (null para qualquer)
+     * @param cpf CPF procurado (null para qualquer)
+     */
+    public ConsultaLog(long de, long ate, String nivel, String cpf) {
+        this.de = de;
+        this.ate = ate;
+        this.nivel = nivel;
+        this.cpf = cpf;
+    }
+
+    public static void main(String[] args) {
+        long de = Long.MIN_VALUE;
+        long ate = Long.MAX_VALUE;
+        String nivel = null;
+        String cpf = null;
+        String arquivo = Configuracoes.getString("ArquivoDeLog", "sistema.log"); //$NON-NLS-1$ //$NON-NLS-2$
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--de":
+                        de = instante(args[++i], false);
+                        break;
+                    case "--ate":
+                        ate = instante(args[++i], true);
+                        break;
+                    case "--nivel":
+                        nivel = args[++i].toUpperCase();
+                        break;
+                    case "--cpf":
+                        cpf = args[++i];
+                        break;
+                    case "--arquivo":
+                        arquivo = args[++i];
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage() == null ? "Opção sem valor" : e.getMessage());
+            System.err.println("Uso: ConsultaLog [--de AAAA-MM-DD[THH:MM]] [--ate AAAA-MM-DD[THH:MM]]"
+                    + " [--nivel INFO|ERRO] [--cpf CPF] [--arquivo sistema.log]");
+            System.exit(2);
+            return;
+        }
+
+        ConsultaLog consulta = new ConsultaLog(de, ate, nivel, cpf);
+        try {
+            for (File f : arquivos(new File(arquivo))) {
+                consulta.consultar(f);
+            }
+        } catch (IOException e) {
+            System.err.println("Falha ao ler o log: " + e.getMessage());
+            System.exit(1);
+        }
+        System.out.flush();
+        System.err.println(consulta.getResumo());
+    }
+
+    /**
+     * Converte AAAA-MM-DD ou AAAA-MM-DDTHH:MM[:SS] em ms. Uma data sem hora
+     * vale o início do dia; no limite final vale o fim do dia, do minuto
+     * ou do segundo informado.
+     */
+    private static long instante(String texto, boolean limiteFinal) {
+        LocalDateTime dataHora;
+        if (texto.indexOf('T') < 0) {
+            LocalDate data = LocalDate.parse(texto);
+            dataHora = limiteFinal ? data.atTime(LocalTime.MAX) : data.atStartOfDay();
+        } else {
+            dataHora = LocalDateTime.parse(texto);
+            if (limiteFinal && texto.length() == "AAAA-MM-DDTHH:MM".length()) { //$NON-NLS-1$
+                dataHora = dataHora.plusMinutes(1).minusNanos(1_000_000);
+            } else if (limiteFinal && texto.length() == "AAAA-MM-DDTHH:MM:SS".length()) { //$NON-NLS-1$
+                dataHora = dataHora.plusSeconds(1).minusNanos(1_000_000);
+            }
+        }
+        return dataHora.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Lista os arquivos rotacionados (do mais antigo ao mais novo) e o atual.
+     */
+    static List<File> arquivos(File base) {
+        File pasta = base.getAbsoluteFile().getParentFile();
+        String prefixo = base.getName() + ".";
+        String[] nomes = pasta.list((dir, nome) -> nome.startsWith(prefixo) && !nome.endsWith(".idx")); //$NON-NLS-1$
+
+        List<File> arquivos = new ArrayList<>();
+        if (nomes != null) {
+            Arrays.sort(nomes, Comparator.comparing((String nome) -> sufixoRotacao(nome, prefixo, 0))
+                    .thenComparingInt(nome -> Integer.parseInt(sufixoRotacao(nome, prefixo, 1))));
+            for (String nome : nomes) {
+                // Compressão em andamento: o original ainda está completo
+                if (nome.endsWith(".gz") //$NON-NLS-1$
+                        && new File(pasta, nome.substring(0, nome.length() - 3)).exists()) {
+                    continue;
+                }
+                arquivos.add(new File(pasta, nome));
+            }
+        }
+        if (base.exists()) {
+            arquivos.add(base);
+        }
+        return arquivos;
+    }
+
+    /**
+     * Separa data/hora (parte 0) e contador (parte 1) do nome
+     * arquivo.AAAAMMDD-HHMMSS[-n][.gz] de um log rotacionado.
+     */
+    private static String sufixoRotacao(String nome, String prefixo, int parte) {
+        String sufixo = nome.substring(prefixo.length()).replace(".gz", ""); //$NON-NLS-1$ //$NON-NLS-2$
+        int contador = sufixo.indexOf('-', sufixo.indexOf('-') + 1);
+        if (parte == 0) {
+            return contador < 0 ? sufixo : sufixo.substring(0, contador);
+        }
+        return contador < 0 || !sufixo.substring(contador + 1).matches("\\d+") ? "0" : sufixo.substring(contador + 1); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * Consulta um arquivo de log, pelo índice quando ele existir.
+     *
+     * @param arquivo arquivo de log (pode estar comprimido, .gz)
+     */
+    public void consultar(File arquivo) throws IOException {
+        boolean comprimido = arquivo.getName().endsWith(".gz"); //$NON-NLS-1$
+        String semGz = comprimido
+                ? arquivo.getPath().substring(0, arquivo.getPath().length() - 3)
+                : arquivo.getPath();
+        File indice = new File(semGz + ".idx"); //$NON-NLS-1$
+
+        if (!indice.exists()) {
+            lerTudo(arquivo, comprimido);
+            return;
+        }
+
+        List<IndiceLog> lotes = new ArrayList<>();
+        for (IndiceLog entrada : lerIndice(indice)) {
+            lotesTotal++;
+            if (entrada.podeConter(de, ate, nivel, cpf)) {
+                lotes.add(entrada);
+            }
+        }
+        if (lotes.isEmpty()) {
+            return;
+        }
+
+        if (comprimido) {
+            lerLotesComprimidos(arquivo, lotes);
+        } else {
+            lerLotes(arquivo, lotes);
+        }
+    }
+
+    private static List<IndiceLog> lerIndice(File indice) throws IOException {
+        // Uma entrada de tamanho fixo por lote: o índice cabe em memória
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(indice.toPath()));
+        List<IndiceLog> entradas = new ArrayList<>();
+        // Entrada incompleta no fim (gravação interrompida) é ignorada
+        while (buffer.remaining() >= IndiceLog.TAMANHO_ENTRADA) {
+            entradas.add(IndiceLog.ler(buffer));
+        }
+        return entradas;
+    }
+
+    /**
+     * Lê apenas os trechos dos lotes selecionados de um arquivo não comprimido.
+     */
+    private void lerLotes(File arquivo, List<IndiceLog> lotes) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo.toPath(), StandardOpenOption.READ)) {
+            for (IndiceLog lote : lotes) {
+                ByteBuffer bytes = ByteBuffer.allocate(lote.getTamanho());
+                long posicao = lote.getDeslocamento();
+                while (bytes.hasRemaining() && canal.read(bytes, posicao + bytes.position()) > 0) {
+                    // lê até completar o lote
+                }
+                bytes.flip();
+                filtrarLote(bytes);
+            }
+        }
+    }
+
+    /**
+     * Arquivos comprimidos não permitem acesso direto: o fluxo é
+     * descomprimido em sequência, mas só os lotes selecionados são
+     * decodificados e filtrados.
+     */
+    private void lerLotesComprimidos(File arquivo, List<IndiceLog> lotes) throws IOException {
+        try (InputStream in = new GZIPInputStream(new FileInputStream(arquivo), 1 << 16)) {
+            long posicao = 0;
+            for (IndiceLog lote : lotes) {
+                in.skipNBytes(lote.getDeslocamento() - posicao);
+                posicao = lote.getDeslocamento();
+                byte[] bytes = in.readNBytes(lote.getTamanho());
+                posicao += bytes.length;
+                filtrarLote(ByteBuffer.wrap(bytes));
+            }
+        }
+    }
+
+    private void filtrarLote(ByteBuffer bytes) {
+        lotesLidos++;
+        bytesLidos += bytes.remaining();
+        String texto = charset.decode(bytes).toString();
+
+        int inicio = 0;
+        while (inicio < texto.length()) {
+            int fim = texto.indexOf('\n', inicio);
+            if (fim < 0) {
+                fim = texto.length();
+            }
+            filtrarLinha(texto.substring(inicio, fim));
+            inicio = fim + 1;
+        }
+    }
+
+    /**
+     * Arquivo sem índice (gravado no formato TEXTO ou antes do índice
+     * existir): lê todas as linhas e filtra as que estão em JSON.
+     */
+    private void lerTudo(File arquivo, boolean comprimido) throws IOException {
+        InputStream in = new FileInputStream(arquivo);
+        if (comprimido) {
+            in = new GZIPInputStream(in, 1 << 16);
+        }
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(in, charset))) {
+            String linha;
+            while ((linha = br.readLine()) != null) {
+                bytesLidos += linha.length() + 1;
+                filtrarLinha(linha);
+            }
+        }
+    }
+
+    private void filtrarLinha(String linha) {
+        if (!linha.startsWith("{")) { //$NON-NLS-1$
+            return;
+        }
+
+        String ms = campo(linha, "\"ms\":", ','); //$NON-NLS-1$
+        if (ms == null) {
+            return;
+        }
+        long instante = Long.parseLong(ms);
+        if (instante < de || instante > ate) {
+            return;
+        }
+        if (nivel != null && !nivel.equals(campo(linha, "\"nivel\":\"", '"'))) { //$NON-NLS-1$
+            return;
+        }
+        if (cpf != null && !cpf.equals(campo(linha, "\"usuario\":\"", '"'))) { //$NON-NLS-1$
+            return;
+        }
+
+        encontrados++;
+        System.out.println(linha);
+    }
+
+    /**
+     * Valor de um campo do registro. As aspas dentro dos valores são
+     * escapadas pelo Logger, então o nome do campo entre aspas só
+     * aparece como nome de campo.
+     */
+    private static String campo(String linha, String nome, char terminador) {
+        int inicio = linha.indexOf(nome);
+        if (inicio < 0) {
+            return null;
+        }
+        inicio += nome.length();
+        int fim = linha.indexOf(terminador, inicio);
+        return fim < 0 ? null : linha.substring(inicio, fim);
+    }
+
+    /**
+     * @return registros encontrados e lotes lidos
+     */
+    public String getResumo() {
+        return encontrados + " registro(s) encontrado(s); " + lotesLidos + " de " + lotesTotal
+                + " lote(s) indexado(s) lido(s), " + bytesLidos + " bytes decodificados";
+    }
+}
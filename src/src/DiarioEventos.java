@@ -0,0 +1,430 @@
+package src;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Diário de eventos — Singleton
+ *
+ * Persistência orientada a eventos dos três DAOs (usuários, hidrômetros
+ * e contas), ativada por ModoPersistencia=DIARIO. Cada alteração,
+ * inclusive as remoções de contas em cascata, vira uma linha
+ * acrescentada a um único arquivo (NomeArquivoDiario, padrão diario.log):
+ * - <entidade>S-linha : cadastro ou atualização
+ * - <entidade>R-id    : remoção
+ * onde a entidade é U (usuário), H (hidrômetro) ou C (conta) e a linha
+ * tem o mesmo formato do arquivo texto da entidade (ex.: CS-id-usuario-hidrometro-leitura).
+ *
+ * Quando o diário atinge LimiteRegistrosDiario linhas (padrão: 100000),
+ * uma thread de apoio grava um snapshot (NomeArquivoSnapshotDiario,
+ * padrão diario.snapshot): o diário atual é renomeado (.1), um novo
+ * diário passa a receber as alterações e o snapshot é gravado a partir
+ * do estado em memória. Ao iniciar, o snapshot é carregado e apenas
+ * os diários posteriores a ele são reaplicados.
+ *
+ * Reaplicar um diário já contido no snapshot não altera o resultado,
+ * pois cada linha apenas define ou remove o valor de um objeto.
+ */
+public class DiarioEventos {
+
+    /** Modo de persistência com arquivos texto regravados no logout */
+    public static final String MODO_ARQUIVOS = "ARQUIVOS";
+
+    /** Modo de persistência orientado a eventos */
+    public static final String MODO_DIARIO = "DIARIO";
+
+    /** Quantidade padrão de registros no diário antes do snapshot */
+    private static final int LIMITE_PADRAO = 100000;
+
+    /**
+     * Entidades registradas no diário.
+     */
+    public enum Entidade {
+        USUARIO('U'),
+        HIDROMETRO('H'),
+        CONTA('C');
+
+        private final char letra;
+
+        Entidade(char letra) {
+            this.letra = letra;
+        }
+
+        static Entidade daLetra(char letra) {
+            for (Entidade e : values()) {
+                if (e.letra == letra) {
+                    return e;
+                }
+            }
+            return null;
+        }
+    }
+
+    /** Instância única do diário */
+    private static DiarioEventos instance;
+
+    /** Snapshot do estado */
+    private final File snapshot;
+
+    /** Diário que recebe as alterações */
+    private final File diario;
+
+    /** Diário em gravação de snapshot */
+    private final File diarioAntigo;
+
+    /** Estado atual (snapshot + diário) de cada entidade: ID → linha */
+    private final Map<Entidade, Map<String, String>> estado = new EnumMap<>(Entidade.class);
+
+    /** Quantidade de registros no diário antes do snapshot */
+    private final int limite;
+
+    /** Thread de apoio dos snapshots */
+    private final ExecutorService gravador = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "sha-snapshot-diario");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Garante que apenas um snapshot seja gravado por vez */
+    private final Object travaSnapshot = new Object();
+
+    /** Escritor do diário (aberto em modo de acréscimo) */
+    private BufferedWriter escritor;
+
+    /** Registros no diário atual */
+    private int registros;
+
+    /** Registros reaplicados na última carga */
+    private int reaplicados;
+
+    /** Indica se há um snapshot em andamento */
+    private boolean gravandoSnapshot;
+
+    /**
+     * Construtor privado (Singleton). Carrega o snapshot e reaplica os diários.
+     */
+    private DiarioEventos() {
+        this.diario = new File(Configuracoes.getString("NomeArquivoDiario", "diario.log"));
+        this.diarioAntigo = new File(diario.getPath() + ".1"); //$NON-NLS-1$
+        this.snapshot = new File(Configuracoes.getString("NomeArquivoSnapshotDiario", "diario.snapshot"));
+        this.limite = (int) Configuracoes.getLong("LimiteRegistrosDiario", LIMITE_PADRAO);
+
+        for (Entidade e : Entidade.values()) {
+            estado.put(e, new HashMap<>());
+        }
+
+        try {
+            reaplicar(snapshot);
+            reaplicados = reaplicar(diarioAntigo) + reaplicar(diario);
+            registros = reaplicados;
+            abrirDiario();
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao carregar o diário de eventos", e); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Retorna a instância única do diário.
+     *
+     * @return instância singleton
+     */
+    public static synchronized DiarioEventos getInstance() {
+        if (instance == null) {
+            instance = new DiarioEventos();
+        }
+        return instance;
+    }
+
+    /**
+     * Indica se a persistência orientada a eventos está ativa
+     * (chave ModoPersistencia).
+     *
+     * @return true se ModoPersistencia=DIARIO
+     */
+    public static boolean isAtivo() {
+        return MODO_DIARIO.equalsIgnoreCase(
+                Configuracoes.getString("ModoPersistencia", MODO_ARQUIVOS));
+    }
+
+    // ===================== CARGA =====================
+
+    /**
+     * Reaplica um arquivo (snapshot ou diário) sobre o estado.
+     * Uma última linha incompleta (queda durante a escrita) é ignorada.
+     *
+     * @return quantidade de registros reaplicados
+     */
+    private int reaplicar(File arquivo) throws IOException {
+        if (!arquivo.exists()) {
+            return 0;
+        }
+
+        int total = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(arquivo))) {
+            String linha;
+            while ((linha = reader.readLine()) != null) {
+                if (linha.length() < 4 || linha.charAt(2) != '-') {
+                    continue;
+                }
+
+                Entidade entidade = Entidade.daLetra(linha.charAt(0));
+                if (entidade == null) {
+                    continue;
+                }
+
+                String dados = linha.substring(3);
+                if (linha.charAt(1) == 'S') {
+                    int fimId = dados.indexOf('-');
+                    if (fimId <= 0) {
+                        continue;
+                    }
+                    estado.get(entidade).put(dados.substring(0, fimId), dados);
+                } else if (linha.charAt(1) == 'R') {
+                    estado.get(entidade).remove(dados);
+                } else {
+                    continue;
+                }
+                total++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Retorna as linhas atuais de uma entidade, no formato do seu arquivo texto.
+     *
+     * @param entidade entidade
+     * @return linhas (uma por objeto)
+     */
+    public synchronized List<String> linhas(Entidade entidade) {
+        return new ArrayList<>(estado.get(entidade).values());
+    }
+
+    /**
+     * Retorna a linha atual de um objeto.
+     *
+     * @param entidade entidade
+     * @param id identificador do objeto
+     * @return linha ou null se o objeto não existir
+     */
+    public synchronized String linha(Entidade entidade, String id) {
+        return estado.get(entidade).get(id);
+    }
+
+    // ===================== ESCRITA =====================
+
+    /**
+     * Registra o cadastro ou a atualização de um objeto.
+     *
+     * @param entidade entidade
+     * @param id identificador do objeto (início da linha)
+     * @param linha linha no formato do arquivo texto da entidade
+     */
+    public synchronized void registrar(Entidade entidade, String id, String linha) {
+        estado.get(entidade).put(id, linha);
+        acrescentar(entidade.letra + "S-" + linha, 1); //$NON-NLS-1$
+    }
+
+    /**
+     * Registra o cadastro ou a atualização de vários objetos com uma
+     * única descarga do buffer.
+     *
+     * @param entidade entidade
+     * @param linhasPorId linha de cada objeto (ID → linha no formato do arquivo texto)
+     */
+    public synchronized void registrarVarios(Entidade entidade, Map<String, String> linhasPorId) {
+        if (linhasPorId.isEmpty()) {
+            return;
+        }
+        StringBuilder linhas = new StringBuilder();
+
+        for (Map.Entry<String, String> entry : linhasPorId.entrySet()) {
+            estado.get(entidade).put(entry.getKey(), entry.getValue());
+            if (linhas.length() > 0) {
+                linhas.append(System.lineSeparator());
+            }
+            linhas.append(entidade.letra).append("S-").append(entry.getValue()); //$NON-NLS-1$
+        }
+        acrescentar(linhas.toString(), linhasPorId.size());
+    }
+
+    /**
+     * Registra a remoção de um objeto.
+     *
+     * @param entidade entidade
+     * @param id identificador do objeto
+     */
+    public synchronized void registrarRemocao(Entidade entidade, String id) {
+        if (estado.get(entidade).remove(id) != null) {
+            acrescentar(entidade.letra + "R-" + id, 1); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Registra a remoção de vários objetos com uma única descarga do buffer.
+     *
+     * @param entidade entidade
+     * @param ids identificadores dos objetos
+     */
+    public synchronized void registrarRemocoes(Entidade entidade, Collection<String> ids) {
+        StringBuilder linhas = new StringBuilder();
+        int quantidade = 0;
+
+        for (String id : ids) {
+            if (estado.get(entidade).remove(id) == null) {
+                continue;
+            }
+            if (linhas.length() > 0) {
+                linhas.append(System.lineSeparator());
+            }
+            linhas.append(entidade.letra).append("R-").append(id); //$NON-NLS-1$
+            quantidade++;
+        }
+
+        if (quantidade > 0) {
+            acrescentar(linhas.toString(), quantidade);
+        }
+    }
+
+    /**
+     * Acrescenta uma ou mais linhas ao diário e agenda o snapshot
+     * se o limite foi atingido.
+     *
+     * Erros de escrita viram RuntimeException: os DAOs alteram o estado
+     * em memória antes de registrar, e uma falha silenciosa perderia a
+     * alteração no próximo início.
+     *
+     * @param linhas registros já separados por quebra de linha
+     * @param quantidade quantidade de registros nas linhas
+     */
+    private void acrescentar(String linhas, int quantidade) {
+        try {
+            if (escritor == null) {
+                abrirDiario();
+            }
+            escritor.write(linhas);
+            escritor.newLine();
+            escritor.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao gravar no diário de eventos", e); //$NON-NLS-1$
+        }
+
+        registros += quantidade;
+        if (registros >= limite && !gravandoSnapshot) {
+            gravandoSnapshot = true;
+            gravador.execute(this::gravarSnapshot);
+        }
+    }
+
+    // ===================== SNAPSHOT =====================
+
+    /**
+     * Troca o diário e grava um novo snapshot, sem bloquear novas
+     * alterações enquanto o snapshot é escrito.
+     */
+    private void gravarSnapshot() {
+        Map<Entidade, Map<String, String>> copia = new EnumMap<>(Entidade.class);
+
+        try {
+            synchronized (this) {
+                // Snapshot anterior interrompido: o diário antigo ainda
+                // não está no snapshot; junta os dois antes de trocar
+                if (diarioAntigo.exists()) {
+                    fecharDiario();
+                    Files.write(diarioAntigo.toPath(), Files.readAllBytes(diario.toPath()),
+                            StandardOpenOption.APPEND);
+                    Files.delete(diario.toPath());
+                } else {
+                    fecharDiario();
+                    Files.move(diario.toPath(), diarioAntigo.toPath());
+                }
+                abrirDiario();
+                registros = 0;
+
+                for (Map.Entry<Entidade, Map<String, String>> e : estado.entrySet()) {
+                    copia.put(e.getKey(), new HashMap<>(e.getValue()));
+                }
+            }
+
+            synchronized (travaSnapshot) {
+                escreverSnapshot(copia);
+                Files.deleteIfExists(diarioAntigo.toPath());
+            }
+
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            synchronized (this) {
+                gravandoSnapshot = false;
+            }
+        }
+    }
+
+    /**
+     * Grava o snapshot em um arquivo temporário e o substitui de uma vez.
+     * O snapshot usa o mesmo formato do diário (apenas registros S).
+     */
+    private void escreverSnapshot(Map<Entidade, Map<String, String>> copia) throws IOException {
+        File temporario = new File(snapshot.getPath() + ".tmp"); //$NON-NLS-1$
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(temporario, false))) {
+            for (Map.Entry<Entidade, Map<String, String>> e : copia.entrySet()) {
+                String prefixo = e.getKey().letra + "S-"; //$NON-NLS-1$
+                for (String linha : e.getValue().values()) {
+                    writer.write(prefixo);
+                    writer.write(linha);
+                    writer.newLine();
+                }
+            }
+        }
+        Files.move(temporario.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Retorna um resumo do diário.
+     *
+     * @return registros no diário atual e registros reaplicados na carga
+     */
+    public synchronized String getResumo() {
+        return "Diário de eventos: " + registros + " registros desde o último snapshot"
+                + " | Reaplicados na carga: " + reaplicados;
+    }
+
+    /**
+     * Fecha o diário e encerra a thread de snapshots.
+     */
+    public synchronized void fechar() {
+        gravador.shutdown();
+        try {
+            fecharDiario();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void abrirDiario() throws IOException {
+        escritor = new BufferedWriter(new FileWriter(diario, true));
+    }
+
+    private void fecharDiario() throws IOException {
+        if (escritor != null) {
+            escritor.close();
+            escritor = null;
+        }
+    }
+}
@@ -1,11 +1,23 @@
 package src;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 /**
  * Classe que representa um evento do sistema.
  *
  * Um evento é utilizado no padrão Observer para notificar
  * outros componentes sobre mudanças importantes,
  * como a remoção de usuários ou hidrômetros.
+ *
+ * Eventos de leitura (LEITURA_ATUALIZADA) carregam também o valor
+ * da nova leitura do hidrômetro.
+ *
+ * Um evento pode se referir a um único objeto ou a um lote
+ * (ex.: remoção de todos os hidrômetros de um bairro), para que
+ * os observers processem a operação inteira de uma só vez.
  */
 public class Evento {
 
@@ -19,15 +31,24 @@ public class Evento {
         USUARIO_REMOVIDO,
 
         /** Evento disparado quando um hidrômetro é removido */
-        HIDROMETRO_REMOVIDO
+        HIDROMETRO_REMOVIDO,
+
+        /** Evento disparado quando a leitura de um hidrômetro muda */
+        LEITURA_ATUALIZADA
     }
 
     /** Tipo do evento ocorrido */
     private final Tipo tipo;
 
-    /** Identificador do objeto relacionado ao evento (usuário ou hidrômetro) */
+    /** Identificador do objeto relacionado ao evento (null em lotes) */
     private final String id;
 
+    /** Identificadores de todos os objetos relacionados ao evento */
+    private final Set<String> ids;
+
+    /** Valor associado ao evento (leitura, em LEITURA_ATUALIZADA) */
+    private final double valor;
+
     /**
      * Construtor do evento.
      *
@@ -37,6 +58,35 @@ public class Evento {
     public Evento(Tipo tipo, String id) {
         this.tipo = tipo;
         this.id = id;
+        this.ids = Collections.singleton(id);
+        this.valor = Double.NaN;
+    }
+
+    /**
+     * Construtor de um evento com valor.
+     *
+     * @param tipo  tipo do evento ocorrido
+     * @param id    identificador do objeto relacionado ao evento
+     * @param valor valor associado (ex.: nova leitura do hidrômetro)
+     */
+    public Evento(Tipo tipo, String id, double valor) {
+        this.tipo = tipo;
+        this.id = id;
+        this.ids = Collections.singleton(id);
+        this.valor = valor;
+    }
+
+    /**
+     * Construtor de um evento em lote.
+     *
+     * @param tipo tipo do evento ocorrido
+     * @param ids  identificadores dos objetos relacionados ao evento
+     */
+    public Evento(Tipo tipo, Collection<String> ids) {
+        this.tipo = tipo;
+        this.id = null;
+        this.ids = Collections.unmodifiableSet(new LinkedHashSet<>(ids));
+        this.valor = Double.NaN;
     }
 
     /**
@@ -51,9 +101,37 @@ public class Evento {
     /**
      * Retorna o identificador associado ao evento.
      *
-     * @return ID do usuário ou do hidrômetro envolvido
+     * @return ID do usuário ou do hidrômetro envolvido (null em lotes)
      */
     public String getId() {
         return id;
     }
+
+    /**
+     * Retorna os identificadores associados ao evento.
+     * Funciona tanto para eventos individuais quanto para lotes.
+     *
+     * @return IDs dos usuários ou hidrômetros envolvidos
+     */
+    public Set<String> getIds() {
+        return ids;
+    }
+
+    /**
+     * Retorna o valor associado ao evento.
+     *
+     * @return nova leitura em LEITURA_ATUALIZADA; NaN nos demais eventos
+     */
+    public double getValor() {
+        return valor;
+    }
+
+    /**
+     * Indica se o evento se refere a um lote de objetos.
+     *
+     * @return true se o evento foi criado com vários IDs
+     */
+    public boolean isLote() {
+        return id == null;
+    }
 }
@@ -1,14 +1,24 @@
 package src;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 
+import conta.ConsumoPeriodo;
 import conta.Conta;
 import conta.ContaDAO;
 import conta.ContaFacade;
+import conta.PeriodoConsumo;
+import hidrometroComOCR.LeitorHidrometroOCR;
+import hidrometroComOCR.LeituraOCR;
+import hidrometroComOCR.ProcessadorLoteOCR;
 import hidrometroSemOCR.Hidrometro;
 import hidrometroSemOCR.HidrometroDAO;
 import hidrometroSemOCR.HidrometroFacade;
+import metricas.MetricasOperacoes;
+import metricas.MetricasSistema;
+import metricas.ServidorMetricas;
 import usuario.Usuario;
 import usuario.UsuarioDAO;
 import usuario.UsuarioException;
@@ -83,14 +93,27 @@ public class FachadaSHA {
 			contaDeAguaFacade = ContaFacade.getInstance();
 
 			configurarObservers();
+			ServidorMetricas.getInstance().iniciarSeConfigurado();
 		}
 	}
 
+	/**
+	 * Libera os recursos de apoio ao encerrar o painel
+	 * (servidor de métricas, handles do OCR, se usados,
+	 * e threads do barramento de eventos).
+	 */
+	public void encerrar() {
+		ServidorMetricas.getInstance().encerrar();
+		LeitorHidrometroOCR.encerrarSeIniciado();
+		BarramentoEventos.getInstance().encerrar();
+	}
+
 	/**
 	 * Configura o padrão Observer entre os DAOs.
 	 *
 	 * - ContaDAO observa UsuarioDAO
 	 * - ContaDAO observa HidrometroDAO
+	 * - O agregador de consumo observa as leituras dos hidrômetros
 	 *
 	 * Assim, quando um usuário ou hidrômetro for removido,
 	 * as contas associadas são automaticamente removidas.
@@ -105,6 +128,7 @@ public class FachadaSHA {
 		// Registro dos observers
 		usuarioDAO.adicionarObserver(contaDAO);
 		hidrometroDAO.adicionarObserver(contaDAO);
+		hidrometroDAO.adicionarObserverLeitura(contaDAO.getAgregadorConsumo());
 	}
 
 	/**
@@ -156,10 +180,17 @@ public class FachadaSHA {
 	 */
 	public void fazerLogout() {
 		usuarioLogado = null;
+		long inicio = System.nanoTime();
 
 		usuarioFacade.logout();
 		hidrometroFacade.logout();
+
+		// Remoções em cascata e leituras ainda nas filas precisam
+		// chegar às contas antes de salvá-las
+		BarramentoEventos.getInstance().esvaziar();
 		contaDeAguaFacade.logout();
+
+		MetricasSistema.getInstance().registrarPersistencia(System.nanoTime() - inicio);
 	}
 
 	/**
@@ -217,6 +248,25 @@ public class FachadaSHA {
 		}
 	}
 
+	/**
+	 * Remove vários usuários em uma única operação.
+	 *
+	 * As contas de todos eles são removidas por um único evento em lote.
+	 * Não permite remover o usuário que está logado.
+	 */
+	public void removerUsuarios(Collection<String> cpfs) {
+
+		if (usuarioLogado != null && cpfs.contains(usuarioLogado.getLogin())) {
+			throw new IllegalArgumentException("Usuário logado não pode ser removido.");
+		}
+
+		try {
+			usuarioFacade.removerUsuarios(cpfs);
+		} catch (UsuarioException | IOException e) {
+			e.printStackTrace();
+		}
+	}
+
 	/**
 	 * Verifica se um usuário existe.
 	 */
@@ -243,6 +293,70 @@ public class FachadaSHA {
 		return hidrometroFacade.listarHidrometros();
 	}
 
+	/**
+	 * Retorna o resumo da execução dos hidrômetros
+	 * (hidrômetros ativos e threads utilizadas).
+	 */
+	public String resumoExecucaoHidrometros() {
+		return hidrometroFacade.getResumoExecucao();
+	}
+
+	/**
+	 * Retorna o resumo do checkpoint das leituras dos hidrômetros.
+	 */
+	public String resumoCheckpointHidrometros() {
+		return hidrometroFacade.getResumoCheckpoint();
+	}
+
+	/**
+	 * Retorna o resumo das filas do barramento de eventos.
+	 */
+	public String resumoBarramentoEventos() {
+		return BarramentoEventos.getInstance().getResumo();
+	}
+
+	/**
+	 * Retorna o resumo do diário de eventos (null se ModoPersistencia=ARQUIVOS).
+	 */
+	public String resumoDiarioEventos() {
+		return DiarioEventos.isAtivo() ? DiarioEventos.getInstance().getResumo() : null;
+	}
+
+	/**
+	 * Retorna as métricas gerais do sistema (contadores, filas, memória e log).
+	 */
+	public String resumoMetricasSistema() {
+		return MetricasSistema.getInstance().getResumo();
+	}
+
+	/**
+	 * Retorna o relatório de latência das operações do painel
+	 * e o grava no arquivo de métricas.
+	 */
+	public String relatorioLatenciasOperacoes() {
+		MetricasOperacoes metricas = MetricasOperacoes.getInstance();
+		metricas.despejar();
+		return metricas.getRelatorio();
+	}
+
+	/**
+	 * Reconhece a leitura de um hidrômetro em uma foto do mostrador
+	 * e a grava no hidrômetro.
+	 */
+	public LeituraOCR lerHidrometroPorFoto(String id, String caminhoFoto) throws IOException, InterruptedException {
+		return LeitorHidrometroOCR.getInstance().registrarLeitura(id, new File(caminhoFoto));
+	}
+
+	/**
+	 * Lê em lote as fotos de hidrômetros de um diretório (o nome de cada
+	 * arquivo é o ID do hidrômetro) e grava as leituras válidas.
+	 *
+	 * @return relatório com a vazão e a latência de cada estágio
+	 */
+	public String lerFotosEmLote(String diretorio) throws IOException, InterruptedException {
+		return new ProcessadorLoteOCR(LeitorHidrometroOCR.getInstance()).processar(new File(diretorio));
+	}
+
 	/**
 	 * Verifica se um hidrômetro existe.
 	 */
@@ -259,6 +373,16 @@ public class FachadaSHA {
 		hidrometroFacade.removerHidrometro(id);
 	}
 
+	/**
+	 * Remove vários hidrômetros em uma única operação
+	 * (ex.: desativação de todos os hidrômetros de um bairro).
+	 *
+	 * Dispara um único evento que remove as contas associadas.
+	 */
+	public void removerHidrometros(Collection<String> ids) {
+		hidrometroFacade.removerHidrometros(ids);
+	}
+
 	/**
 	 * Cria uma conta de água vinculada a um usuário e a um hidrômetro.
 	 */
@@ -291,6 +415,20 @@ public class FachadaSHA {
 		return contaDeAguaFacade.listarContasDeAgua();
 	}
 
+	/**
+	 * Lista as contas de água de um usuário.
+	 */
+	public List<Conta> listarContasDoUsuario(String cpf) {
+		return contaDeAguaFacade.listarContasDoUsuario(cpf);
+	}
+
+	/**
+	 * Retorna o consumo de um usuário por período (hora, dia ou mês).
+	 */
+	public List<ConsumoPeriodo> consumoDoUsuario(String cpf, PeriodoConsumo periodo, long de, long ate) {
+		return contaDeAguaFacade.consumoDoUsuario(cpf, periodo, de, ate);
+	}
+
 	/**
 	 * Remove uma conta de água.
 	 */
@@ -0,0 +1,186 @@
+package src;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Entrada do índice do log estruturado (arquivo de log + ".idx").
+ *
+ * Cada lote gravado pelo {@link Logger} no formato JSON ganha uma
+ * entrada de tamanho fixo com:
+ * - primeiro e último instante dos registros do lote
+ * - posição e tamanho do lote no arquivo de log (bytes)
+ * - níveis presentes no lote
+ * - filtro de Bloom (4096 bits) dos CPFs presentes no lote
+ *
+ * A {@link ConsultaLog} lê apenas o índice e depois só os lotes que
+ * podem conter registros do intervalo, nível e CPF procurados. O filtro
+ * de Bloom pode indicar um CPF que não está no lote (o lote é lido e
+ * descartado), mas nunca omite um CPF presente. Com 4096 bits e três
+ * funções de hash, um lote cheio (512 CPFs distintos) dá cerca de 3%
+ * de falsos positivos.
+ */
+public class IndiceLog {
+
+    /** Palavras de 64 bits do filtro de Bloom */
+    private static final int PALAVRAS_BLOOM = 64;
+
+    /** Tamanho de cada entrada no arquivo de índice */
+    public static final int TAMANHO_ENTRADA = 32 + 8 * PALAVRAS_BLOOM;
+
+    /** Bits do nível INFO, do nível ERRO e de qualquer outro nível */
+    static final int NIVEL_INFO = 1;
+    static final int NIVEL_ERRO = 2;
+    static final int NIVEL_OUTRO = 4;
+
+    long inicio = Long.MAX_VALUE;
+    long fim = Long.MIN_VALUE;
+    long deslocamento;
+    int tamanho;
+    int niveis;
+    final long[] bloom = new long[PALAVRAS_BLOOM];
+
+    /**
+     * Acrescenta um registro ao lote descrito por esta entrada.
+     *
+     * @param instante instante do registro (ms)
+     * @param nivel nível do registro
+     * @param usuario CPF do registro (pode ser null)
+     */
+    void adicionar(long instante, String nivel, String usuario) {
+        inicio = Math.min(inicio, instante);
+        fim = Math.max(fim, instante);
+        niveis |= bitNivel(nivel);
+
+        if (usuario != null) {
+            long h = espalhar(usuario.hashCode());
+            for (int k = 0; k < 3; k++) {
+                int bit = (int) (h >>> (k * 12)) & 0xFFF;
+                bloom[bit >>> 6] |= 1L << bit;
+            }
+        }
+    }
+
+    /**
+     * Indica se o lote pode conter registros que atendem ao filtro.
+     *
+     * @param de instante inicial (ms, inclusive)
+     * @param ate instante final (ms, inclusive)
+     * @param nivel nível procurado (null para qualquer)
+     * @param usuario CPF procurado (null para qualquer)
+     * @return false se o lote certamente não tem registros do filtro
+     */
+    public boolean podeConter(long de, long ate, String nivel, String usuario) {
+        if (fim < de || inicio > ate) {
+            return false;
+        }
+        if (nivel != null && (niveis & bitNivel(nivel)) == 0) {
+            return false;
+        }
+        if (usuario != null) {
+            long h = espalhar(usuario.hashCode());
+            for (int k = 0; k < 3; k++) {
+                int bit = (int) (h >>> (k * 12)) & 0xFFF;
+                if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indica se a entrada ainda não recebeu registros.
+     */
+    boolean isVazia() {
+        return niveis == 0;
+    }
+
+    /**
+     * Prepara a entrada para o próximo lote.
+     */
+    void limpar() {
+        inicio = Long.MAX_VALUE;
+        fim = Long.MIN_VALUE;
+        deslocamento = 0;
+        tamanho = 0;
+        niveis = 0;
+        for (int i = 0; i < PALAVRAS_BLOOM; i++) {
+            bloom[i] = 0;
+        }
+    }
+
+    /**
+     * Escreve a entrada (TAMANHO_ENTRADA bytes) no buffer.
+     */
+    void escrever(ByteBuffer destino) {
+        destino.putLong(inicio).putLong(fim).putLong(deslocamento)
+                .putInt(tamanho).putInt(niveis);
+        for (long palavra : bloom) {
+            destino.putLong(palavra);
+        }
+    }
+
+    /**
+     * Lê uma entrada (TAMANHO_ENTRADA bytes) do buffer.
+     *
+     * @param origem buffer posicionado no início da entrada
+     * @return entrada lida
+     */
+    public static IndiceLog ler(ByteBuffer origem) {
+        IndiceLog e = new IndiceLog();
+        e.inicio = origem.getLong();
+        e.fim = origem.getLong();
+        e.deslocamento = origem.getLong();
+        e.tamanho = origem.getInt();
+        e.niveis = origem.getInt();
+        for (int i = 0; i < PALAVRAS_BLOOM; i++) {
+            e.bloom[i] = origem.getLong();
+        }
+        return e;
+    }
+
+    /** @return posição do lote no arquivo de log (bytes) */
+    public long getDeslocamento() {
+        return deslocamento;
+    }
+
+    /** @return tamanho do lote no arquivo de log (bytes) */
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    /** @return último instante do lote (ms) */
+    public long getFim() {
+        return fim;
+    }
+
+    /** @return primeiro instante do lote (ms) */
+    public long getInicio() {
+        return inicio;
+    }
+
+    static int bitNivel(String nivel) {
+        switch (nivel) {
+            case "INFO":
+                return NIVEL_INFO;
+            case "ERRO":
+                return NIVEL_ERRO;
+            default:
+                return NIVEL_OUTRO;
+        }
+    }
+
+    /**
+     * Espalha os bits do hash (finalizador do MurmurHash3), para que
+     * CPFs parecidos caiam em bits distantes do filtro.
+     */
+    private static long espalhar(int hash) {
+        long h = hash;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
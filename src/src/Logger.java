@@ -1,8 +1,25 @@
 package src;
 
-import java.io.FileWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Logger — Singleton
@@ -14,9 +31,27 @@ import java.time.LocalDateTime;
  * apenas uma instância de logger em toda a aplicação.
  *
  * Características:
- * - Escrita em arquivo
+ * - Escrita assíncrona: quem registra apenas coloca o registro em um
+ *   {@link BufferCircular} sem locks; uma única thread formata os
+ *   registros e os grava em lotes, com o arquivo sempre aberto
  * - Thread-safe
  * - Suporte a mensagens INFO e ERRO
+ * - Rotação do arquivo por tamanho (TamanhoMaximoLogMB, padrão 10)
+ *   e por tempo (IntervaloRotacaoLogHoras, padrão 24; 0 desativa),
+ *   com compressão gzip dos arquivos rotacionados
+ *
+ * - Formato TEXTO (padrão) ou JSON (chave FormatoLog). No formato JSON
+ *   cada linha é um registro estruturado com nível, operação, usuário,
+ *   entidade e latência, e cada lote ganha uma entrada no índice
+ *   (arquivo de log + ".idx", ver {@link IndiceLog}) usado pela
+ *   {@link ConsultaLog}
+ *
+ * A operação e a latência vêm do contexto aberto por
+ * {@link #iniciarOperacao(String)} na thread que registra.
+ *
+ * Se o buffer (CapacidadeBufferLog, padrão 8192 registros) encher,
+ * quem registra espera a thread de escrita abrir espaço: nenhum
+ * registro é descartado.
  */
 public class Logger {
 
@@ -27,11 +62,85 @@ public class Logger {
     private static final String ARQUIVO =
             Configuracoes.getString("ArquivoDeLog");
 
+    /** Formato texto livre: data/hora [NIVEL] mensagem */
+    public static final String FORMATO_TEXTO = "TEXTO";
+
+    /** Formato estruturado: um objeto JSON por linha, com índice */
+    public static final String FORMATO_JSON = "JSON";
+
+    /** Registros gravados por lote, no máximo */
+    private static final int LOTE = 512;
+
+    /** Espera da thread de escrita quando não há registros (ns) */
+    private static final long ESPERA_OCIOSA = TimeUnit.MILLISECONDS.toNanos(50);
+
+    /** Sufixo de data/hora dos arquivos rotacionados */
+    private static final DateTimeFormatter FORMATO_ROTACAO =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"); //$NON-NLS-1$
+
+    /** Registros aguardando a thread de escrita */
+    private final BufferCircular<Registro> buffer;
+
+    /** Tamanho máximo do arquivo antes da rotação (bytes; 0 desativa) */
+    private final long tamanhoMaximo;
+
+    /** Intervalo máximo entre rotações (ms; 0 desativa) */
+    private final long intervaloRotacao;
+
+    /** Indica se os registros são gravados em JSON, com índice */
+    private final boolean json;
+
+    /** Operação em andamento em cada thread (reaproveitada entre operações) */
+    private final ThreadLocal<Operacao> operacaoAtual = ThreadLocal.withInitial(Operacao::new);
+
+    /** Compressão dos arquivos rotacionados, fora da thread de escrita */
+    private final ExecutorService compressor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "sha-logger-compressao");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    /** Thread de escrita */
+    private final Thread escritor;
+
+    /** Indica que a thread de escrita está dormindo e precisa ser acordada */
+    private volatile boolean ocioso;
+
+    /** Registros já gravados no arquivo */
+    private volatile long gravados;
+
+    // Estado da thread de escrita (acessado apenas por ela)
+    private final StringBuilder texto = new StringBuilder(LOTE * 96);
+    private final Charset charset = Charset.defaultCharset();
+    private FileChannel canal;
+    private long tamanhoAtual;
+    private long abertoEm;
+    private long proximaRotacao;
+    private long ultimoInstante = Long.MIN_VALUE;
+    private String ultimaDataHora;
+    private FileChannel canalIndice;
+    private final IndiceLog entradaIndice = new IndiceLog();
+    private final ByteBuffer bufferIndice = ByteBuffer.allocate(IndiceLog.TAMANHO_ENTRADA);
+
     /**
      * Construtor privado.
      * Impede que outras classes criem instâncias do Logger.
      */
-    private Logger() {}
+    private Logger() {
+        buffer = new BufferCircular<>((int) Configuracoes.getLong("CapacidadeBufferLog", 8192));
+        tamanhoMaximo = Configuracoes.getLong("TamanhoMaximoLogMB", 10) * 1024 * 1024;
+        intervaloRotacao = TimeUnit.HOURS.toMillis(Configuracoes.getLong("IntervaloRotacaoLogHoras", 24));
+        proximaRotacao = tamanhoMaximo;
+        json = FORMATO_JSON.equalsIgnoreCase(Configuracoes.getString("FormatoLog", FORMATO_TEXTO));
+
+        escritor = new Thread(this::executarEscritor, "sha-logger");
+        escritor.setDaemon(true);
+        escritor.start();
+
+        // Registros ainda no buffer são gravados quando a aplicação termina
+        Runtime.getRuntime().addShutdownHook(new Thread(this::encerrar, "sha-logger-final"));
+    }
 
     /**
      * Retorna a instância única do Logger.
@@ -70,36 +179,395 @@ public class Logger {
         escrever("ERRO", msg, e);
     }
 
-    // ===================== IMPLEMENTAÇÃO INTERNA =====================
+    /**
+     * Registra uma mensagem de nível INFO com o usuário e a entidade envolvidos.
+     *
+     * @param msg mensagem informativa
+     * @param usuario CPF do usuário envolvido (pode ser null)
+     * @param entidade ID do hidrômetro ou da conta envolvida (pode ser null)
+     */
+    public void info(String msg, String usuario, String entidade) {
+        escrever("INFO", msg, null, usuario, entidade);
+    }
 
     /**
-     * Método responsável por escrever efetivamente no arquivo de log.
+     * Registra uma mensagem de nível ERRO com o usuário e a entidade envolvidos.
      *
-     * - synchronized garante que múltiplas threads não escrevam
-     *   simultaneamente no arquivo
-     * - O arquivo é aberto em modo append (true)
+     * @param msg mensagem de erro
+     * @param e exceção associada ao erro (opcional)
+     * @param usuario CPF do usuário envolvido (pode ser null)
+     * @param entidade ID do hidrômetro ou da conta envolvida (pode ser null)
+     */
+    public void error(String msg, Exception e, String usuario, String entidade) {
+        escrever("ERRO", msg, e, usuario, entidade);
+    }
+
+    /**
+     * Abre o contexto de uma operação na thread atual: os registros feitos
+     * até {@link #encerrarOperacao()} levam o nome da operação e o tempo
+     * decorrido desde o início dela.
+     *
+     * @param nome nome da operação
+     */
+    public void iniciarOperacao(String nome) {
+        Operacao operacao = operacaoAtual.get();
+        operacao.nome = nome;
+        operacao.inicioNanos = System.nanoTime();
+    }
+
+    /**
+     * Fecha o contexto de operação da thread atual.
+     */
+    public void encerrarOperacao() {
+        operacaoAtual.get().nome = null;
+    }
+
+    /**
+     * Aguarda até que todos os registros feitos antes da chamada
+     * estejam gravados no arquivo.
+     */
+    public void descarregar() {
+        long alvo = buffer.getReservados();
+        while (gravados < alvo && escritor.isAlive()) {
+            LockSupport.unpark(escritor);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Retorna quantos registros já foram gravados no arquivo.
+     *
+     * @return total de registros gravados desde o início
+     */
+    public long getGravados() {
+        return gravados;
+    }
+
+    /**
+     * Retorna quantos registros aguardam a thread de escrita.
+     *
+     * @return registros no buffer ou no lote em gravação
+     */
+    public long getPendentes() {
+        return Math.max(0, buffer.getReservados() - gravados);
+    }
+
+    /**
+     * Grava os registros pendentes e aguarda a compressão dos arquivos
+     * rotacionados. Executado quando a aplicação termina.
+     */
+    private void encerrar() {
+        descarregar();
+        compressor.shutdown();
+        try {
+            compressor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ===================== IMPLEMENTAÇÃO INTERNA =====================
+
+    /**
+     * Coloca o registro no buffer. A formatação e a escrita
+     * acontecem na thread de escrita.
      *
      * @param nivel nível do log (INFO, ERRO, etc.)
      * @param msg mensagem a ser registrada
      * @param e exceção associada (pode ser null)
      */
-    private synchronized void escrever(String nivel, String msg, Exception e) {
+    private void escrever(String nivel, String msg, Exception e) {
+        escrever(nivel, msg, e, null, null);
+    }
+
+    private void escrever(String nivel, String msg, Exception e, String usuario, String entidade) {
+        Operacao operacao = operacaoAtual.get();
+        Registro registro = new Registro(
+                RelogioSimulacao.getInstance().agoraMillis(), nivel, msg, e, usuario, entidade,
+                operacao.nome,
+                operacao.nome == null ? -1 : System.nanoTime() - operacao.inicioNanos);
+
+        while (!buffer.oferecer(registro)) {
+            // Buffer cheio: espera a thread de escrita abrir espaço
+            LockSupport.unpark(escritor);
+            Thread.yield();
+        }
+
+        if (ocioso) {
+            LockSupport.unpark(escritor);
+        }
+    }
+
+    /**
+     * Laço da thread de escrita: drena o buffer em lotes e grava cada
+     * lote com uma única escrita no canal do arquivo.
+     */
+    private void executarEscritor() {
+        while (true) {
+            int quantidade = buffer.drenar(this::formatar, LOTE);
+
+            if (quantidade == 0) {
+                ocioso = true;
+                // Confere de novo para não dormir com um registro recém-chegado
+                if (buffer.getReservados() == gravados) {
+                    LockSupport.parkNanos(ESPERA_OCIOSA);
+                }
+                ocioso = false;
+                rotacionarSeNecessario();
+                continue;
+            }
+
+            gravarLote();
+            gravados += quantidade;
+            rotacionarSeNecessario();
+        }
+    }
 
-        try (FileWriter fw = new FileWriter(ARQUIVO, true)) {
+    /**
+     * Formata um registro no lote atual.
+     * Formato: data/hora [NIVEL] mensagem, e a causa na linha seguinte.
+     */
+    private void formatar(Registro r) {
+        // Registros do mesmo milissegundo reaproveitam a data/hora formatada
+        if (r.instante != ultimoInstante) {
+            ultimoInstante = r.instante;
+            ultimaDataHora = LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(r.instante), ZoneId.systemDefault()).toString();
+        }
 
-            // Escreve data/hora, nível e mensagem
-            fw.write(LocalDateTime.now()
-                    + " [" + nivel + "] "
-                    + msg + "\n");
+        if (json) {
+            formatarJson(r);
+            return;
+        }
+
+        texto.append(ultimaDataHora)
+                .append(" [").append(r.nivel).append("] ")
+                .append(r.mensagem).append('\n');
+
+        // Se houver exceção, registra a causa
+        if (r.excecao != null) {
+            texto.append("   Causa: ").append(r.excecao.getMessage()).append('\n');
+        }
+    }
+
+    /**
+     * Formata um registro como um objeto JSON em uma linha e o
+     * acrescenta à entrada de índice do lote.
+     */
+    private void formatarJson(Registro r) {
+        texto.append("{\"ts\":\"").append(ultimaDataHora)
+                .append("\",\"ms\":").append(r.instante)
+                .append(",\"nivel\":\"").append(r.nivel).append('"');
+        campoJson("operacao", r.operacao);
+        campoJson("usuario", r.usuario);
+        campoJson("entidade", r.entidade);
+        if (r.latenciaNanos >= 0) {
+            texto.append(",\"latenciaMs\":").append(r.latenciaNanos / 1_000_000.0);
+        }
+        campoJson("msg", r.mensagem);
+        if (r.excecao != null) {
+            campoJson("causa", String.valueOf(r.excecao.getMessage()));
+        }
+        texto.append("}\n");
 
-            // Se houver exceção, registra a causa
-            if (e != null) {
-                fw.write("   Causa: " + e.getMessage() + "\n");
+        entradaIndice.adicionar(r.instante, r.nivel, r.usuario);
+    }
+
+    private void campoJson(String nome, String valor) {
+        if (valor == null) {
+            return;
+        }
+        texto.append(",\"").append(nome).append("\":\"");
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"':
+                    texto.append("\\\"");
+                    break;
+                case '\\':
+                    texto.append("\\\\");
+                    break;
+                case '\n':
+                    texto.append("\\n");
+                    break;
+                case '\r':
+                    texto.append("\\r");
+                    break;
+                case '\t':
+                    texto.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        texto.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        texto.append(c);
+                    }
+            }
+        }
+        texto.append('"');
+    }
+
+    /**
+     * Grava o lote formatado no arquivo e, no formato JSON, a sua entrada no índice.
+     */
+    private void gravarLote() {
+        try {
+            if (canal == null) {
+                abrir();
             }
+            ByteBuffer bytes = charset.encode(texto.toString());
+            long inicioLote = tamanhoAtual;
+            int tamanhoLote = bytes.remaining();
+            while (bytes.hasRemaining()) {
+                canal.write(bytes);
+            }
+            tamanhoAtual += tamanhoLote;
 
+            if (json && !entradaIndice.isVazia()) {
+                entradaIndice.deslocamento = inicioLote;
+                entradaIndice.tamanho = tamanhoLote;
+                bufferIndice.clear();
+                entradaIndice.escrever(bufferIndice);
+                bufferIndice.flip();
+                while (bufferIndice.hasRemaining()) {
+                    canalIndice.write(bufferIndice);
+                }
+            }
         } catch (IOException ex) {
             // Falha silenciosa para não quebrar o sistema
             System.out.println("Falha ao escrever no log");
+            fechar();
+        } finally {
+            texto.setLength(0);
+            entradaIndice.limpar();
+        }
+    }
+
+    // ===================== ROTAÇÃO =====================
+
+    private void abrir() throws IOException {
+        File arquivo = new File(ARQUIVO);
+        canal = FileChannel.open(arquivo.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        tamanhoAtual = canal.size();
+        abertoEm = System.currentTimeMillis();
+
+        if (json) {
+            canalIndice = FileChannel.open(new File(ARQUIVO + ".idx").toPath(), //$NON-NLS-1$
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    private void fechar() {
+        try {
+            if (canal != null) {
+                canal.close();
+            }
+            if (canalIndice != null) {
+                canalIndice.close();
+            }
+        } catch (IOException ex) {
+            // Nada a fazer: os canais serão reabertos no próximo lote
+        }
+        canal = null;
+        canalIndice = null;
+    }
+
+    /**
+     * Rotaciona o arquivo se ele passou do tamanho máximo ou do intervalo
+     * de rotação. O arquivo atual é renomeado com a data/hora e comprimido
+     * em segundo plano; o próximo lote abre um arquivo novo.
+     */
+    private void rotacionarSeNecessario() {
+        if (canal == null || tamanhoAtual == 0) {
+            return;
+        }
+
+        boolean porTamanho = tamanhoMaximo > 0 && tamanhoAtual >= proximaRotacao;
+        boolean porTempo = intervaloRotacao > 0
+                && System.currentTimeMillis() - abertoEm >= intervaloRotacao;
+        if (!porTamanho && !porTempo) {
+            return;
+        }
+
+        fechar();
+        File atual = new File(ARQUIVO);
+        File rotacionado = nomeRotacionado();
+        try {
+            Files.move(atual.toPath(), rotacionado.toPath());
+            // O índice não é comprimido: a consulta o usa para pular arquivos inteiros
+            File indice = new File(ARQUIVO + ".idx"); //$NON-NLS-1$
+            if (indice.exists()) {
+                Files.move(indice.toPath(), new File(rotacionado.getPath() + ".idx").toPath()); //$NON-NLS-1$
+            }
+            proximaRotacao = tamanhoMaximo;
+            compressor.execute(() -> comprimir(rotacionado));
+        } catch (IOException ex) {
+            System.out.println("Falha ao rotacionar o log");
+            // Continua no mesmo arquivo e tenta de novo após outro ciclo completo
+            proximaRotacao = tamanhoAtual + tamanhoMaximo;
+        }
+    }
+
+    /**
+     * Nome do arquivo rotacionado: arquivo.data-hora, com um contador
+     * se houver mais de uma rotação no mesmo segundo.
+     */
+    private static File nomeRotacionado() {
+        String base = ARQUIVO + "." + LocalDateTime.now().format(FORMATO_ROTACAO); //$NON-NLS-1$
+        File arquivo = new File(base);
+        for (int n = 1; arquivo.exists() || new File(arquivo.getPath() + ".gz").exists(); n++) { //$NON-NLS-1$
+            arquivo = new File(base + "-" + n); //$NON-NLS-1$
+        }
+        return arquivo;
+    }
+
+    /**
+     * Comprime um arquivo rotacionado (arquivo.gz) e apaga o original.
+     */
+    private static void comprimir(File arquivo) {
+        File destino = new File(arquivo.getPath() + ".gz");
+        try (InputStream in = new FileInputStream(arquivo);
+             OutputStream out = new GZIPOutputStream(new FileOutputStream(destino))) {
+            in.transferTo(out);
+        } catch (IOException ex) {
+            System.out.println("Falha ao comprimir o log " + arquivo);
+            return;
+        }
+        arquivo.delete();
+    }
+
+    /**
+     * Operação em andamento em uma thread.
+     */
+    private static final class Operacao {
+        String nome;
+        long inicioNanos;
+    }
+
+    /**
+     * Registro de log aguardando a thread de escrita.
+     */
+    private static final class Registro {
+        final long instante;
+        final String nivel;
+        final String mensagem;
+        final Exception excecao;
+        final String usuario;
+        final String entidade;
+        final String operacao;
+        final long latenciaNanos;
+
+        Registro(long instante, String nivel, String mensagem, Exception excecao,
+                String usuario, String entidade, String operacao, long latenciaNanos) {
+            this.instante = instante;
+            this.nivel = nivel;
+            this.mensagem = mensagem;
+            this.excecao = excecao;
+            this.usuario = usuario;
+            this.entidade = entidade;
+            this.operacao = operacao;
+            this.latenciaNanos = latenciaNanos;
         }
     }
 }
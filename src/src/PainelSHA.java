@@ -83,8 +83,9 @@ public class PainelSHA {
             }
         }
 
-        // Fecha o scanner antes de encerrar o programa
+        // Fecha o scanner e libera os recursos antes de encerrar o programa
         sc.close();
+        fachada.encerrar();
     }
 
     /**
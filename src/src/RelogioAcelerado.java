@@ -0,0 +1,42 @@
+package src;
+
+/**
+ * Relógio em que o tempo simulado corre um número fixo de vezes
+ * mais rápido que o tempo real, a partir de um instante inicial.
+ */
+class RelogioAcelerado extends RelogioSimulacao {
+
+    /** Instante simulado no momento da criação (ms) */
+    private final long inicioSimulado;
+
+    /** Instante real no momento da criação (ms) */
+    private final long inicioReal;
+
+    /** Quantos milissegundos simulados passam a cada milissegundo real */
+    private final long fator;
+
+    /**
+     * @param inicioSimulado instante simulado inicial (ms)
+     * @param fator multiplicador do tempo (mínimo 1)
+     */
+    RelogioAcelerado(long inicioSimulado, long fator) {
+        this.inicioSimulado = inicioSimulado;
+        this.inicioReal = System.currentTimeMillis();
+        this.fator = Math.max(1, fator);
+    }
+
+    @Override
+    public long agoraMillis() {
+        return inicioSimulado + (System.currentTimeMillis() - inicioReal) * fator;
+    }
+
+    @Override
+    public void dormir(long millis) throws InterruptedException {
+        Thread.sleep(paraTempoReal(millis));
+    }
+
+    @Override
+    public long paraTempoReal(long millis) {
+        return millis / fator;
+    }
+}
@@ -0,0 +1,179 @@
+package src;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Relógio cujo tempo só avança quando alguém pede.
+ *
+ * O motor de simulação executa todos os passos vencidos no instante
+ * atual e então avança o relógio direto para o próximo passo pendente,
+ * sem esperar. Assim um ano de leituras é gerado no tempo que a CPU
+ * levar para calculá-las.
+ *
+ * Nos modos com uma thread por hidrômetro, cada thread que chama
+ * {@link #dormir(long)} espera o seu instante de despertar; quando todas
+ * estão dormindo, a última avança o relógio para o despertar mais
+ * próximo e acorda apenas as threads que venceram. O tempo simulado
+ * avança uma vez para todas, e não uma vez por thread.
+ *
+ * A espera usa um {@link ReentrantLock} com uma {@link Condition} por
+ * despertar, e não monitores: threads virtuais esperando não prendem
+ * a thread portadora.
+ */
+class RelogioMaximaVelocidade extends RelogioSimulacao {
+
+    /** Instante simulado atual (ms) */
+    private final AtomicLong agora;
+
+    private final ReentrantLock trava = new ReentrantLock();
+
+    /** Despertares pendentes, do mais próximo ao mais distante (guardado pela trava) */
+    private final PriorityQueue<Despertar> despertares =
+            new PriorityQueue<>(Comparator.comparingLong((Despertar d) -> d.instante));
+
+    /** Threads que já chamaram dormir e ainda não saíram da simulação */
+    private volatile int participantes;
+
+    private final ThreadLocal<Boolean> participa = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    /**
+     * @param inicio instante simulado inicial (ms)
+     */
+    RelogioMaximaVelocidade(long inicio) {
+        this.agora = new AtomicLong(inicio);
+    }
+
+    @Override
+    public long agoraMillis() {
+        return agora.get();
+    }
+
+    /**
+     * Espera o relógio chegar ao fim do período, sem espera real: quando
+     * todas as threads participantes estão dormindo, o relógio salta para
+     * o despertar mais próximo. O relógio só avança sem todas dormindo
+     * quando uma participante sai da simulação ({@link #sairDaSimulacao()}
+     * ou interrupção). Pensado para os modos com uma thread por hidrômetro;
+     * o motor agendado avança o relógio por {@link #avancarPara(long)}.
+     */
+    @Override
+    public void dormir(long millis) throws InterruptedException {
+        trava.lock();
+        try {
+            if (!participa.get()) {
+                participa.set(Boolean.TRUE);
+                participantes++;
+            }
+
+            Despertar meu = new Despertar(agora.get() + Math.max(0, millis), trava.newCondition());
+            if (meu.instante <= agora.get()) {
+                return;
+            }
+            despertares.add(meu);
+            avancarSeTodosDormem();
+
+            try {
+                while (!meu.vencido) {
+                    meu.condicao.await();
+                }
+            } catch (InterruptedException e) {
+                if (!meu.vencido) {
+                    despertares.remove(meu);
+                }
+                sair();
+                throw e;
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Retira a thread atual das participantes, para que as demais não
+     * esperem por ela.
+     */
+    @Override
+    public void sairDaSimulacao() {
+        trava.lock();
+        try {
+            sair();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /** Chamado com a trava */
+    private void sair() {
+        if (participa.get()) {
+            participa.set(Boolean.FALSE);
+            participantes--;
+            avancarSeTodosDormem();
+        }
+    }
+
+    /**
+     * Se todas as participantes estão dormindo, salta para o despertar
+     * mais próximo e acorda as threads vencidas. Chamado com a trava.
+     */
+    private void avancarSeTodosDormem() {
+        if (!despertares.isEmpty() && despertares.size() >= participantes) {
+            agora.accumulateAndGet(despertares.peek().instante, Math::max);
+            acordarVencidos();
+        }
+    }
+
+    /** Remove e acorda os despertares já alcançados. Chamado com a trava */
+    private void acordarVencidos() {
+        long instante = agora.get();
+        while (!despertares.isEmpty() && despertares.peek().instante <= instante) {
+            Despertar d = despertares.poll();
+            d.vencido = true;
+            d.condicao.signal();
+        }
+    }
+
+    @Override
+    public long paraTempoReal(long millis) {
+        return 0;
+    }
+
+    @Override
+    public boolean isMaximaVelocidade() {
+        return true;
+    }
+
+    @Override
+    public void avancarPara(long instante) {
+        agora.accumulateAndGet(instante, Math::max);
+
+        // Sem threads dormindo (motor agendado), não há quem acordar
+        if (participantes > 0) {
+            trava.lock();
+            try {
+                acordarVencidos();
+            } finally {
+                trava.unlock();
+            }
+        }
+    }
+
+    /**
+     * Instante de despertar de uma thread e a condição em que ela espera.
+     */
+    private static final class Despertar {
+        final long instante;
+        final Condition condicao;
+
+        /** Já alcançado e retirado da fila (guardado pela trava) */
+        boolean vencido;
+
+        Despertar(long instante, Condition condicao) {
+            this.instante = instante;
+            this.condicao = condicao;
+        }
+    }
+}
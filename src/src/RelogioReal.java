@@ -0,0 +1,29 @@
+package src;
+
+import java.time.LocalDateTime;
+
+/**
+ * Relógio que segue o tempo do sistema, sem compressão.
+ */
+class RelogioReal extends RelogioSimulacao {
+
+    @Override
+    public long agoraMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public LocalDateTime agora() {
+        return LocalDateTime.now();
+    }
+
+    @Override
+    public void dormir(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+    }
+
+    @Override
+    public long paraTempoReal(long millis) {
+        return millis;
+    }
+}
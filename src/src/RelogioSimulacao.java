@@ -0,0 +1,145 @@
+package src;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+/**
+ * RelogioSimulacao — Singleton
+ *
+ * Fonte única de tempo da simulação. O motor de hidrômetros,
+ * o {@link Logger} e a exibição dos hidrômetros consultam este relógio
+ * em vez de {@code LocalDateTime.now()} e {@code Thread.sleep()},
+ * o que permite comprimir o tempo simulado.
+ *
+ * O modo é escolhido pela chave ModoRelogio do arquivo
+ * configuracoesSistema.properties:
+ *
+ * - REAL              → tempo do sistema (padrão)
+ * - ACELERADO         → o tempo simulado corre FatorRelogio vezes mais rápido
+ * - MAXIMA_VELOCIDADE → o tempo só avança quando o motor de simulação
+ *                       termina os passos do instante atual, tão rápido
+ *                       quanto a CPU permitir
+ *
+ * A chave opcional InicioRelogio (ex: 2026-01-01T00:00) define o instante
+ * inicial dos modos ACELERADO e MAXIMA_VELOCIDADE.
+ */
+public abstract class RelogioSimulacao {
+
+    /** Tempo do sistema */
+    public static final String MODO_REAL = "REAL";
+
+    /** Tempo multiplicado por um fator */
+    public static final String MODO_ACELERADO = "ACELERADO";
+
+    /** Tempo avançado pelo motor, sem espera */
+    public static final String MODO_MAXIMA_VELOCIDADE = "MAXIMA_VELOCIDADE";
+
+    /** Instância única do relógio */
+    private static RelogioSimulacao instance;
+
+    /**
+     * Retorna o relógio configurado para o sistema.
+     *
+     * @return instância única do relógio
+     */
+    public static synchronized RelogioSimulacao getInstance() {
+        if (instance == null) {
+            instance = criar(Configuracoes.getString("ModoRelogio", MODO_REAL));
+        }
+        return instance;
+    }
+
+    /**
+     * Cria o relógio do modo informado. Modos desconhecidos usam o tempo real.
+     */
+    private static RelogioSimulacao criar(String modo) {
+        if (MODO_ACELERADO.equalsIgnoreCase(modo)) {
+            return new RelogioAcelerado(instanteInicial(),
+                    Configuracoes.getLong("FatorRelogio", 60));
+        }
+        if (MODO_MAXIMA_VELOCIDADE.equalsIgnoreCase(modo)) {
+            return new RelogioMaximaVelocidade(instanteInicial());
+        }
+        return new RelogioReal();
+    }
+
+    /**
+     * Lê o instante inicial configurado ou usa o instante atual.
+     */
+    private static long instanteInicial() {
+        String inicio = Configuracoes.getString("InicioRelogio", "");
+        try {
+            if (!inicio.isEmpty()) {
+                return LocalDateTime.parse(inicio)
+                        .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            }
+        } catch (DateTimeParseException e) {
+            System.out.println("InicioRelogio inválido: " + inicio);
+        }
+        return System.currentTimeMillis();
+    }
+
+    // ===================== API PÚBLICA =====================
+
+    /**
+     * Retorna o instante simulado atual.
+     *
+     * @return milissegundos desde a época (1970-01-01T00:00Z)
+     */
+    public abstract long agoraMillis();
+
+    /**
+     * Retorna a data/hora simulada atual no fuso do sistema.
+     *
+     * @return data/hora atual da simulação
+     */
+    public LocalDateTime agora() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(agoraMillis()), ZoneId.systemDefault());
+    }
+
+    /**
+     * Suspende a thread atual por um período de tempo simulado.
+     *
+     * @param millis período simulado em milissegundos
+     * @throws InterruptedException se a thread for interrompida
+     */
+    public abstract void dormir(long millis) throws InterruptedException;
+
+    /**
+     * Avisa que a thread atual não vai mais chamar {@link #dormir(long)}
+     * (ex.: o laço de simulação do hidrômetro terminou).
+     */
+    public void sairDaSimulacao() {
+    }
+
+    /**
+     * Converte um período simulado no período real correspondente,
+     * para uso com agendadores que trabalham com tempo real.
+     *
+     * @param millis período simulado em milissegundos
+     * @return período real em milissegundos
+     */
+    public abstract long paraTempoReal(long millis);
+
+    /**
+     * Indica se o relógio só avança por {@link #avancarPara(long)}.
+     *
+     * @return true no modo MAXIMA_VELOCIDADE
+     */
+    public boolean isMaximaVelocidade() {
+        return false;
+    }
+
+    /**
+     * Avança o tempo simulado até o instante informado.
+     * Suportado apenas no modo MAXIMA_VELOCIDADE.
+     *
+     * @param instante novo instante simulado (ms)
+     */
+    public void avancarPara(long instante) {
+        throw new UnsupportedOperationException("O relógio " + getClass().getSimpleName()
+                + " não pode ser avançado manualmente.");
+    }
+}
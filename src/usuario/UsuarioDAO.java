@@ -7,11 +7,16 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import metricas.EventoPersistencia;
+import src.BarramentoEventos;
 import src.Configuracoes;
+import src.DiarioEventos;
 import src.Evento;
 import src.Messages;
 import src.Observer;
@@ -26,6 +31,9 @@ import src.Subject;
  * - DAO (Data Access Object): encapsula acesso ao arquivo
  * - Singleton: garante uma única instância
  * - Observer (Subject): notifica outros subsistemas quando um usuário é removido
+ *
+ * Com ModoPersistencia=DIARIO, cada alteração é registrada no
+ * {@link DiarioEventos} e o arquivo de usuários não é usado.
  */
 public class UsuarioDAO implements Subject {
 
@@ -39,7 +47,10 @@ public class UsuarioDAO implements Subject {
 	private Map<String, Usuario> mapaUsuarios;
 
 	/** Lista de observers interessados em eventos de usuário */
-	private List<Observer> observers = new ArrayList<>();
+	private final CopyOnWriteArrayList<Observer> observers = new CopyOnWriteArrayList<>();
+
+	/** Diário de eventos (null quando ModoPersistencia=ARQUIVOS) */
+	private final DiarioEventos diario;
 
 	/**
 	 * Construtor privado.
@@ -47,6 +58,7 @@ public class UsuarioDAO implements Subject {
 	 */
 	private UsuarioDAO(String caminhoArquivo) {
 		this.arquivo = new File(caminhoArquivo);
+		this.diario = DiarioEventos.isAtivo() ? DiarioEventos.getInstance() : null;
 	}
 
 	/**
@@ -71,7 +83,9 @@ public class UsuarioDAO implements Subject {
 	 * - A persistência em arquivo ocorre posteriormente
 	 */
 	public void salvar(Usuario usuario) throws IOException, UsuarioException {
-		mapaUsuarios.putIfAbsent(usuario.getLogin(), usuario);
+		if (mapaUsuarios.putIfAbsent(usuario.getLogin(), usuario) == null) {
+			registrarNoDiario(usuario);
+		}
 	}
 
 	/**
@@ -95,30 +109,52 @@ public class UsuarioDAO implements Subject {
 	        String linha;
 
 	        while ((linha = br.readLine()) != null) {
+	            Usuario usuario = parseLinha(linha);
+	            if (usuario != null) {
+	                usuarios.put(usuario.getLogin(), usuario);
+	            }
+	        }
+	    }
 
-	            // Divide usando hífen literal
-	            String[] partes = linha.split("\\-");
+	    return usuarios;
+	}
 
-	            // Linha inválida
-	            if (partes.length != 3) {
-	                continue;
-	            }
+	/**
+	 * Converte uma linha no formato CPF-SENHA-NOME em um usuário.
+	 *
+	 * @return usuário ou null se a linha for inválida ou corrompida
+	 */
+	private Usuario parseLinha(String linha) {
 
-	            try {
-	                String login = partes[0].trim();
-	                String senha = partes[1].trim();
-	                String nome  = partes[2].trim();
+	    // Divide usando hífen literal
+	    String[] partes = linha.split("\\-");
 
-	                Usuario usuario = new Usuario(login, nome, senha);
-	                usuarios.put(login, usuario);
+	    // Linha inválida
+	    if (partes.length != 3) {
+	        return null;
+	    }
 
-	            } catch (Exception e) {
-	                // Usuário inválido ou corrompido → ignorado
-	            }
-	        }
+	    try {
+	        String login = partes[0].trim();
+	        String senha = partes[1].trim();
+	        String nome  = partes[2].trim();
+
+	        return new Usuario(login, nome, senha);
+
+	    } catch (Exception e) {
+	        // Usuário inválido ou corrompido → ignorado
+	        return null;
 	    }
+	}
 
-	    return usuarios;
+	/**
+	 * Registra o usuário no diário de eventos, quando ativo.
+	 */
+	private void registrarNoDiario(Usuario u) {
+		if (diario != null) {
+			diario.registrar(DiarioEventos.Entidade.USUARIO, u.getLogin(),
+					u.getLogin() + "-" + u.getSenha() + "-" + u.getNome());
+		}
 	}
 
 	/**
@@ -128,6 +164,21 @@ public class UsuarioDAO implements Subject {
 	 * - Carrega os usuários existentes para a memória
 	 */
 	public void inicializarSistema() {
+		EventoPersistencia jfr = new EventoPersistencia();
+		jfr.begin();
+
+		if (diario != null) {
+			mapaUsuarios = new HashMap<>();
+			for (String linha : diario.linhas(DiarioEventos.Entidade.USUARIO)) {
+				Usuario usuario = parseLinha(linha);
+				if (usuario != null) {
+					mapaUsuarios.put(usuario.getLogin(), usuario);
+				}
+			}
+			jfr.concluir("USUARIO", "inicializarSistema", getQuantidade(), -1);
+			return;
+		}
+
 		try {
 			if (!arquivo.exists()) {
 				arquivo.createNewFile();
@@ -139,6 +190,7 @@ public class UsuarioDAO implements Subject {
 		} catch (IOException e) {
 			System.out.println(Messages.getString("UsuarioDAO.1") + e.getMessage());
 		}
+		jfr.concluir("USUARIO", "inicializarSistema", getQuantidade(), arquivo.length());
 	}
 
 	/**
@@ -146,9 +198,15 @@ public class UsuarioDAO implements Subject {
 	 *
 	 * - Sobrescreve completamente o arquivo
 	 * - Usado ao encerrar o sistema
+	 * - Sem efeito com o diário de eventos, que já contém cada alteração
 	 */
 	public void fecharSistema() {
+		if (diario != null) {
+			return;
+		}
 
+		EventoPersistencia jfr = new EventoPersistencia();
+		jfr.begin();
 		try (BufferedWriter bw = new BufferedWriter(new FileWriter(arquivo))) {
 
 			for (Usuario u : mapaUsuarios.values()) {
@@ -160,6 +218,7 @@ public class UsuarioDAO implements Subject {
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+		jfr.concluir("USUARIO", "fecharSistema", getQuantidade(), arquivo.length());
 	}
 
 	/**
@@ -170,11 +229,39 @@ public class UsuarioDAO implements Subject {
 	 */
 	public void remover(String id) {
 		mapaUsuarios.remove(id);
+		if (diario != null) {
+			diario.registrarRemocao(DiarioEventos.Entidade.USUARIO, id);
+		}
 		notificarObservers(
 			new Evento(Evento.Tipo.USUARIO_REMOVIDO, id)
 		);
 	}
 
+	/**
+	 * Remove vários usuários de uma vez.
+	 *
+	 * Os observers recebem um único evento com todos os IDs removidos.
+	 *
+	 * @param ids CPFs dos usuários
+	 */
+	public void removerVarios(Collection<String> ids) {
+		List<String> removidos = new ArrayList<>();
+		for (String id : ids) {
+			if (mapaUsuarios.remove(id) != null) {
+				removidos.add(id);
+			}
+		}
+
+		if (!removidos.isEmpty()) {
+			if (diario != null) {
+				diario.registrarRemocoes(DiarioEventos.Entidade.USUARIO, removidos);
+			}
+			notificarObservers(
+				new Evento(Evento.Tipo.USUARIO_REMOVIDO, removidos)
+			);
+		}
+	}
+
 	/**
 	 * Atualiza um usuário existente.
 	 *
@@ -184,6 +271,7 @@ public class UsuarioDAO implements Subject {
 		try {
 			Usuario aux = new Usuario(id, nome, senha);
 			mapaUsuarios.put(id, aux);
+			registrarNoDiario(aux);
 		} catch (UsuarioException e) {
 			e.printStackTrace();
 		}
@@ -199,6 +287,11 @@ public class UsuarioDAO implements Subject {
 		return mapaUsuarios.containsKey(login);
 	}
 
+	/** Retorna a quantidade de usuários cadastrados */
+	public int getQuantidade() {
+		return mapaUsuarios == null ? 0 : mapaUsuarios.size();
+	}
+
 	/** Retorna todos os usuários cadastrados */
 	public List<Usuario> listarUsuarios() {
 		return mapaUsuarios.values().stream().toList();
@@ -207,9 +300,16 @@ public class UsuarioDAO implements Subject {
 	/**
 	 * Salva explicitamente o estado atual dos usuários no arquivo.
 	 *
-	 * Usado, por exemplo, ao realizar logout.
+	 * Usado, por exemplo, ao realizar logout. Sem efeito com o
+	 * diário de eventos, que já contém cada alteração.
 	 */
 	public void salvarEstadoUsuarios() {
+		if (diario != null) {
+			return;
+		}
+
+		EventoPersistencia jfr = new EventoPersistencia();
+		jfr.begin();
 
         // Abre o arquivo sem append → sobrescreve tudo
         try (FileWriter fw = new FileWriter(arquivo.getName(), false)) {
@@ -224,14 +324,15 @@ public class UsuarioDAO implements Subject {
         } catch (IOException e) {
 			e.printStackTrace();
 		}
+		jfr.concluir("USUARIO", "salvarEstadoUsuarios", getQuantidade(), new File(arquivo.getName()).length());
 	}
 
 	// ===================== OBSERVER =====================
 
 	@Override
 	public void adicionarObserver(Observer o) {
-	    if (o != null && !observers.contains(o)) {
-	        observers.add(o);
+	    if (o != null) {
+	        observers.addIfAbsent(o);
 	    }
 	}
 
@@ -242,8 +343,6 @@ public class UsuarioDAO implements Subject {
 
 	@Override
 	public void notificarObservers(Evento evento) {
-	    for (Observer o : observers) {
-	        o.atualizar(evento);
-	    }
+	    BarramentoEventos.getInstance().publicar(evento, observers);
 	}
 }
@@ -1,6 +1,7 @@
 package usuario;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 
 import javax.security.auth.login.LoginException;
@@ -98,6 +99,23 @@ public class UsuarioFacade {
         }
     }
 
+    /**
+     * Remove vários usuários em uma única operação.
+     *
+     * Regra de negócio:
+     * - O usuário logado não pode estar entre os removidos.
+     *
+     * @param ids CPFs dos usuários a serem removidos
+     */
+    public void removerUsuarios(Collection<String> ids)
+            throws UsuarioException, IOException {
+
+        if (ids.contains(usuarioLogado.getLogin())) {
+            throw new UsuarioException(Messages.getString("UsuarioFacade.0")); //$NON-NLS-1$
+        }
+        usuarioDao.removerVarios(ids);
+    }
+
     /**
      * Atualiza os dados de um usuário.
      *